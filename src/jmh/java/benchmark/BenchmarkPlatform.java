@@ -0,0 +1,95 @@
+package benchmark;
+
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.parser.CharStream;
+import net.programmer.igoodie.tsl.parser.TSLLexer;
+import net.programmer.igoodie.tsl.parser.TSLParser;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import net.programmer.igoodie.tsl.runtime.action.TSLAction;
+import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+
+import java.io.IOException;
+import java.util.List;
+
+// Shared fixtures, a platform close to what the mods register
+public final class BenchmarkPlatform {
+
+    public static final String TARGET = "Player:iGoodie";
+
+    private BenchmarkPlatform() {}
+
+    public static TSLPlatform create() {
+        TSLPlatform platform = new TSLPlatform("Benchmark", 1.0f);
+        platform.initializeStd();
+
+        platform.registerEvent(new TSLEvent("Donation")
+                .addPropertyType(TSLEvent.PropertyBuilder.STRING.create("actor"))
+                .addPropertyType(TSLEvent.PropertyBuilder.STRING.create("message"))
+                .addPropertyType(TSLEvent.PropertyBuilder.DOUBLE.create("amount")));
+        platform.registerEvent(new TSLEvent("Twitch Follow")
+                .addPropertyType(TSLEvent.PropertyBuilder.STRING.create("actor")));
+
+        platform.registerExpression("actor", (expr, ctx) -> ctx.getEventArgs().getString(expr));
+        platform.registerExpression("message", (expr, ctx) -> ctx.getEventArgs().getString(expr));
+        platform.registerExpression("amount", (expr, ctx) -> ctx.getEventArgs().getDouble(expr).map(String::valueOf));
+
+        platform.registerAction("DROP", Sink::new);
+        platform.registerAction("SUMMON", Sink::new);
+        return platform;
+    }
+
+    // One donation threshold per rule, rule i matches amounts above (ruleCount - i) * 10
+    public static String donationRules(int ruleCount) {
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < ruleCount; i++) {
+            if (i > 0) script.append("\n\n");
+            script.append("DROP %diamond_").append(i).append("% ")
+                    .append("DISPLAYING %${actor} donated ${amount}!%\n")
+                    .append(" ON Donation WITH amount > ").append((ruleCount - i) * 10);
+        }
+        return script.toString();
+    }
+
+    public static List<TSLLexer.Token> tokenize(String script) {
+        try {
+            return new TSLLexer(CharStream.fromString(script)).tokenize();
+        } catch (IOException | TSLSyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static TSLRuleset parse(TSLPlatform platform, String script) {
+        try {
+            return new TSLParser(platform, TARGET, tokenize(script)).parse();
+        } catch (TSLSyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static TSLEventContext donation(TSLPlatform platform, double amount) {
+        TSLEventContext ctx = new TSLEventContext(platform, "Donation");
+        ctx.setTarget(TARGET);
+        ctx.getEventArgs().put("actor", "iGoodie");
+        ctx.getEventArgs().put("message", "Take my money!");
+        ctx.getEventArgs().put("amount", amount);
+        return ctx;
+    }
+
+    // Renders its message like a real action would, without touching any game
+    public static class Sink extends TSLAction {
+
+        public Sink(TSLPlatform platform, List<String> args) throws TSLSyntaxException {
+            super(platform, args);
+            consumeMessagePart(args);
+        }
+
+        @Override
+        public boolean perform(TSLEventContext ctx) {
+            return !getCalculatedMessage(ctx).isEmpty();
+        }
+
+    }
+
+}
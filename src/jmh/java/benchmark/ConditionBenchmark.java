@@ -0,0 +1,57 @@
+package benchmark;
+
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.exception.TSLPerformingException;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// A compound IF condition against the nested IFs it replaces, over the same donation
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConditionBenchmark {
+
+    public static final String COMPOUND = "IF amount > 10 AND message CONTAINS gg AND actor IS iGoodie"
+            + " THEN DROP diamond ON Donation";
+
+    public static final String NESTED = "IF amount > 10 THEN IF message CONTAINS gg THEN IF actor IS iGoodie"
+            + " THEN DROP diamond ON Donation";
+
+    @Param({"ALL", "FIRST", "NONE"})
+    public Match match;
+
+    public TSLPlatform platform;
+    public TSLRuleset compound;
+    public TSLRuleset nested;
+    public TSLEventContext ctx;
+
+    // Comparisons the donation passes, short-circuiting stops at the first one failing
+    public enum Match {
+        ALL, FIRST, NONE
+    }
+
+    @Setup
+    public void setup() {
+        platform = BenchmarkPlatform.create().freeze();
+        compound = BenchmarkPlatform.parse(platform, COMPOUND);
+        nested = BenchmarkPlatform.parse(platform, NESTED);
+
+        ctx = BenchmarkPlatform.donation(platform, match == Match.NONE ? 5 : 50);
+        ctx.getEventArgs().put("message", match == Match.ALL ? "gg wp" : "hello");
+    }
+
+    @Benchmark
+    public List<String> compound() throws TSLPerformingException {
+        return compound.perform(ctx);
+    }
+
+    @Benchmark
+    public List<String> nested() throws TSLPerformingException {
+        return nested.perform(ctx);
+    }
+
+}
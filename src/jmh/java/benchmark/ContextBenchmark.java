@@ -0,0 +1,35 @@
+package benchmark;
+
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ContextBenchmark {
+
+    public TSLPlatform platform;
+    public TSLEventContext ctx;
+
+    @Setup
+    public void setup() {
+        platform = BenchmarkPlatform.create().freeze();
+        ctx = BenchmarkPlatform.donation(platform, 42.0);
+        ctx.ensureFrame(4);
+    }
+
+    @Benchmark
+    public TSLEventContext create() {
+        return BenchmarkPlatform.donation(platform, 42.0);
+    }
+
+    // What FOR, EITHER and REFLECT pay per branch
+    @Benchmark
+    public TSLEventContext copy() {
+        return ctx.copy();
+    }
+
+}
@@ -0,0 +1,55 @@
+package benchmark;
+
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.exception.TSLPerformingException;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DispatchBenchmark {
+
+    @Param({"100"})
+    public int rules;
+
+    @Param({"FIRST", "MIDDLE", "LAST", "NONE"})
+    public Match match;
+
+    @Param({"false", "true"})
+    public boolean statistics;
+
+    public TSLPlatform platform;
+    public TSLRuleset ruleset;
+    public double amount;
+
+    public enum Match {
+        FIRST, MIDDLE, LAST, NONE
+    }
+
+    @Setup
+    public void setup() {
+        platform = BenchmarkPlatform.create().freeze();
+        ruleset = BenchmarkPlatform.parse(platform, BenchmarkPlatform.donationRules(rules));
+        ruleset.setStatisticsEnabled(statistics);
+
+        switch (match) {
+            case FIRST: amount = rules * 10 + 5; break;
+            case MIDDLE: amount = (rules - rules / 2) * 10 + 5; break;
+            case LAST: amount = 15; break;
+            case NONE: amount = 5; break;
+        }
+    }
+
+    // Context creation is part of every real dispatch, so it stays inside the measurement
+    @Benchmark
+    public List<String> perform() throws TSLPerformingException {
+        TSLEventContext ctx = BenchmarkPlatform.donation(platform, amount);
+        return ruleset.perform(ctx);
+    }
+
+}
@@ -0,0 +1,70 @@
+package benchmark;
+
+import net.programmer.igoodie.tsl.runtime.executor.TSLFairScheduler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Latency of a small target's task while another target keeps a standing backlog, read the p0.99 row.
+// Submitting the small tasks as the flooder itself is the first-come-first-served reference. That one grows
+// with the backlog's work, while the small target waits behind about a quantum of it at most.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FairSchedulerBenchmark {
+
+    public static final String FLOODER = "Player:Flooder";
+
+    @Param({"1", "4"})
+    public int workers;
+
+    @Param({"256"})
+    public int backlog;
+
+    @Param({"1000", "10000"})
+    public long floodTokens;
+
+    @Param({"Player:Small", FLOODER})
+    public String smallTarget;
+
+    public TSLFairScheduler scheduler;
+    public volatile boolean flooding;
+
+    @Setup
+    public void setup() {
+        scheduler = new TSLFairScheduler("Benchmark", workers);
+        flooding = true;
+        for (int i = 0; i < backlog; i++) {
+            submitFlood();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        flooding = false;
+        scheduler.shutdown();
+    }
+
+    // Every flood task queues its successor, so the backlog stays the same size
+    protected void submitFlood() {
+        if (!flooding) return;
+        try {
+            scheduler.submit(FLOODER, () -> {
+                Blackhole.consumeCPU(floodTokens);
+                submitFlood();
+            });
+        } catch (IllegalStateException e) {
+            // Shut down between the check and the submit
+        }
+    }
+
+    @Benchmark
+    public void smallTask() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        scheduler.submit(smallTarget, done::countDown);
+        done.await();
+    }
+
+}
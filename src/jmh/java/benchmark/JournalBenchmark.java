@@ -0,0 +1,55 @@
+package benchmark;
+
+import net.programmer.igoodie.goodies.runtime.GoodieObject;
+import net.programmer.igoodie.tsl.journal.TSLJournal;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Appends from one thread and from several at once, the latter only contend on the segment's CAS
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JournalBenchmark {
+
+    public Path folder;
+    public TSLJournal journal;
+    public GoodieObject args;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("tsl-journal");
+        journal = new TSLJournal(folder);
+        args = new GoodieObject();
+        args.put("actor", "viewer_42");
+        args.put("amount", 4.2);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> paths = Files.walk(folder)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public long append() {
+        return journal.append(0, 42, "Player:iGoodie", "Donation", 0, args);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long appendContended() {
+        return journal.append(0, 42, "Player:iGoodie", "Donation", 0, args);
+    }
+
+}
@@ -0,0 +1,74 @@
+package benchmark;
+
+import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.parser.CharStream;
+import net.programmer.igoodie.tsl.parser.TSLLexer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LexerBenchmark {
+
+    @Param({"REALISTIC", "LONG_GROUP", "ESCAPES", "COMMENTS", "BLANK_LINES"})
+    public Input input;
+
+    public String script;
+
+    public enum Input {
+        REALISTIC, // 100 rules, like a streamer's rules file
+        LONG_GROUP, // One 64KB %group%
+        ESCAPES, // A group made of escapes only
+        COMMENTS, // Mostly multi-line comment
+        BLANK_LINES // Rules separated by runs of empty lines
+    }
+
+    @Setup
+    public void setup() {
+        switch (input) {
+            case REALISTIC:
+                script = BenchmarkPlatform.donationRules(100);
+                break;
+            case LONG_GROUP:
+                script = "DROP %" + repeat("diamond ", 8 * 1024) + "% ON Donation";
+                break;
+            case ESCAPES:
+                script = "DROP %" + repeat("\\%\\\\", 16 * 1024) + "% ON Donation";
+                break;
+            case COMMENTS:
+                script = "#*" + repeat("# not a rule ON Donation\n", 2 * 1024) + "*#\nDROP apple ON Donation";
+                break;
+            case BLANK_LINES:
+                script = repeat("DROP apple ON Donation" + repeat("\n", 64), 100);
+                break;
+        }
+    }
+
+    @Benchmark
+    public void charStream(Blackhole blackhole) throws IOException {
+        CharStream stream = CharStream.fromString(script);
+        while (stream.hasNext()) {
+            blackhole.consume(stream.peek());
+            stream.consume();
+        }
+    }
+
+    @Benchmark
+    public List<TSLLexer.Token> tokenize() throws IOException, TSLSyntaxException {
+        return new TSLLexer(CharStream.fromString(script)).tokenize();
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder builder = new StringBuilder(text.length() * times);
+        for (int i = 0; i < times; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+
+}
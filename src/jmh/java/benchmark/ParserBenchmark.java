@@ -0,0 +1,35 @@
+package benchmark;
+
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.parser.TSLLexer;
+import net.programmer.igoodie.tsl.parser.TSLParser;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParserBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int rules;
+
+    public TSLPlatform platform;
+    public List<TSLLexer.Token> tokens;
+
+    @Setup
+    public void setup() {
+        platform = BenchmarkPlatform.create();
+        tokens = BenchmarkPlatform.tokenize(BenchmarkPlatform.donationRules(rules));
+    }
+
+    @Benchmark
+    public TSLRuleset parse() throws TSLSyntaxException {
+        return new TSLParser(platform, BenchmarkPlatform.TARGET, tokens).parse();
+    }
+
+}
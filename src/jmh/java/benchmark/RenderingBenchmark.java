@@ -0,0 +1,41 @@
+package benchmark;
+
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.runtime.action.TSLAction;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RenderingBenchmark {
+
+    @Param({"Thanks for following!", "${actor} donated ${amount}: ${message}", "${unknown} ${actor}${actor}${actor}"})
+    public String template;
+
+    public TSLAction action;
+    public TSLEventContext ctx;
+
+    @Setup
+    public void setup() throws TSLSyntaxException {
+        TSLPlatform platform = BenchmarkPlatform.create().freeze();
+        action = new BenchmarkPlatform.Sink(platform, Arrays.asList("DISPLAYING", template));
+        ctx = BenchmarkPlatform.donation(platform, 42.0);
+    }
+
+    @Benchmark
+    public String replaceExpressions() {
+        return action.replaceExpressions(template, ctx);
+    }
+
+    @Benchmark
+    public List<String> calculatedMessage() {
+        return action.getCalculatedMessage(ctx);
+    }
+
+}
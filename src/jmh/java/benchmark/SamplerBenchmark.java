@@ -0,0 +1,91 @@
+package benchmark;
+
+import net.programmer.igoodie.tsl.std.action.EitherAction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SamplerBenchmark {
+
+    @Param({"2", "16", "50", "256"})
+    public int elements;
+
+    public EitherAction.WeightedSampler<Integer> sampler;
+    public LinearSampler<Integer> linearSampler;
+    public SplittableRandom random;
+
+    @Setup
+    public void setup() {
+        sampler = new EitherAction.WeightedSampler<>();
+        linearSampler = new LinearSampler<>();
+        for (int i = 0; i < elements; i++) {
+            sampler.addElement(i, 1 + i * i); // Skewed, like "rare drop" rules
+            linearSampler.addElement(i, 1 + i * i);
+        }
+        sampler.build();
+        random = new SplittableRandom(42);
+    }
+
+    @Benchmark
+    public Integer sample() {
+        return sampler.sample(random.nextDouble());
+    }
+
+    @Benchmark
+    public Integer sampleLinear() {
+        return linearSampler.sample(random);
+    }
+
+    // Baseline, the sampler EITHER used before the alias table: one draw per element, O(n) a sample
+    public static class LinearSampler<T> {
+
+        protected final List<Node<T>> nodes = new ArrayList<>();
+
+        public void addElement(T data, int weight) {
+            nodes.add(new Node<>(data, weight));
+            Collections.sort(nodes);
+        }
+
+        public T sample(SplittableRandom random) {
+            Node<T> selectedNode = null;
+            double highestThreshold = -1;
+
+            for (Node<T> node : nodes) {
+                double threshold = random.nextDouble() * node.weight;
+
+                if (threshold > highestThreshold) {
+                    highestThreshold = threshold;
+                    selectedNode = node;
+                }
+            }
+
+            return selectedNode.data;
+        }
+
+        protected static class Node<T> implements Comparable<Node<T>> {
+
+            protected final T data;
+            protected final int weight;
+
+            public Node(T data, int weight) {
+                this.data = data;
+                this.weight = weight;
+            }
+
+            @Override
+            public int compareTo(Node<T> other) {
+                return Integer.compare(this.weight, other.weight);
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,62 @@
+package benchmark;
+
+import net.programmer.igoodie.tsl.runtime.executor.TSLShardedScheduler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Throughput over the shard count, tasks spread over many targets so every shard has work.
+// Scaling stops at the core count of the machine, compare against availableProcessors.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ShardedSchedulerBenchmark {
+
+    public static final int TASKS = 4096;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int shards;
+
+    @Param({"64"})
+    public int targets;
+
+    @Param({"100", "1000"})
+    public long taskTokens;
+
+    public TSLShardedScheduler scheduler;
+    public String[] targetNames;
+
+    @Setup
+    public void setup() {
+        scheduler = new TSLShardedScheduler("Benchmark", shards);
+        targetNames = new String[targets];
+        for (int i = 0; i < targets; i++) {
+            targetNames[i] = "Player:" + i;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public void submitAndDrain() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(TASKS);
+        long tokens = taskTokens;
+
+        for (int i = 0; i < TASKS; i++) {
+            scheduler.submit(targetNames[i % targetNames.length], () -> {
+                Blackhole.consumeCPU(tokens);
+                done.countDown();
+            });
+        }
+
+        done.await();
+    }
+
+}
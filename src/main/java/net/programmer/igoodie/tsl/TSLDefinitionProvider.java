@@ -0,0 +1,9 @@
+package net.programmer.igoodie.tsl;
+
+// Discovered through ServiceLoader, see TSLPlatform#loadProviders.
+// Prefer the registerLazy* methods, so definition classes are only loaded once a ruleset uses them.
+public interface TSLDefinitionProvider {
+
+    void registerDefinitions(TSLPlatform platform);
+
+}
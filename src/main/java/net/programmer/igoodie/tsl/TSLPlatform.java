@@ -1,15 +1,22 @@
 package net.programmer.igoodie.tsl;
 
 import net.programmer.igoodie.goodies.util.StringUtilities;
+import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.runtime.TSLRandomness;
 import net.programmer.igoodie.tsl.runtime.action.TSLAction;
 import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
 import net.programmer.igoodie.tsl.runtime.predicate.TSLComparator;
-import net.programmer.igoodie.tsl.std.action.*;
-import net.programmer.igoodie.tsl.std.comparator.*;
+import net.programmer.igoodie.tsl.std.TSLStdProvider;
+import net.programmer.igoodie.tsl.util.CaseFoldedTable;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 public class TSLPlatform {
 
@@ -21,13 +28,39 @@ public class TSLPlatform {
     private final Map<String, TSLEvent> eventDefinitions;
     private final Map<String, TSLComparator.Supplier<?>> comparatorDefinitions;
 
+    private final FrozenDefinitions frozenDefinitions;
+
+    private volatile TSLRandomness randomness;
+
     public TSLPlatform(String platformName, float platformVersion) {
         this.platformName = platformName;
         this.platformVersion = platformVersion;
-        this.actionDefinitions = new HashMap<>();
-        this.expressionEvaluators = new HashMap<>();
-        this.eventDefinitions = new HashMap<>();
-        this.comparatorDefinitions = new HashMap<>();
+        this.actionDefinitions = new ConcurrentHashMap<>();
+        this.expressionEvaluators = new ConcurrentHashMap<>();
+        this.eventDefinitions = new ConcurrentHashMap<>();
+        this.comparatorDefinitions = new ConcurrentHashMap<>();
+        this.frozenDefinitions = null;
+        this.randomness = new TSLRandomness();
+    }
+
+    private TSLPlatform(TSLPlatform platform) {
+        this.platformName = platform.platformName;
+        this.platformVersion = platform.platformVersion;
+        this.actionDefinitions = Collections.unmodifiableMap(new HashMap<>(platform.actionDefinitions));
+        this.expressionEvaluators = Collections.unmodifiableMap(new HashMap<>(platform.expressionEvaluators));
+        this.eventDefinitions = Collections.unmodifiableMap(new HashMap<>(platform.eventDefinitions));
+        this.comparatorDefinitions = Collections.unmodifiableMap(new HashMap<>(platform.comparatorDefinitions));
+        this.frozenDefinitions = new FrozenDefinitions(this);
+        this.randomness = platform.randomness;
+    }
+
+    // Immutable snapshot of the current definitions, safe to share between threads without locking
+    public TSLPlatform freeze() {
+        return isFrozen() ? this : new TSLPlatform(this);
+    }
+
+    public boolean isFrozen() {
+        return frozenDefinitions != null;
     }
 
     public String getPlatformName() {
@@ -38,61 +71,158 @@ public class TSLPlatform {
         return platformVersion;
     }
 
+    public TSLRandomness getRandomness() {
+        return randomness;
+    }
+
+    public void setRandomness(TSLRandomness randomness) {
+        this.randomness = randomness;
+    }
+
     public <T extends TSLAction.Supplier<?>> T registerAction(String name, T action) {
+        checkNotFrozen();
         this.actionDefinitions.put(name.toUpperCase(), action);
         return action;
     }
 
+    // Action class is loaded the first time a ruleset uses the keyword, e.g. () -> WaitAction::new
+    public void registerLazyAction(String name, Supplier<TSLAction.Supplier<?>> definition) {
+        registerAction(name, new LazyAction(definition));
+    }
+
     public <T extends TSLAction.ExpressionEvaluator> T registerExpression(String expression, T evaluator) {
+        checkNotFrozen();
         this.expressionEvaluators.put(expression, evaluator);
         return evaluator;
     }
 
     public <T extends TSLEvent> T registerEvent(T event) {
+        checkNotFrozen();
         this.eventDefinitions.put(event.getName(), event);
         return event;
     }
 
     public <T extends TSLComparator.Supplier<?>> T registerComparator(String symbol, T comparator) {
+        checkNotFrozen();
         this.comparatorDefinitions.put(symbol.toUpperCase(), comparator);
         return comparator;
     }
 
+    public void registerLazyComparator(String symbol, Supplier<TSLComparator.Supplier<?>> definition) {
+        registerComparator(symbol, new LazyComparator(definition));
+    }
+
+    private void checkNotFrozen() {
+        if (isFrozen())
+            throw new IllegalStateException("Platform is frozen, register definitions before calling freeze().");
+    }
+
     public Optional<TSLAction.Supplier<?>> getActionDefinition(String name) {
-        return Optional.ofNullable(this.actionDefinitions.get(name.toUpperCase()));
+        return Optional.ofNullable(findActionDefinition(name));
     }
 
     public Optional<TSLAction.ExpressionEvaluator> getExpressionEvaluator(String expression) {
-        return Optional.ofNullable(expressionEvaluators.get(expression));
+        return Optional.ofNullable(findExpressionEvaluator(expression));
     }
 
     public Optional<TSLEvent> getEvent(String eventName) {
-        return Optional.ofNullable(this.eventDefinitions.get(StringUtilities.upperFirstLetters(eventName)));
+        return Optional.ofNullable(findEvent(eventName));
     }
 
     public Optional<TSLComparator.Supplier<?>> getComparatorDefinition(String symbol) {
-        return Optional.ofNullable(this.comparatorDefinitions.get(symbol.toUpperCase()));
+        return Optional.ofNullable(findComparatorDefinition(symbol));
+    }
+
+    // find* variants return null when missing, frozen platforms look them up without allocating
+
+    public TSLAction.Supplier<?> findActionDefinition(String name) {
+        if (frozenDefinitions != null) return frozenDefinitions.actions.get(name);
+        return this.actionDefinitions.get(name.toUpperCase());
+    }
+
+    public TSLAction.ExpressionEvaluator findExpressionEvaluator(String expression) {
+        if (frozenDefinitions != null) return frozenDefinitions.expressions.get(expression);
+        return this.expressionEvaluators.get(expression);
+    }
+
+    public TSLEvent findEvent(String eventName) {
+        if (frozenDefinitions != null) return frozenDefinitions.events.get(eventName);
+        return this.eventDefinitions.get(StringUtilities.upperFirstLetters(eventName));
+    }
+
+    public TSLComparator.Supplier<?> findComparatorDefinition(String symbol) {
+        if (frozenDefinitions != null) return frozenDefinitions.comparators.get(symbol);
+        return this.comparatorDefinitions.get(symbol.toUpperCase());
     }
 
     public void initializeStd() {
-        this.registerAction("WAIT", WaitAction::new);
-        this.registerAction("SEQUENTIALLY", SequentiallyAction::new);
-        this.registerAction("EITHER", EitherAction::new);
-        this.registerAction("NOTHING", NothingAction::new);
-        this.registerAction("FOR", ForAction::new);
-        this.registerAction("IF", IfAction::new);
-        this.registerAction("REFLECT", ReflectAction::new);
-
-        this.registerComparator("IN RANGE", InRangeComparator::new);
-        this.registerComparator("CONTAINS", ContainsComparator::new);
-        this.registerComparator("IS", IsComparator::new);
-        this.registerComparator("PREFIX", PrefixComparator::new);
-        this.registerComparator("POSTFIX", PostfixComparator::new);
-        this.registerComparator("=", EqualsComparator::new);
-        this.registerComparator(">", GtComparator::new);
-        this.registerComparator(">=", GteComparator::new);
-        this.registerComparator("<", LtComparator::new);
-        this.registerComparator("<=", LteComparator::new);
+        new TSLStdProvider().registerDefinitions(this);
+    }
+
+    public void loadProviders() {
+        loadProviders(Thread.currentThread().getContextClassLoader());
+    }
+
+    public void loadProviders(ClassLoader classLoader) {
+        for (TSLDefinitionProvider provider : ServiceLoader.load(TSLDefinitionProvider.class, classLoader)) {
+            provider.registerDefinitions(this);
+        }
+    }
+
+    private static class LazyAction implements TSLAction.Supplier<TSLAction> {
+
+        private final Supplier<TSLAction.Supplier<?>> definition;
+        private volatile TSLAction.Supplier<?> resolved;
+
+        private LazyAction(Supplier<TSLAction.Supplier<?>> definition) {
+            this.definition = definition;
+        }
+
+        @Override
+        public TSLAction generate(TSLPlatform platform, List<String> args) throws TSLSyntaxException {
+            TSLAction.Supplier<?> supplier = resolved;
+            if (supplier == null) {
+                resolved = supplier = definition.get(); // Racing resolves yield equivalent suppliers
+            }
+            return supplier.generate(platform, args);
+        }
+
+    }
+
+    private static class LazyComparator implements TSLComparator.Supplier<TSLComparator> {
+
+        private final Supplier<TSLComparator.Supplier<?>> definition;
+        private volatile TSLComparator.Supplier<?> resolved;
+
+        private LazyComparator(Supplier<TSLComparator.Supplier<?>> definition) {
+            this.definition = definition;
+        }
+
+        @Override
+        public TSLComparator generate(Object right) throws TSLSyntaxException {
+            TSLComparator.Supplier<?> supplier = resolved;
+            if (supplier == null) {
+                resolved = supplier = definition.get();
+            }
+            return supplier.generate(right);
+        }
+
+    }
+
+    private static class FrozenDefinitions {
+
+        private final CaseFoldedTable<TSLAction.Supplier<?>> actions;
+        private final CaseFoldedTable<TSLAction.ExpressionEvaluator> expressions;
+        private final CaseFoldedTable<TSLEvent> events;
+        private final CaseFoldedTable<TSLComparator.Supplier<?>> comparators;
+
+        private FrozenDefinitions(TSLPlatform platform) {
+            this.actions = new CaseFoldedTable<>(CaseFoldedTable.Folding.UPPER_CASE, platform.actionDefinitions);
+            this.expressions = new CaseFoldedTable<>(CaseFoldedTable.Folding.EXACT, platform.expressionEvaluators);
+            this.events = new CaseFoldedTable<>(CaseFoldedTable.Folding.UPPER_FIRST_LETTERS, platform.eventDefinitions);
+            this.comparators = new CaseFoldedTable<>(CaseFoldedTable.Folding.UPPER_CASE, platform.comparatorDefinitions);
+        }
+
     }
 
 }
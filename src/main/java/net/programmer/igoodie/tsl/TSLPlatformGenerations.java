@@ -0,0 +1,72 @@
+package net.programmer.igoodie.tsl;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+// Versioned, frozen platform definitions. A new generation is published with a single
+// reference swap; whoever already read the previous one keeps using it until done.
+public class TSLPlatformGenerations {
+
+    protected final AtomicReference<Generation> current;
+    protected final List<Consumer<Generation>> listeners;
+
+    public TSLPlatformGenerations(TSLPlatform platform) {
+        this.current = new AtomicReference<>(new Generation(1, platform.freeze()));
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    public Generation current() {
+        return current.get();
+    }
+
+    public TSLPlatform getPlatform() {
+        return current.get().platform;
+    }
+
+    public Generation publish(TSLPlatform platform) {
+        TSLPlatform frozen = platform.freeze();
+        Generation generation;
+
+        synchronized (this) { // Keeps generation numbers in publish order
+            generation = new Generation(current.get().number + 1, frozen);
+            current.set(generation);
+        }
+
+        for (Consumer<Generation> listener : listeners) {
+            listener.accept(generation);
+        }
+
+        return generation;
+    }
+
+    public void addListener(Consumer<Generation> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<Generation> listener) {
+        listeners.remove(listener);
+    }
+
+    public static class Generation {
+
+        protected final long number;
+        protected final TSLPlatform platform;
+
+        public Generation(long number, TSLPlatform platform) {
+            this.number = number;
+            this.platform = platform;
+        }
+
+        public long getNumber() {
+            return number;
+        }
+
+        public TSLPlatform getPlatform() {
+            return platform;
+        }
+
+    }
+
+}
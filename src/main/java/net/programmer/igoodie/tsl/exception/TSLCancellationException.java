@@ -0,0 +1,9 @@
+package net.programmer.igoodie.tsl.exception;
+
+public class TSLCancellationException extends TSLPerformingException {
+
+    public TSLCancellationException(String format, Object... args) {
+        super(format, args);
+    }
+
+}
@@ -0,0 +1,75 @@
+package net.programmer.igoodie.tsl.jfr;
+
+import net.programmer.igoodie.tsl.exception.TSLPerformingException;
+import net.programmer.igoodie.tsl.runtime.TSLRule;
+import net.programmer.igoodie.tsl.runtime.action.TSLAction;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import net.programmer.igoodie.tsl.runtime.predicate.TSLPredicate;
+
+// Hooks the runtime calls to emit Java Flight Recorder events (see TSLJfrEvents).
+// Nothing here touches jdk.jfr, so the runtime still loads on JREs without it.
+// Start the JVM with -Dtsl.jfr=false to compile the hooks away entirely.
+public final class TSLFlightRecorder {
+
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("tsl.jfr"))
+            && isAvailable();
+
+    private TSLFlightRecorder() {}
+
+    public static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, TSLFlightRecorder.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    // Rule index is read from the context when the span closes, so it ends up as the matched rule
+    public static Span dispatch(TSLEventContext ctx) {
+        return ENABLED ? TSLJfrEvents.dispatch(ctx) : Span.NONE;
+    }
+
+    // Begins on the submitting thread, closed by the thread that picks the event up
+    public static Span queueWait(TSLEventContext ctx) {
+        return ENABLED ? TSLJfrEvents.queueWait(ctx) : Span.NONE;
+    }
+
+    public static Span render(TSLEventContext ctx, String template) {
+        return ENABLED ? TSLJfrEvents.render(ctx, template) : Span.NONE;
+    }
+
+    // Begins once the targets are resolved, covers copying and queueing the reflected contexts
+    public static Span reflect(TSLEventContext ctx, int targets, boolean dispatched) {
+        return ENABLED ? TSLJfrEvents.reflect(ctx, targets, dispatched) : Span.NONE;
+    }
+
+    public static boolean test(TSLPredicate predicate, int predicateIndex, TSLRule rule, TSLEventContext ctx) {
+        return ENABLED
+                ? TSLJfrEvents.test(predicate, predicateIndex, rule, ctx)
+                : predicate.test(rule, ctx);
+    }
+
+    // Parent is null for the rule's own action, composites pass themselves
+    public static boolean perform(TSLAction parent, TSLAction action, TSLEventContext ctx) throws TSLPerformingException {
+        return ENABLED
+                ? TSLJfrEvents.perform(parent, action, ctx, false, 1)
+                : action.perform(ctx);
+    }
+
+    public static boolean performRepeated(TSLAction parent, TSLAction action, TSLEventContext ctx, int iterations) throws TSLPerformingException {
+        return ENABLED
+                ? TSLJfrEvents.perform(parent, action, ctx, true, iterations)
+                : action.performRepeated(ctx, iterations);
+    }
+
+    public interface Span extends AutoCloseable {
+
+        Span NONE = () -> {};
+
+        @Override
+        void close();
+
+    }
+
+}
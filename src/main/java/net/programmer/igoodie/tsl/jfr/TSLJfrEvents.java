@@ -0,0 +1,246 @@
+package net.programmer.igoodie.tsl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import net.programmer.igoodie.tsl.exception.TSLPerformingException;
+import net.programmer.igoodie.tsl.runtime.TSLRule;
+import net.programmer.igoodie.tsl.runtime.action.TSLAction;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import net.programmer.igoodie.tsl.runtime.predicate.TSLPredicate;
+
+// Only loaded through TSLFlightRecorder once jdk.jfr is known to be there.
+final class TSLJfrEvents {
+
+    // Enablement is per event type, asking a shared instance keeps idle hooks from allocating
+    private static final Dispatch DISPATCH = new Dispatch();
+    private static final QueueWait QUEUE_WAIT = new QueueWait();
+    private static final Render RENDER = new Render();
+    private static final Reflect REFLECT = new Reflect();
+    private static final Predicate PREDICATE = new Predicate();
+    private static final Action ACTION = new Action();
+
+    private TSLJfrEvents() {}
+
+    static TSLFlightRecorder.Span dispatch(TSLEventContext ctx) {
+        if (!DISPATCH.isEnabled()) return TSLFlightRecorder.Span.NONE;
+        Dispatch event = new Dispatch();
+        event.ctx = ctx;
+        event.begin();
+        return event;
+    }
+
+    static TSLFlightRecorder.Span queueWait(TSLEventContext ctx) {
+        if (!QUEUE_WAIT.isEnabled()) return TSLFlightRecorder.Span.NONE;
+        QueueWait event = new QueueWait();
+        event.describe(ctx);
+        event.begin();
+        return event;
+    }
+
+    static TSLFlightRecorder.Span render(TSLEventContext ctx, String template) {
+        if (!RENDER.isEnabled()) return TSLFlightRecorder.Span.NONE;
+        Render event = new Render();
+        event.ctx = ctx;
+        event.template = template;
+        event.begin();
+        return event;
+    }
+
+    static TSLFlightRecorder.Span reflect(TSLEventContext ctx, int targets, boolean dispatched) {
+        if (!REFLECT.isEnabled()) return TSLFlightRecorder.Span.NONE;
+        Reflect event = new Reflect();
+        event.ctx = ctx;
+        event.targets = targets;
+        event.dispatched = dispatched;
+        event.begin();
+        return event;
+    }
+
+    static boolean test(TSLPredicate predicate, int predicateIndex, TSLRule rule, TSLEventContext ctx) {
+        if (!PREDICATE.isEnabled()) return predicate.test(rule, ctx);
+
+        Predicate event = new Predicate();
+        event.begin();
+        boolean passed = predicate.test(rule, ctx);
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.describe(ctx);
+            event.predicateIndex = predicateIndex;
+            event.field = predicate.getFieldName();
+            event.passed = passed;
+            event.commit();
+        }
+        return passed;
+    }
+
+    static boolean perform(TSLAction parent, TSLAction action, TSLEventContext ctx, boolean repeated, int iterations) throws TSLPerformingException {
+        if (!ACTION.isEnabled()) {
+            return repeated ? action.performRepeated(ctx, iterations) : action.perform(ctx);
+        }
+
+        Action event = new Action();
+        boolean performed = false;
+        event.begin();
+        try {
+            performed = repeated ? action.performRepeated(ctx, iterations) : action.perform(ctx);
+            return performed;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.describe(ctx);
+                event.action = nameOf(action);
+                event.parentAction = parent == null ? null : nameOf(parent);
+                event.iterations = iterations;
+                event.performed = performed;
+                event.commit();
+            }
+        }
+    }
+
+    static String nameOf(TSLAction action) {
+        Class<?> actionClass = action.getClass();
+        String name = actionClass.getSimpleName();
+        return name.isEmpty() ? actionClass.getName() : name;
+    }
+
+    @Category("TSL")
+    @StackTrace(false)
+    abstract static class ContextEvent extends jdk.jfr.Event {
+
+        @Label("Target")
+        String target;
+
+        @Label("Event Name")
+        String eventName;
+
+        @Label("Event Id")
+        long eventId;
+
+        @Label("Rule Index")
+        @Description("Index of the rule being performed, -1 outside of a rule")
+        int ruleIndex;
+
+        void describe(TSLEventContext ctx) {
+            this.target = ctx.getTarget();
+            this.eventName = ctx.getEventName();
+            this.eventId = ctx.getEventId();
+            this.ruleIndex = ctx.getPerformingRuleIndex();
+        }
+
+    }
+
+    @Name("tsl.Dispatch")
+    @Label("TSL Dispatch")
+    @Description("An event going through a ruleset, rule index is the rule it matched")
+    static class Dispatch extends ContextEvent implements TSLFlightRecorder.Span {
+
+        transient TSLEventContext ctx;
+
+        @Override
+        public void close() {
+            end();
+            if (shouldCommit()) {
+                describe(ctx);
+                ruleIndex = ctx.getMatchedRule();
+                commit();
+            }
+        }
+
+    }
+
+    @Name("tsl.Predicate")
+    @Label("TSL Predicate")
+    static class Predicate extends ContextEvent {
+
+        @Label("Predicate Index")
+        int predicateIndex;
+
+        @Label("Field")
+        String field;
+
+        @Label("Passed")
+        boolean passed;
+
+    }
+
+    @Name("tsl.Action")
+    @Label("TSL Action")
+    @Description("An action performed by a rule, composite actions nest their children inside")
+    static class Action extends ContextEvent {
+
+        @Label("Action")
+        String action;
+
+        @Label("Parent Action")
+        String parentAction;
+
+        @Label("Iterations")
+        int iterations;
+
+        @Label("Performed")
+        boolean performed;
+
+    }
+
+    @Name("tsl.Render")
+    @Label("TSL Template Rendering")
+    static class Render extends ContextEvent implements TSLFlightRecorder.Span {
+
+        transient TSLEventContext ctx;
+
+        @Label("Template")
+        String template;
+
+        @Override
+        public void close() {
+            end();
+            if (shouldCommit()) {
+                describe(ctx);
+                commit();
+            }
+        }
+
+    }
+
+    @Name("tsl.QueueWait")
+    @Label("TSL Executor Queue Wait")
+    @Description("Time from submitting an event to an executor until a thread picks it up")
+    static class QueueWait extends ContextEvent implements TSLFlightRecorder.Span {
+
+        @Override
+        public void close() {
+            end();
+            if (shouldCommit()) commit();
+        }
+
+    }
+
+    @Name("tsl.Reflect")
+    @Label("TSL Reflect Fan-out")
+    static class Reflect extends ContextEvent implements TSLFlightRecorder.Span {
+
+        transient TSLEventContext ctx;
+
+        @Label("Targets")
+        int targets;
+
+        @Label("Dispatched")
+        @Description("Queued to the reflection dispatcher rather than delivered inline")
+        boolean dispatched;
+
+        @Override
+        public void close() {
+            end();
+            if (shouldCommit()) {
+                describe(ctx);
+                commit();
+            }
+        }
+
+    }
+
+}
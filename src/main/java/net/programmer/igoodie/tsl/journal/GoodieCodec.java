@@ -0,0 +1,205 @@
+package net.programmer.igoodie.tsl.journal;
+
+import net.programmer.igoodie.goodies.runtime.GoodieArray;
+import net.programmer.igoodie.goodies.runtime.GoodieElement;
+import net.programmer.igoodie.goodies.runtime.GoodieObject;
+import net.programmer.igoodie.goodies.runtime.GoodiePrimitive;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+
+// Compact tagged binary form of event args, lengths are unsigned varints
+public final class GoodieCodec {
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte TRUE = 2;
+    private static final byte FALSE = 3;
+    private static final byte INT = 4;
+    private static final byte LONG = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte FLOAT = 7;
+    private static final byte CHAR = 8;
+    private static final byte BYTE = 9;
+    private static final byte SHORT = 10;
+    private static final byte OBJECT = 11;
+    private static final byte ARRAY = 12;
+
+    private GoodieCodec() {}
+
+    public static void writeObject(ByteBuffer buffer, GoodieObject object) {
+        writeVarInt(buffer, object.size());
+        for (Map.Entry<String, GoodieElement> entry : object.entrySet()) {
+            writeString(buffer, entry.getKey());
+            writeElement(buffer, entry.getValue());
+        }
+    }
+
+    public static GoodieObject readObject(ByteBuffer buffer) {
+        GoodieObject object = new GoodieObject();
+        int size = readVarInt(buffer);
+
+        for (int i = 0; i < size; i++) {
+            String key = readString(buffer);
+            byte tag = buffer.get();
+
+            switch (tag) {
+                case NULL: break; // Absent and null read the same
+                case STRING: object.put(key, readString(buffer)); break;
+                case TRUE: object.put(key, true); break;
+                case FALSE: object.put(key, false); break;
+                case INT: object.put(key, buffer.getInt()); break;
+                case LONG: object.put(key, buffer.getLong()); break;
+                case DOUBLE: object.put(key, buffer.getDouble()); break;
+                case FLOAT: object.put(key, buffer.getFloat()); break;
+                case CHAR: object.put(key, buffer.getChar()); break;
+                case BYTE: object.put(key, buffer.get()); break;
+                case SHORT: object.put(key, buffer.getShort()); break;
+                case OBJECT: object.put(key, readObject(buffer)); break;
+                case ARRAY: object.put(key, readArray(buffer)); break;
+                default: throw new IllegalStateException("Unknown element tag -> " + tag);
+            }
+        }
+
+        return object;
+    }
+
+    private static GoodieArray readArray(ByteBuffer buffer) {
+        Object[] values = new Object[readVarInt(buffer)];
+
+        for (int i = 0; i < values.length; i++) {
+            byte tag = buffer.get();
+
+            switch (tag) {
+                case NULL: values[i] = null; break;
+                case STRING: values[i] = readString(buffer); break;
+                case TRUE: values[i] = true; break;
+                case FALSE: values[i] = false; break;
+                case INT: values[i] = buffer.getInt(); break;
+                case LONG: values[i] = buffer.getLong(); break;
+                case DOUBLE: values[i] = buffer.getDouble(); break;
+                case FLOAT: values[i] = buffer.getFloat(); break;
+                case CHAR: values[i] = buffer.getChar(); break;
+                case BYTE: values[i] = buffer.get(); break;
+                case SHORT: values[i] = buffer.getShort(); break;
+                case OBJECT: values[i] = readObject(buffer); break;
+                case ARRAY: values[i] = readArray(buffer); break;
+                default: throw new IllegalStateException("Unknown element tag -> " + tag);
+            }
+        }
+
+        return GoodieElement.fromArray(values);
+    }
+
+    private static void writeElement(ByteBuffer buffer, GoodieElement element) {
+        if (element == null) {
+            buffer.put(NULL);
+
+        } else if (element instanceof GoodieObject) {
+            buffer.put(OBJECT);
+            writeObject(buffer, (GoodieObject) element);
+
+        } else if (element instanceof GoodieArray) {
+            GoodieArray array = (GoodieArray) element;
+            buffer.put(ARRAY);
+            writeVarInt(buffer, array.size());
+            Iterator<GoodieElement> iterator = array.stream().iterator();
+            while (iterator.hasNext()) {
+                writeElement(buffer, iterator.next());
+            }
+
+        } else {
+            writeValue(buffer, ((GoodiePrimitive) element).get());
+        }
+    }
+
+    private static void writeValue(ByteBuffer buffer, Object value) {
+        if (value == null) {
+            buffer.put(NULL);
+        } else if (value instanceof Boolean) {
+            buffer.put((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer) {
+            buffer.put(INT).putInt((Integer) value);
+        } else if (value instanceof Long) {
+            buffer.put(LONG).putLong((Long) value);
+        } else if (value instanceof Double) {
+            buffer.put(DOUBLE).putDouble((Double) value);
+        } else if (value instanceof Float) {
+            buffer.put(FLOAT).putFloat((Float) value);
+        } else if (value instanceof Character) {
+            buffer.put(CHAR).putChar((Character) value);
+        } else if (value instanceof Byte) {
+            buffer.put(BYTE).put((Byte) value);
+        } else if (value instanceof Short) {
+            buffer.put(SHORT).putShort((Short) value);
+        } else {
+            buffer.put(STRING);
+            writeString(buffer, value.toString());
+        }
+    }
+
+    // Null is encoded as length 0, every other string as length + 1
+    public static void writeNullableString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            writeVarInt(buffer, 0);
+            return;
+        }
+        writeBytes(buffer, value.getBytes(StandardCharsets.UTF_8), 1);
+    }
+
+    public static String readNullableString(ByteBuffer buffer) {
+        int length = readVarInt(buffer);
+        return length == 0 ? null : readUtf8(buffer, length - 1);
+    }
+
+    public static void writeString(ByteBuffer buffer, String value) {
+        writeBytes(buffer, value.getBytes(StandardCharsets.UTF_8), 0);
+    }
+
+    public static String readString(ByteBuffer buffer) {
+        return readUtf8(buffer, readVarInt(buffer));
+    }
+
+    private static void writeBytes(ByteBuffer buffer, byte[] bytes, int lengthOffset) {
+        writeVarInt(buffer, bytes.length + lengthOffset);
+        buffer.put(bytes);
+    }
+
+    private static String readUtf8(ByteBuffer buffer, int length) {
+        String value;
+
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.duplicate().get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    public static void writeVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+
+        throw new IllegalStateException("Malformed varint");
+    }
+
+}
@@ -0,0 +1,453 @@
+package net.programmer.igoodie.tsl.journal;
+
+import net.programmer.igoodie.goodies.runtime.GoodieObject;
+import net.programmer.igoodie.tsl.logging.TSLErrors;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+// Append-only binary journal over memory-mapped segment files.
+// Segment: [magic][version] then records of [payload length][crc32 of payload][payload].
+// A zero length marks the end of written data, END_OF_SEGMENT means continue in the next file.
+// Appenders claim space in the current segment with a CAS and write their records concurrently,
+// a segment is only sealed once every record claimed in it is written.
+public class TSLJournal implements AutoCloseable {
+
+    public static final int MAGIC = 0x54534C4A; // "TSLJ"
+    public static final int VERSION = 2; // 2 added the matched rule's signature
+    public static final int SEGMENT_HEADER_BYTES = 8;
+    public static final int RECORD_HEADER_BYTES = 8;
+    public static final int END_OF_SEGMENT = -1;
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+    public static final long DEFAULT_COMMIT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    protected final Path folder;
+    protected final int segmentBytes;
+    protected final long commitIntervalNanos;
+    protected final ThreadLocal<Encoder> encoders = ThreadLocal.withInitial(Encoder::new);
+
+    protected volatile Segment current;
+    protected volatile UncheckedIOException rollFailure;
+    protected final AtomicInteger appending = new AtomicInteger();
+    protected volatile boolean closed;
+
+    // Group commit, one force() covers every record written before it started
+    protected final Thread committer;
+    protected Segment commitSegment;
+    protected int commitPosition;
+    protected final CRC32 commitCrc = new CRC32();
+    protected volatile long durableSequence = -1;
+    protected boolean commitRequested;
+
+    public TSLJournal(Path folder) throws IOException {
+        this(folder, DEFAULT_SEGMENT_BYTES, DEFAULT_COMMIT_INTERVAL_NANOS);
+    }
+
+    public TSLJournal(Path folder, int segmentBytes, long commitIntervalNanos) throws IOException {
+        if (segmentBytes <= SEGMENT_HEADER_BYTES + RECORD_HEADER_BYTES)
+            throw new IllegalArgumentException("Segment is too small -> " + segmentBytes);
+
+        this.folder = folder;
+        this.segmentBytes = segmentBytes;
+        this.commitIntervalNanos = commitIntervalNanos;
+
+        Files.createDirectories(folder);
+        recover();
+
+        this.committer = new Thread(this::commitLoop, "TSLJournal-Committer-\"" + folder.getFileName() + "\"");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    public Path getFolder() {
+        return folder;
+    }
+
+    public long getNextSequence() {
+        while (true) {
+            Segment segment = current;
+            long state = segment.state.get();
+            if (state != Segment.SEALED) return segment.firstSequence + Segment.recordsOf(state);
+            awaitRoll(segment);
+        }
+    }
+
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    public long append(TSLEventContext ctx, String matchedRuleSignature) {
+        return append(System.currentTimeMillis(), ctx.getEventId(), ctx.getTarget(), ctx.getEventName(), ctx.getMatchedRule(), matchedRuleSignature, ctx.getEventArgs());
+    }
+
+    public long append(long timestamp, long eventId, String target, String eventName, int matchedRule, GoodieObject eventArgs) {
+        return append(timestamp, eventId, target, eventName, matchedRule, null, eventArgs);
+    }
+
+    public long append(long timestamp, long eventId, String target, String eventName, int matchedRule, String matchedRuleSignature, GoodieObject eventArgs) {
+        appending.incrementAndGet();
+        try {
+            if (closed)
+                throw new IllegalStateException("Journal is already closed.");
+
+            Encoder encoder = encoders.get();
+            int length = encoder.encode(timestamp, eventId, target, eventName, matchedRule, matchedRuleSignature, eventArgs);
+
+            if (RECORD_HEADER_BYTES + length > segmentBytes - SEGMENT_HEADER_BYTES - 4)
+                throw new IllegalArgumentException("Record doesn't fit in a segment -> " + length + " bytes");
+
+            while (true) {
+                Segment segment = current;
+                long state = segment.state.get();
+
+                if (state == Segment.SEALED) {
+                    awaitRoll(segment);
+                    continue;
+                }
+
+                int records = Segment.recordsOf(state);
+                int position = Segment.positionOf(state);
+                int end = position + RECORD_HEADER_BYTES + length;
+
+                // Leave room for an END_OF_SEGMENT marker behind every record
+                if (end + 4 > segment.buffer.capacity()) {
+                    if (segment.state.compareAndSet(state, Segment.SEALED)) {
+                        rollSegment(segment, position, segment.firstSequence + records);
+                    }
+                    continue;
+                }
+
+                if (segment.state.compareAndSet(state, Segment.state(records + 1, end))) {
+                    long sequence = segment.firstSequence + records;
+                    encoder.write(segment, position, sequence);
+                    return sequence;
+                }
+            }
+        } finally {
+            appending.decrementAndGet();
+        }
+    }
+
+    // Blocks until the given record is forced to disk, sharing the force with other waiters
+    public synchronized boolean awaitDurable(long sequence, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        while (durableSequence < sequence) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || closed) return durableSequence >= sequence;
+            commitRequested = true;
+            this.notifyAll();
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            this.notifyAll();
+        }
+
+        // Appends that got past the closed check still finish their records
+        while (appending.get() > 0) {
+            Thread.yield();
+        }
+
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            commit();
+            commitSegment.buffer.force();
+            commitSegment.channel.close();
+            this.notifyAll();
+        }
+    }
+
+    protected void commitLoop() {
+        while (true) {
+            synchronized (this) {
+                long deadline = System.nanoTime() + commitIntervalNanos;
+
+                while (!closed && !commitRequested) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+
+                if (closed) return;
+                commitRequested = false;
+            }
+
+            try {
+                commit();
+            } catch (IOException e) {
+                TSLErrors.report("Could not commit the journal in " + folder, e);
+            }
+        }
+    }
+
+    // Forces the records written without gaps since the last commit. A record still being
+    // written stops the scan, it and everything behind it go with a later commit.
+    protected void commit() throws IOException {
+        long last = -1;
+
+        while (true) {
+            MappedByteBuffer buffer = commitSegment.buffer;
+            int length = buffer.getInt(commitPosition);
+
+            if (length == END_OF_SEGMENT) {
+                Segment next = commitSegment.next;
+                if (next == null) break; // Still being opened
+                buffer.force();
+                commitSegment.channel.close();
+                commitSegment = next;
+                commitPosition = SEGMENT_HEADER_BYTES;
+                continue;
+            }
+
+            if (length <= 0 || !TSLJournalReader.checksumMatches(buffer, commitPosition, length, commitCrc)) break;
+
+            last = buffer.getLong(commitPosition + RECORD_HEADER_BYTES);
+            commitPosition += RECORD_HEADER_BYTES + length;
+        }
+
+        if (last == -1) return;
+        commitSegment.buffer.force();
+
+        synchronized (this) {
+            if (last > durableSequence) durableSequence = last;
+            this.notifyAll();
+        }
+    }
+
+    // Only the appender that sealed the segment gets here. Readers move on once they see
+    // END_OF_SEGMENT, so the records claimed before it have to be complete by then.
+    protected void rollSegment(Segment sealed, int position, long nextSequence) {
+        awaitWritten(sealed, position);
+        sealed.buffer.putInt(position, END_OF_SEGMENT);
+
+        try {
+            Segment next = openSegment(nextSequence);
+            sealed.next = next;
+            current = next;
+        } catch (IOException e) {
+            rollFailure = new UncheckedIOException(e);
+            throw rollFailure;
+        }
+    }
+
+    protected void awaitRoll(Segment sealed) {
+        while (current == sealed) {
+            UncheckedIOException failure = rollFailure;
+            if (failure != null) throw failure;
+            Thread.yield();
+        }
+    }
+
+    protected static void awaitWritten(Segment segment, int end) {
+        int position = SEGMENT_HEADER_BYTES;
+        while (position < end) {
+            int length = segment.buffer.getInt(position);
+            if (length <= 0) {
+                Thread.yield();
+                continue;
+            }
+            position += RECORD_HEADER_BYTES + length;
+        }
+    }
+
+    protected Segment openSegment(long firstSequence) throws IOException {
+        Path path = folder.resolve(segmentName(firstSequence));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        buffer.putInt(0, MAGIC).putInt(4, VERSION);
+        return new Segment(firstSequence, channel, buffer, SEGMENT_HEADER_BYTES, 0);
+    }
+
+    // Continues the last segment after its last valid record, or starts a fresh one
+    protected void recover() throws IOException {
+        List<Path> segments = TSLJournalReader.listSegments(folder);
+
+        if (segments.isEmpty()) {
+            startAt(openSegment(0), SEGMENT_HEADER_BYTES);
+            return;
+        }
+
+        Path last = segments.get(segments.size() - 1);
+        long firstSequence = TSLJournalReader.firstSequenceOf(last);
+        FileChannel channel = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+
+        // Crashed between creating the segment and writing its header, nothing was written to it
+        if (buffer.capacity() < SEGMENT_HEADER_BYTES || buffer.getInt(0) == 0) {
+            channel.close();
+            Files.delete(last);
+            startAt(openSegment(firstSequence), SEGMENT_HEADER_BYTES);
+            return;
+        }
+
+        if (buffer.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException("Not a journal segment -> " + last);
+        }
+
+        int version = buffer.getInt(4);
+        if (version > VERSION) {
+            channel.close();
+            throw new IOException("Unsupported journal version " + version + " -> " + last);
+        }
+
+        long nextSequence = firstSequence;
+        int position = SEGMENT_HEADER_BYTES;
+        CRC32 check = new CRC32();
+
+        while (position + 4 <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+
+            if (length == END_OF_SEGMENT) {
+                channel.close();
+                startAt(openSegment(nextSequence), SEGMENT_HEADER_BYTES);
+                return;
+            }
+
+            if (length <= 0 || position + RECORD_HEADER_BYTES + length > buffer.capacity()) break;
+            if (!TSLJournalReader.checksumMatches(buffer, position, length, check)) break;
+
+            nextSequence = buffer.getLong(position + RECORD_HEADER_BYTES) + 1;
+            position += RECORD_HEADER_BYTES + length;
+        }
+
+        // Wipe a torn tail, so stale bytes can't be mistaken for records later
+        for (int i = position; i < buffer.capacity(); i++) {
+            buffer.put(i, (byte) 0);
+        }
+
+        // Older records are laid out differently, new ones go to a segment of the current version
+        if (version < VERSION) {
+            buffer.putInt(position, END_OF_SEGMENT);
+            buffer.force();
+            channel.close();
+            startAt(openSegment(nextSequence), SEGMENT_HEADER_BYTES);
+            durableSequence = nextSequence - 1;
+            return;
+        }
+
+        startAt(new Segment(firstSequence, channel, buffer, position, (int) (nextSequence - firstSequence)), position);
+        durableSequence = nextSequence - 1;
+    }
+
+    protected void startAt(Segment segment, int position) {
+        current = commitSegment = segment;
+        commitPosition = position;
+    }
+
+    public static String segmentName(long firstSequence) {
+        return String.format("%020d.tslj", firstSequence);
+    }
+
+    protected static class Segment {
+
+        public static final long SEALED = -1;
+
+        protected final long firstSequence;
+        protected final FileChannel channel;
+        protected final MappedByteBuffer buffer;
+        // Records claimed in the high half and the next free position in the low half, SEALED once full
+        protected final AtomicLong state;
+        protected volatile Segment next;
+
+        public Segment(long firstSequence, FileChannel channel, MappedByteBuffer buffer, int position, int records) {
+            this.firstSequence = firstSequence;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.state = new AtomicLong(state(records, position));
+        }
+
+        public static long state(int records, int position) {
+            return (long) records << 32 | position;
+        }
+
+        public static int recordsOf(long state) {
+            return (int) (state >>> 32);
+        }
+
+        public static int positionOf(long state) {
+            return (int) state;
+        }
+
+    }
+
+    // Per appending thread, so records are encoded and checksummed before any space is claimed
+    protected static class Encoder {
+
+        protected final CRC32 crc = new CRC32();
+        protected ByteBuffer scratch = ByteBuffer.allocate(1024);
+        protected Segment segment;
+        protected ByteBuffer view;
+
+        // Sequence is left zero, it is only known once the space is claimed
+        public int encode(long timestamp, long eventId, String target, String eventName, int matchedRule, String matchedRuleSignature, GoodieObject eventArgs) {
+            while (true) {
+                try {
+                    scratch.clear();
+                    scratch.putLong(0);
+                    scratch.putLong(timestamp);
+                    scratch.putLong(eventId);
+                    scratch.putInt(matchedRule);
+                    GoodieCodec.writeNullableString(scratch, target);
+                    GoodieCodec.writeNullableString(scratch, eventName);
+                    GoodieCodec.writeNullableString(scratch, matchedRuleSignature);
+                    GoodieCodec.writeObject(scratch, eventArgs);
+                    scratch.flip();
+                    return scratch.remaining();
+                } catch (BufferOverflowException e) {
+                    scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+                }
+            }
+        }
+
+        public void write(Segment segment, int position, long sequence) {
+            int length = scratch.remaining();
+            scratch.putLong(0, sequence);
+
+            crc.reset();
+            crc.update(scratch.array(), 0, length);
+
+            if (this.segment != segment) {
+                this.segment = segment;
+                this.view = segment.buffer.duplicate();
+            }
+
+            view.putInt(position + 4, (int) crc.getValue());
+            view.position(position + RECORD_HEADER_BYTES);
+            view.put(scratch);
+            view.putInt(position, length); // Length goes last, readers treat 0 as "not written yet"
+        }
+
+    }
+
+}
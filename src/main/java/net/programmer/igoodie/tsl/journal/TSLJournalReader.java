@@ -0,0 +1,185 @@
+package net.programmer.igoodie.tsl.journal;
+
+import net.programmer.igoodie.goodies.runtime.GoodieObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Reads journal records in order, and keeps tailing the live segment.
+// next() returns null whenever no complete record is available yet.
+public class TSLJournalReader implements AutoCloseable {
+
+    protected final Path folder;
+    protected final CRC32 crc = new CRC32();
+
+    protected long nextSequence;
+    protected Path segmentPath;
+    protected Path finishedPath;
+    protected FileChannel segmentChannel;
+    protected MappedByteBuffer segment;
+    protected int segmentVersion;
+    protected int position;
+
+    public TSLJournalReader(Path folder) {
+        this.folder = folder;
+    }
+
+    public TSLJournalRecord next() throws IOException {
+        while (true) {
+            if (segment == null && !openNextSegment()) return null;
+
+            // Records leave room for a 4 byte END_OF_SEGMENT behind them, a full header may not fit
+            if (position + 4 > segment.capacity()) return null;
+            int length = segment.getInt(position);
+
+            if (length == TSLJournal.END_OF_SEGMENT) {
+                finishedPath = segmentPath;
+                closeSegment();
+                continue;
+            }
+
+            // Either nothing written yet, or the writer is mid-record
+            if (length <= 0 || position + TSLJournal.RECORD_HEADER_BYTES + length > segment.capacity()) return null;
+
+            if (!checksumMatches(segment, position, length, crc)) {
+                // Segments are only sealed once all of their records are written
+                if (isSealed()) throw new IOException("Corrupted journal record at " + position + " -> " + segmentPath);
+                return null;
+            }
+
+            ByteBuffer payload = segment.duplicate();
+            payload.position(position + TSLJournal.RECORD_HEADER_BYTES);
+            payload.limit(position + TSLJournal.RECORD_HEADER_BYTES + length);
+            position += TSLJournal.RECORD_HEADER_BYTES + length;
+
+            TSLJournalRecord record = decode(payload, segmentVersion);
+            nextSequence = record.getSequence() + 1;
+            return record;
+        }
+    }
+
+    public List<TSLJournalRecord> readAll() throws IOException {
+        List<TSLJournalRecord> records = new ArrayList<>();
+        TSLJournalRecord record;
+        while ((record = next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+    }
+
+    protected boolean openNextSegment() throws IOException {
+        Path path = null;
+
+        for (Path candidate : listSegments(folder)) {
+            if (firstSequenceOf(candidate) > nextSequence) break;
+            path = candidate;
+        }
+
+        // The writer sealed a segment but didn't create the next one yet
+        if (path == null || path.equals(finishedPath)) return false;
+
+        segmentPath = path;
+        segmentChannel = FileChannel.open(path, StandardOpenOption.READ);
+        segment = segmentChannel.map(FileChannel.MapMode.READ_ONLY, 0, segmentChannel.size());
+
+        // The writer may have just created the file, the header shows up once it is mapped
+        if (segment.capacity() < TSLJournal.SEGMENT_HEADER_BYTES || segment.getInt(0) == 0) {
+            closeSegment();
+            return false;
+        }
+
+        if (segment.getInt(0) != TSLJournal.MAGIC) {
+            closeSegment();
+            throw new IOException("Not a journal segment -> " + path);
+        }
+
+        segmentVersion = segment.getInt(4);
+        if (segmentVersion > TSLJournal.VERSION) {
+            closeSegment();
+            throw new IOException("Unsupported journal version " + segmentVersion + " -> " + path);
+        }
+
+        // Skip records before the wanted sequence when starting mid-segment
+        position = TSLJournal.SEGMENT_HEADER_BYTES;
+        long wanted = nextSequence;
+        nextSequence = firstSequenceOf(path);
+        while (nextSequence < wanted) {
+            int length = segment.getInt(position);
+            if (length <= 0) break;
+            position += TSLJournal.RECORD_HEADER_BYTES + length;
+            nextSequence++;
+        }
+
+        return true;
+    }
+
+    // A later segment exists, so the writer is done with this one
+    protected boolean isSealed() throws IOException {
+        List<Path> segments = listSegments(folder);
+        return !segments.get(segments.size() - 1).equals(segmentPath);
+    }
+
+    protected void closeSegment() throws IOException {
+        if (segmentChannel != null) segmentChannel.close();
+        segmentChannel = null;
+        segment = null;
+    }
+
+    protected static TSLJournalRecord decode(ByteBuffer payload, int version) {
+        long sequence = payload.getLong();
+        long timestamp = payload.getLong();
+        long eventId = payload.getLong();
+        int matchedRule = payload.getInt();
+        String target = GoodieCodec.readNullableString(payload);
+        String eventName = GoodieCodec.readNullableString(payload);
+        String matchedRuleSignature = version >= 2 ? GoodieCodec.readNullableString(payload) : null;
+        GoodieObject eventArgs = GoodieCodec.readObject(payload);
+        return new TSLJournalRecord(sequence, timestamp, eventId, target, eventName, matchedRule, matchedRuleSignature, eventArgs);
+    }
+
+    static boolean checksumMatches(ByteBuffer segment, int position, int length, CRC32 crc) {
+        ByteBuffer payload = segment.duplicate();
+        payload.position(position + TSLJournal.RECORD_HEADER_BYTES);
+        payload.limit(position + TSLJournal.RECORD_HEADER_BYTES + length);
+
+        crc.reset();
+        crc.update(payload);
+        return (int) crc.getValue() == segment.getInt(position + 4);
+    }
+
+    public static List<Path> listSegments(Path folder) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(folder)) return segments;
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, "*.tslj")) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+
+        // Names are zero-padded, so lexical order is sequence order
+        Collections.sort(segments);
+        return segments;
+    }
+
+    public static long firstSequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - ".tslj".length()));
+    }
+
+}
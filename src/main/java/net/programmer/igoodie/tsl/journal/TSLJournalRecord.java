@@ -0,0 +1,73 @@
+package net.programmer.igoodie.tsl.journal;
+
+import net.programmer.igoodie.goodies.runtime.GoodieObject;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+
+public class TSLJournalRecord {
+
+    public static final int NO_MATCHED_RULE = TSLEventContext.NO_MATCHED_RULE;
+
+    protected final long sequence;
+    protected final long timestamp;
+    protected final long eventId;
+    protected final String target;
+    protected final String eventName;
+    protected final int matchedRule;
+    protected final String matchedRuleSignature;
+    protected final GoodieObject eventArgs;
+
+    public TSLJournalRecord(long sequence, long timestamp, long eventId, String target, String eventName, int matchedRule, GoodieObject eventArgs) {
+        this(sequence, timestamp, eventId, target, eventName, matchedRule, null, eventArgs);
+    }
+
+    public TSLJournalRecord(long sequence, long timestamp, long eventId, String target, String eventName, int matchedRule, String matchedRuleSignature, GoodieObject eventArgs) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.eventId = eventId;
+        this.target = target;
+        this.eventName = eventName;
+        this.matchedRule = matchedRule;
+        this.matchedRuleSignature = matchedRuleSignature;
+        this.eventArgs = eventArgs;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getEventId() {
+        return eventId;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public String getEventName() {
+        return eventName;
+    }
+
+    // Index of the rule that performed the event in its ruleset, or NO_MATCHED_RULE
+    public int getMatchedRule() {
+        return matchedRule;
+    }
+
+    // Signature of the rule that performed the event, null if none matched or it wasn't recorded
+    public String getMatchedRuleSignature() {
+        return matchedRuleSignature;
+    }
+
+    public GoodieObject getEventArgs() {
+        return eventArgs;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + eventName + " -> " + target + " rule=" + matchedRule + (matchedRuleSignature == null ? "" : " (" + matchedRuleSignature + ")") + " " + eventArgs;
+    }
+
+}
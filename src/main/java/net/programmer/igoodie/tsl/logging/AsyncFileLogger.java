@@ -0,0 +1,312 @@
+package net.programmer.igoodie.tsl.logging;
+
+import net.programmer.igoodie.tsl.util.LogFormatter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Producers only claim a preallocated slot and store the raw arguments.
+// A single writer thread formats claimed slots in order and writes them in batches.
+// Arguments are formatted later, so they must not be mutated after logging.
+// Messages logged from the writer thread itself (e.g. an error handler pointing back here) are dropped.
+public class AsyncFileLogger extends TSLLogger implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    protected static final int MAX_BATCH = 512;
+
+    protected final Path path;
+    protected final RollingPolicy rollingPolicy;
+    protected final LogArchiver archiver;
+    protected final Slot[] slots;
+    protected final int mask;
+    protected final AtomicLong claimed = new AtomicLong();
+    protected final Thread writer;
+
+    // Owned by the writer thread
+    protected FileChannel channel;
+    protected long fileBytes;
+    protected LocalDate openedOn;
+
+    protected volatile long written;
+    protected volatile boolean writerParked;
+    protected volatile boolean closed;
+
+    public AsyncFileLogger(Path path) throws IOException {
+        this(path, DEFAULT_CAPACITY);
+    }
+
+    public AsyncFileLogger(Path path, int capacity) throws IOException {
+        this(path, capacity, new RollingPolicy());
+    }
+
+    public AsyncFileLogger(Path path, int capacity, RollingPolicy rollingPolicy) throws IOException {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Expected a power of two capacity, found -> " + capacity);
+
+        this.path = path;
+        this.rollingPolicy = rollingPolicy;
+        this.archiver = rollingPolicy.isRolling() ? new LogArchiver(path, rollingPolicy) : null;
+        this.slots = new Slot[capacity];
+        this.mask = capacity - 1;
+
+        for (int i = 0; i < capacity; i++) {
+            this.slots[i] = new Slot(i);
+        }
+
+        openChannel();
+        if (fileBytes > 0) {
+            // Continuing an existing file, it belongs to the day it was last written
+            this.openedOn = Instant.ofEpochMilli(Files.getLastModifiedTime(path).toMillis())
+                    .atZone(ZoneId.systemDefault()).toLocalDate();
+        }
+
+        this.writer = new Thread(this::writerLoop, "AsyncFileLogger-\"" + path.getFileName() + "\"");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public RollingPolicy getRollingPolicy() {
+        return rollingPolicy;
+    }
+
+    public LogArchiver getArchiver() {
+        return archiver;
+    }
+
+    @Override
+    public void info(String msg, Object... args) {
+        log(LogLevel.INFO, msg, args);
+    }
+
+    @Override
+    public void warn(String msg, Object... args) {
+        log(LogLevel.WARN, msg, args);
+    }
+
+    @Override
+    public void error(String msg, Object... args) {
+        log(LogLevel.ERROR, msg, args);
+    }
+
+    @Override
+    public void debug(String msg, Object... args) {
+        log(LogLevel.DEBUG, msg, args);
+    }
+
+    @Override
+    public void trace(String msg, Object... args) {
+        log(LogLevel.TRACE, msg, args);
+    }
+
+    public void log(LogLevel level, String msg, Object... args) {
+        if (!isEnabled(level) || closed || Thread.currentThread() == writer) return;
+
+        long sequence = claimed.getAndIncrement();
+        Slot slot = slots[(int) (sequence & mask)];
+
+        // Ring is full, wait for the writer to free this slot
+        while (slot.sequence != sequence) {
+            if (!writer.isAlive()) return; // Claimed after the writer's last look or it died, nobody waits for it
+            LockSupport.parkNanos(1_000);
+        }
+
+        // Closed while claiming. The writer may be waiting on this slot, so it still gets published, empty
+        boolean dropped = closed;
+
+        slot.timestamp = System.currentTimeMillis();
+        slot.message = dropped ? null : msg;
+        slot.args = dropped ? null : args;
+        slot.sequence = sequence + 1; // Publish
+
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    // Waits until everything logged before this call is written
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        long target = claimed.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        while (written < target) {
+            if (System.nanoTime() - deadline >= 0 || !writer.isAlive()) return false;
+            LockSupport.unpark(writer);
+            Thread.sleep(1);
+        }
+
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        channel.close();
+
+        if (archiver != null) {
+            try {
+                archiver.shutdown(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    protected void openChannel() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileBytes = channel.size();
+        openedOn = rollingPolicy.today();
+    }
+
+    // Runs on the writer thread between batches, so a file may overshoot its size by one batch
+    protected void rollIfNeeded() {
+        if (archiver == null || !rollingPolicy.shouldRoll(fileBytes, openedOn)) return;
+
+        try {
+            LocalDate rolledDay = rollingPolicy.isDaily() ? openedOn : rollingPolicy.today();
+            Path rolledPath = archiver.nextRolledPath(rolledDay);
+
+            channel.close();
+            Files.move(path, rolledPath, StandardCopyOption.ATOMIC_MOVE);
+            openChannel();
+
+            archiver.archive(rolledPath);
+        } catch (IOException e) {
+            TSLErrors.report("Could not roll " + path, e);
+            try {
+                if (!channel.isOpen()) openChannel();
+            } catch (IOException reopenError) {
+                TSLErrors.report("Could not reopen " + path, reopenError);
+            }
+        }
+    }
+
+    protected void writerLoop() {
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        StringBuilder batch = new StringBuilder(MAX_BATCH * 64);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        long next = 0;
+        int idleSpins = 0;
+
+        while (true) {
+            int drained = 0;
+
+            while (drained < MAX_BATCH) {
+                Slot slot = slots[(int) (next & mask)];
+                if (slot.sequence != next + 1) break;
+
+                if (slot.message != null) {
+                    int lineStart = batch.length();
+                    try {
+                        batch.append('[').append(slot.timestamp).append("] ");
+                        LogFormatter.formatTo(batch, slot.message, slot.args).append('\n');
+                    } catch (Throwable e) {
+                        // An argument's toString threw, keep the line and the writer instead
+                        batch.setLength(lineStart);
+                        batch.append('[').append(slot.timestamp).append("] Could not format -> ")
+                                .append(slot.message).append(" (").append(e.getClass().getName()).append(")\n");
+                    }
+                }
+
+                slot.message = null;
+                slot.args = null;
+                slot.sequence = next + slots.length; // Free for the next lap
+                next++;
+                drained++;
+            }
+
+            if (batch.length() > 0) {
+                rollIfNeeded();
+                write(encoder, batch, buffer);
+                batch.setLength(0);
+            }
+
+            if (drained > 0) {
+                written = next;
+                idleSpins = 0;
+                continue;
+            }
+
+            // A claim seen here gets published even if it raced with closing.
+            // Claims made after this read see the flag and drop their message
+            if (closed && next == claimed.get()) return;
+
+            // Spin briefly, then park until a producer wakes us up
+            if (++idleSpins < 100) {
+                Thread.yield();
+                continue;
+            }
+
+            writerParked = true;
+            if (slots[(int) (next & mask)].sequence != next + 1 && !closed) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(10));
+            }
+            writerParked = false;
+        }
+    }
+
+    protected void write(CharsetEncoder encoder, CharSequence batch, ByteBuffer buffer) {
+        CharBuffer chars = CharBuffer.wrap(batch);
+        encoder.reset();
+
+        try {
+            while (true) {
+                CoderResult result = chars.hasRemaining()
+                        ? encoder.encode(chars, buffer, true)
+                        : encoder.flush(buffer);
+
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    fileBytes += channel.write(buffer);
+                }
+                buffer.clear();
+
+                if (!chars.hasRemaining() && result.isUnderflow()) return;
+            }
+        } catch (IOException e) {
+            TSLErrors.report("Could not write to " + path, e);
+        }
+    }
+
+    protected static class Slot {
+
+        protected volatile long sequence;
+        protected long timestamp;
+        protected String message;
+        protected Object[] args;
+
+        public Slot(long sequence) {
+            this.sequence = sequence;
+        }
+
+    }
+
+}
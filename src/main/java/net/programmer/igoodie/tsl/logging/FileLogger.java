@@ -4,8 +4,10 @@ import net.programmer.igoodie.tsl.util.LogFormatter;
 
 import java.io.File;
 import java.io.IOException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Date;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
@@ -17,7 +19,7 @@ import java.util.regex.Pattern;
 public class FileLogger extends TSLLogger {
 
 
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
     private static final Pattern DATE_PATTERN = Pattern.compile("(.+?)\\.log");
 
     protected Logger logger;
@@ -37,26 +39,31 @@ public class FileLogger extends TSLLogger {
 
     @Override
     public void info(String msg, Object... args) {
+        if (!isEnabled(LogLevel.INFO)) return;
         logger.info(LogFormatter.format(msg, args));
     }
 
     @Override
     public void warn(String msg, Object... args) {
+        if (!isEnabled(LogLevel.WARN)) return;
         logger.warning(LogFormatter.format(msg, args));
     }
 
     @Override
     public void error(String msg, Object... args) {
+        if (!isEnabled(LogLevel.ERROR)) return;
         logger.log(Level.SEVERE, LogFormatter.format(msg, args));
     }
 
     @Override
     public void debug(String msg, Object... args) {
+        if (!isEnabled(LogLevel.DEBUG)) return;
         logger.log(Level.FINER, LogFormatter.format(msg, args));
     }
 
     @Override
     public void trace(String msg, Object... args) {
+        if (!isEnabled(LogLevel.TRACE)) return;
         logger.log(Level.FINEST, LogFormatter.format(msg, args));
     }
 
@@ -75,7 +82,7 @@ public class FileLogger extends TSLLogger {
         for (File childFile : childrenFiles) {
             if (childFile.isDirectory()) {
                 clearHistoricalLogs(childFile, maxDays);
-                return;
+                continue;
             }
 
             Date logDate = parseDate(childFile.getName());
@@ -97,9 +104,10 @@ public class FileLogger extends TSLLogger {
 
         try {
             String dateName = matcher.group(1);
-            return DATE_FORMAT.parse(dateName);
+            LocalDate date = LocalDate.parse(dateName, DATE_FORMAT);
+            return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
 
-        } catch (ParseException e) {
+        } catch (DateTimeParseException e) {
             return null;
         }
     }
@@ -0,0 +1,177 @@
+package net.programmer.igoodie.tsl.logging;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+// Names rolled files as <base>.<date>.<index><ext>[.gz], then compresses them
+// and enforces retention on its own thread, away from the logging path.
+public class LogArchiver {
+
+    protected final Path folder;
+    protected final String baseName;
+    protected final String extension;
+    protected final RollingPolicy policy;
+    protected final Pattern rolledPattern;
+    protected final ExecutorService executor;
+
+    public LogArchiver(Path activeFile, RollingPolicy policy) {
+        String fileName = activeFile.getFileName().toString();
+        int extensionIndex = fileName.lastIndexOf('.');
+
+        this.folder = activeFile.toAbsolutePath().getParent();
+        this.baseName = extensionIndex <= 0 ? fileName : fileName.substring(0, extensionIndex);
+        this.extension = extensionIndex <= 0 ? "" : fileName.substring(extensionIndex);
+        this.policy = policy;
+        this.rolledPattern = Pattern.compile(Pattern.quote(baseName)
+                + "\\.(\\d{4}-\\d{2}-\\d{2})\\.(\\d+)" + Pattern.quote(extension) + "(\\.gz)?");
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "LogArchiver-\"" + fileName + "\"");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public Path nextRolledPath(LocalDate date) throws IOException {
+        int index = 0;
+
+        for (RolledFile rolledFile : listRolledFiles(false)) {
+            if (rolledFile.date.equals(date)) {
+                index = Math.max(index, rolledFile.index + 1);
+            }
+        }
+
+        return folder.resolve(baseName + "." + date + "." + index + extension);
+    }
+
+    public Future<?> archive(Path rolledPath) {
+        return executor.submit(() -> {
+            try {
+                if (policy.isCompress()) compress(rolledPath);
+                enforceRetention();
+            } catch (IOException e) {
+                TSLErrors.report("Could not archive " + rolledPath, e);
+            }
+        });
+    }
+
+    protected Path compress(Path path) throws IOException {
+        Path compressed = path.resolveSibling(path.getFileName() + ".gz");
+
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed), 64 * 1024)) {
+            Files.copy(path, out);
+        }
+
+        Files.delete(path);
+        return compressed;
+    }
+
+    // Keeps the newest rolled files, within both the count and the total size limit
+    public void enforceRetention() throws IOException {
+        List<RolledFile> rolledFiles = listRolledFiles();
+        rolledFiles.sort(Comparator.<RolledFile, LocalDate>comparing(f -> f.date)
+                .thenComparingInt(f -> f.index)
+                .reversed());
+
+        long totalBytes = 0;
+
+        for (int i = 0; i < rolledFiles.size(); i++) {
+            RolledFile rolledFile = rolledFiles.get(i);
+            totalBytes += rolledFile.size;
+
+            boolean overCount = policy.getMaxHistory() > 0 && i >= policy.getMaxHistory();
+            boolean overSize = policy.getMaxTotalBytes() > 0 && totalBytes > policy.getMaxTotalBytes();
+
+            if (overCount || overSize) {
+                Files.deleteIfExists(rolledFile.path);
+            }
+        }
+    }
+
+    public List<RolledFile> listRolledFiles() throws IOException {
+        return listRolledFiles(true);
+    }
+
+    // Files may vanish while listing (compressed or deleted by retention), those are left out.
+    // Without sizes every size is UNKNOWN_SIZE, saving a stat per file.
+    protected List<RolledFile> listRolledFiles(boolean withSizes) throws IOException {
+        List<RolledFile> rolledFiles = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, baseName + ".*")) {
+            for (Path path : stream) {
+                Matcher matcher = rolledPattern.matcher(path.getFileName().toString());
+                if (!matcher.matches()) continue;
+
+                long size = RolledFile.UNKNOWN_SIZE;
+                if (withSizes) {
+                    try {
+                        size = Files.size(path);
+                    } catch (NoSuchFileException e) {
+                        continue;
+                    }
+                }
+
+                rolledFiles.add(new RolledFile(path,
+                        LocalDate.parse(matcher.group(1)),
+                        Integer.parseInt(matcher.group(2)),
+                        size));
+            }
+        }
+
+        return rolledFiles;
+    }
+
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        executor.shutdown();
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    public static class RolledFile {
+
+        public static final long UNKNOWN_SIZE = -1;
+
+        protected final Path path;
+        protected final LocalDate date;
+        protected final int index;
+        protected final long size;
+
+        public RolledFile(Path path, LocalDate date, int index, long size) {
+            this.path = path;
+            this.date = date;
+            this.index = index;
+            this.size = size;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+    }
+
+}
@@ -0,0 +1,87 @@
+package net.programmer.igoodie.tsl.logging;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+// When to roll the active log file, and how many rolled files to keep.
+// Zero disables a limit.
+public class RollingPolicy {
+
+    protected long maxFileBytes;
+    protected boolean daily;
+    protected boolean compress;
+    protected int maxHistory;
+    protected long maxTotalBytes;
+    protected Clock clock = Clock.systemDefaultZone();
+
+    public RollingPolicy setMaxFileBytes(long maxFileBytes) {
+        if (maxFileBytes < 0)
+            throw new IllegalArgumentException("Expected a non-negative size, found -> " + maxFileBytes);
+        this.maxFileBytes = maxFileBytes;
+        return this;
+    }
+
+    public RollingPolicy setDaily(boolean daily) {
+        this.daily = daily;
+        return this;
+    }
+
+    public RollingPolicy setCompress(boolean compress) {
+        this.compress = compress;
+        return this;
+    }
+
+    public RollingPolicy setMaxHistory(int maxHistory) {
+        if (maxHistory < 0)
+            throw new IllegalArgumentException("Expected a non-negative file count, found -> " + maxHistory);
+        this.maxHistory = maxHistory;
+        return this;
+    }
+
+    public RollingPolicy setMaxTotalBytes(long maxTotalBytes) {
+        if (maxTotalBytes < 0)
+            throw new IllegalArgumentException("Expected a non-negative size, found -> " + maxTotalBytes);
+        this.maxTotalBytes = maxTotalBytes;
+        return this;
+    }
+
+    public RollingPolicy setClock(Clock clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    public long getMaxFileBytes() {
+        return maxFileBytes;
+    }
+
+    public boolean isDaily() {
+        return daily;
+    }
+
+    public boolean isCompress() {
+        return compress;
+    }
+
+    public int getMaxHistory() {
+        return maxHistory;
+    }
+
+    public long getMaxTotalBytes() {
+        return maxTotalBytes;
+    }
+
+    public boolean isRolling() {
+        return maxFileBytes > 0 || daily;
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    public boolean shouldRoll(long fileBytes, LocalDate openedOn) {
+        if (fileBytes == 0) return false;
+        if (maxFileBytes > 0 && fileBytes >= maxFileBytes) return true;
+        return daily && !openedOn.equals(today());
+    }
+
+}
@@ -0,0 +1,48 @@
+package net.programmer.igoodie.tsl.logging;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Where background threads (schedulers, dispatchers, loggers, the journal) report errors
+// they can't throw to anyone. Goes to java.util.logging unless a handler is set.
+public final class TSLErrors {
+
+    public static final Handler DEFAULT_HANDLER = (message, error) ->
+            Logger.getLogger("TSL").log(Level.SEVERE, message, error);
+
+    protected static volatile Handler handler = DEFAULT_HANDLER;
+
+    private TSLErrors() {}
+
+    public static Handler getHandler() {
+        return handler;
+    }
+
+    public static void setHandler(Handler handler) {
+        TSLErrors.handler = handler == null ? DEFAULT_HANDLER : handler;
+    }
+
+    public static void setLogger(TSLLogger logger) {
+        setHandler((message, error) -> {
+            StringWriter stackTrace = new StringWriter();
+            error.printStackTrace(new PrintWriter(stackTrace));
+            logger.error("{}\n{}", message, stackTrace);
+        });
+    }
+
+    public static void report(String message, Throwable error) {
+        try {
+            handler.handle(message, error);
+        } catch (Throwable handlerError) {
+            // A broken handler must not take the reporting thread down with it
+        }
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        void handle(String message, Throwable error);
+    }
+
+}
@@ -2,6 +2,24 @@ package net.programmer.igoodie.tsl.logging;
 
 public abstract class TSLLogger {
 
+    public enum LogLevel {
+        TRACE, DEBUG, INFO, WARN, ERROR
+    }
+
+    protected volatile LogLevel level = LogLevel.TRACE;
+
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    public void setLevel(LogLevel level) {
+        this.level = level;
+    }
+
+    public boolean isEnabled(LogLevel level) {
+        return level.compareTo(this.level) >= 0;
+    }
+
     public abstract void info(String msg, Object... args);
 
     public abstract void warn(String msg, Object... args);
@@ -12,4 +30,4 @@ public abstract class TSLLogger {
 
     public abstract void trace(String msg, Object... args);
 
-}
\ No newline at end of file
+}
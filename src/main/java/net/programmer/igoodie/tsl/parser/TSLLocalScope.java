@@ -0,0 +1,70 @@
+package net.programmer.igoodie.tsl.parser;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+// Parse-time binding of local variables to frame slots.
+// Nested actions are parsed by fresh parsers on the same thread, so the open scope lives in a ThreadLocal.
+public class TSLLocalScope {
+
+    private static final ThreadLocal<TSLLocalScope> CURRENT = new ThreadLocal<>();
+
+    protected final TSLLocalScope previous;
+    protected final Map<String, Integer> slots;
+    protected int frameSize;
+
+    protected TSLLocalScope(TSLLocalScope previous) {
+        this.previous = previous;
+        this.slots = new HashMap<>();
+    }
+
+    public static TSLLocalScope current() {
+        return CURRENT.get();
+    }
+
+    public static TSLLocalScope open() {
+        TSLLocalScope scope = new TSLLocalScope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public void close() {
+        if (CURRENT.get() != this)
+            throw new IllegalStateException("Only the innermost scope can be closed.");
+
+        if (previous == null) CURRENT.remove();
+        else CURRENT.set(previous);
+    }
+
+    // Variables visible to the action being parsed right now
+    public static Map<String, Integer> visibleSlots() {
+        TSLLocalScope scope = CURRENT.get();
+
+        if (scope == null || scope.slots.isEmpty())
+            return Collections.emptyMap();
+
+        return Collections.unmodifiableMap(new HashMap<>(scope.slots));
+    }
+
+    public Integer getSlot(String name) {
+        return slots.get(name);
+    }
+
+    // Every declaration gets its own slot, so nested loops never collide
+    public int declare(String name) {
+        int slot = frameSize++;
+        slots.put(name, slot);
+        return slot;
+    }
+
+    public void restore(String name, Integer shadowedSlot) {
+        if (shadowedSlot == null) slots.remove(name);
+        else slots.put(name, shadowedSlot);
+    }
+
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+}
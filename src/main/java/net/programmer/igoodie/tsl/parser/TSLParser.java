@@ -7,10 +7,13 @@ import net.programmer.igoodie.tsl.runtime.TSLRuleset;
 import net.programmer.igoodie.tsl.runtime.action.TSLAction;
 import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
 import net.programmer.igoodie.tsl.runtime.predicate.TSLComparator;
+import net.programmer.igoodie.tsl.runtime.predicate.TSLCondition;
 import net.programmer.igoodie.tsl.runtime.predicate.TSLPredicate;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -38,11 +41,17 @@ public class TSLParser {
 
     public TSLRuleset parse() throws TSLSyntaxException {
         TSLRuleset ruleset = new TSLRuleset(target);
+        Map<String, Integer> signatures = new HashMap<>();
 
         parseEmptyLine(); // Skip leading empty lines
 
         while (index < tokens.size()) {
             TSLRule rule = parseRule();
+
+            // Same action on the same event again, told apart by how many came before it
+            int occurrence = signatures.merge(rule.getSignature(), 1, Integer::sum);
+            if (occurrence > 1) rule.setSignature(rule.getSignature() + " #" + occurrence);
+
             ruleset.addRule(rule);
             parseEmptyLine(); // Skip empty lines between rules
         }
@@ -51,7 +60,17 @@ public class TSLParser {
     }
 
     protected TSLRule parseRule() throws TSLSyntaxException {
-        TSLAction action = parseAction();
+        TSLLocalScope scope = TSLLocalScope.open();
+        TSLAction action;
+        int actionStart = index;
+
+        try {
+            action = parseAction();
+        } finally {
+            scope.close();
+        }
+
+        int actionEnd = index;
 
         if (!consume(token -> token.type == TSLLexer.TokenType.KEYWORD_ON))
             throw new TSLSyntaxException("Expected 'ON' after action part.");
@@ -63,6 +82,8 @@ public class TSLParser {
         List<TSLPredicate> predicates = parsePredicates();
 
         TSLRule rule = new TSLRule(event);
+        rule.setSignature(signatureOf(actionStart, actionEnd, event));
+        rule.setFrameSize(scope.getFrameSize());
         rule.setAction(action);
         for (TSLPredicate predicate : predicates) {
             rule.addPredicate(predicate);
@@ -71,6 +92,14 @@ public class TSLParser {
         return rule;
     }
 
+    private String signatureOf(int actionStart, int actionEnd, TSLEvent event) {
+        StringBuilder signature = new StringBuilder();
+        for (int i = actionStart; i < actionEnd; i++) {
+            signature.append(tokens.get(i).value).append(' ');
+        }
+        return signature.append("ON ").append(event.getName()).toString();
+    }
+
     public TSLAction parseAction() throws TSLSyntaxException {
         String actionName = parseWord();
 
@@ -80,8 +109,11 @@ public class TSLParser {
 
         List<String> actionArgs = parseActionArgs();
 
-        TSLAction.Supplier<?> actionDefinition = platform.getActionDefinition(actionName)
-                .orElseThrow(() -> new TSLSyntaxException("Unknown action -> {}", actionName));
+        TSLAction.Supplier<?> actionDefinition = platform.findActionDefinition(actionName);
+
+        if (actionDefinition == null) {
+            throw new TSLSyntaxException("Unknown action -> {}", actionName);
+        }
 
         return actionDefinition.generate(platform, actionArgs);
     }
@@ -107,8 +139,13 @@ public class TSLParser {
             eventName.append(" ").append(parseWord());
         }
 
-        return platform.getEvent(eventName.toString())
-                .orElseThrow(() -> new TSLSyntaxException("Unknown event -> {}", eventName.toString()));
+        TSLEvent event = platform.findEvent(eventName.toString());
+
+        if (event == null) {
+            throw new TSLSyntaxException("Unknown event -> {}", eventName.toString());
+        }
+
+        return event;
     }
 
     private List<TSLPredicate> parsePredicates() throws TSLSyntaxException {
@@ -132,16 +169,108 @@ public class TSLParser {
         }
 
         String fieldName = words.get(0);
+
+        // Parentheses are only read as their own words
+        if (fieldName.startsWith("(")) {
+            throw new TSLSyntaxException("Expected a space after '(' in -> {}", fieldName);
+        }
         String comparatorSymbol = String.join(" ", words.subList(1, words.size() - 1));
         String right = words.get(words.size() - 1);
 
-        TSLComparator.Supplier<?> comparatorDefinition = platform.getComparatorDefinition(comparatorSymbol)
-                .orElseThrow(() -> new TSLSyntaxException("Unknown comparator -> {}", comparatorSymbol));
+        TSLComparator.Supplier<?> comparatorDefinition = platform.findComparatorDefinition(comparatorSymbol);
+
+        if (comparatorDefinition == null) {
+            throw new TSLSyntaxException("Unknown comparator -> {}", comparatorSymbol);
+        }
 
         TSLComparator comparator = comparatorDefinition.generate(right);
         return new TSLPredicate(fieldName, comparator);
     }
 
+    public TSLCondition parseCondition() throws TSLSyntaxException {
+        TSLCondition.Node root = parseDisjunction();
+
+        if (getToken(index) != null) {
+            throw new TSLSyntaxException("Unexpected token in condition -> {}", getToken(index).value);
+        }
+
+        return new TSLCondition(root);
+    }
+
+    private TSLCondition.Node parseDisjunction() throws TSLSyntaxException {
+        TSLCondition.Node node = parseConjunction();
+        while (consumeWord("OR")) {
+            node = TSLCondition.Node.or(node, parseConjunction());
+        }
+        return node;
+    }
+
+    private TSLCondition.Node parseConjunction() throws TSLSyntaxException {
+        TSLCondition.Node node = parseNegation();
+        while (consumeWord("AND")) {
+            node = TSLCondition.Node.and(node, parseNegation());
+        }
+        return node;
+    }
+
+    private TSLCondition.Node parseNegation() throws TSLSyntaxException {
+        if (consumeWord("NOT")) {
+            return TSLCondition.Node.not(parseNegation());
+        }
+
+        if (consumeWord("(")) {
+            TSLCondition.Node node = parseDisjunction();
+            if (!consumeWord(")")) {
+                String lastWord = getToken(index - 1).value;
+                if (lastWord.endsWith(")"))
+                    throw new TSLSyntaxException("Expected a space before ')' in -> {}", lastWord);
+                throw new TSLSyntaxException("Expected ')' to close the condition group.");
+            }
+            return node;
+        }
+
+        return parseComparison();
+    }
+
+    private TSLCondition.Node parseComparison() throws TSLSyntaxException {
+        List<String> words = new ArrayList<>();
+
+        TSLLexer.Token token;
+        while ((token = getToken(index)) != null && token.type == TSLLexer.TokenType.WORD
+                && !isConditionDelimiter(token.value)) {
+            words.add(parseWord());
+        }
+
+        if (words.size() < 3) {
+            throw new TSLSyntaxException("Expected <field> <comparator> <value>, found -> {}", String.join(" ", words));
+        }
+
+        String fieldName = words.get(0);
+
+        // Parentheses are only read as their own words
+        if (fieldName.startsWith("(")) {
+            throw new TSLSyntaxException("Expected a space after '(' in -> {}", fieldName);
+        }
+        String comparatorSymbol = String.join(" ", words.subList(1, words.size() - 1));
+        String right = words.get(words.size() - 1);
+
+        TSLComparator.Supplier<?> comparatorDefinition = platform.findComparatorDefinition(comparatorSymbol);
+
+        if (comparatorDefinition == null) {
+            throw new TSLSyntaxException("Unknown comparator -> {}", comparatorSymbol);
+        }
+
+        return TSLCondition.Node.comparison(fieldName, comparatorDefinition.generate(right));
+    }
+
+    private boolean isConditionDelimiter(String word) {
+        return word.equalsIgnoreCase("AND") || word.equalsIgnoreCase("OR") || word.equals(")");
+    }
+
+    private boolean consumeWord(String word) {
+        return consume(token -> token.type == TSLLexer.TokenType.WORD && token.value.equalsIgnoreCase(word));
+    }
+
     private String parseEmptyLine() {
         return consume(token -> token.type == TSLLexer.TokenType.EMPTY_LINE,
                 token -> token.value,
@@ -0,0 +1,240 @@
+package net.programmer.igoodie.tsl.replay;
+
+import net.programmer.igoodie.goodies.runtime.GoodieElement;
+import net.programmer.igoodie.goodies.runtime.GoodieObject;
+import net.programmer.igoodie.tsl.journal.TSLJournalRecord;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// One event per line:
+// {"timestamp": 1650000000000, "target": "Player:iGoodie", "event": "Donation", "args": {"amount": 10.5}}
+// "sequence", "eventId", "matchedRule" and "matchedRuleSignature" are optional
+public class JsonLinesSource implements TSLReplaySource {
+
+    protected final Path file;
+    protected final BufferedReader reader;
+    protected long lineNumber;
+    protected long nextSequence;
+
+    public JsonLinesSource(Path file) throws IOException {
+        this.file = file;
+        this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public TSLJournalRecord next() throws IOException {
+        String line;
+
+        do {
+            line = reader.readLine();
+            if (line == null) return null;
+            lineNumber++;
+        } while (line.trim().isEmpty());
+
+        Object parsed;
+        try {
+            parsed = new Parser(line).parseDocument();
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file.getFileName() + ":" + lineNumber + " " + e.getMessage(), e);
+        }
+
+        if (!(parsed instanceof GoodieObject))
+            throw new IOException(file.getFileName() + ":" + lineNumber + " Expected a JSON object");
+
+        GoodieObject json = (GoodieObject) parsed;
+        String eventName = json.getString("event")
+                .orElseThrow(() -> new IOException(file.getFileName() + ":" + lineNumber + " Missing \"event\""));
+
+        long sequence = json.getLong("sequence").orElse(nextSequence);
+        nextSequence = sequence + 1;
+
+        GoodieElement args = json.get("args");
+        return new TSLJournalRecord(sequence,
+                json.getLong("timestamp").orElse(0L),
+                json.getLong("eventId").orElse(sequence),
+                json.getString("target").orElse(null),
+                eventName,
+                json.getInteger("matchedRule").orElse(TSLJournalRecord.NO_MATCHED_RULE),
+                json.getString("matchedRuleSignature").orElse(null),
+                args instanceof GoodieObject ? (GoodieObject) args : new GoodieObject());
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // Just enough JSON for event records, nulls are dropped
+    protected static class Parser {
+
+        protected final String input;
+        protected int position;
+
+        public Parser(String input) {
+            this.input = input;
+        }
+
+        public Object parseDocument() {
+            Object value = parseValue();
+            skipWhitespace();
+            if (position != input.length()) throw error("Unexpected trailing characters");
+            return value;
+        }
+
+        protected Object parseValue() {
+            skipWhitespace();
+            if (position >= input.length()) throw error("Unexpected end of line");
+
+            char c = input.charAt(position);
+            switch (c) {
+                case '{': return parseObject();
+                case '[': return parseArray();
+                case '"': return parseString();
+                case 't': expectWord("true"); return true;
+                case 'f': expectWord("false"); return false;
+                case 'n': expectWord("null"); return null;
+                default: return parseNumber();
+            }
+        }
+
+        protected GoodieObject parseObject() {
+            GoodieObject object = new GoodieObject();
+            position++;
+            skipWhitespace();
+
+            if (peek() == '}') {
+                position++;
+                return object;
+            }
+
+            while (true) {
+                skipWhitespace();
+                if (peek() != '"') throw error("Expected a key");
+                String key = parseString();
+                skipWhitespace();
+                expect(':');
+                Object value = parseValue();
+                if (value != null) object.put(key, value);
+                skipWhitespace();
+
+                if (peek() == ',') {
+                    position++;
+                    continue;
+                }
+                expect('}');
+                return object;
+            }
+        }
+
+        protected GoodieElement parseArray() {
+            List<Object> values = new ArrayList<>();
+            position++;
+            skipWhitespace();
+
+            if (peek() == ']') {
+                position++;
+                return GoodieElement.fromArray(values.toArray());
+            }
+
+            while (true) {
+                values.add(parseValue());
+                skipWhitespace();
+
+                if (peek() == ',') {
+                    position++;
+                    continue;
+                }
+                expect(']');
+                return GoodieElement.fromArray(values.toArray());
+            }
+        }
+
+        protected String parseString() {
+            StringBuilder builder = new StringBuilder();
+            position++;
+
+            while (position < input.length()) {
+                char c = input.charAt(position++);
+
+                if (c == '"') return builder.toString();
+                if (c != '\\') {
+                    builder.append(c);
+                    continue;
+                }
+
+                if (position >= input.length()) break;
+                char escaped = input.charAt(position++);
+                switch (escaped) {
+                    case 'b': builder.append('\b'); break;
+                    case 'f': builder.append('\f'); break;
+                    case 'n': builder.append('\n'); break;
+                    case 'r': builder.append('\r'); break;
+                    case 't': builder.append('\t'); break;
+                    case 'u':
+                        if (position + 4 > input.length()) throw error("Malformed unicode escape");
+                        builder.append((char) Integer.parseInt(input.substring(position, position + 4), 16));
+                        position += 4;
+                        break;
+                    default: builder.append(escaped);
+                }
+            }
+
+            throw error("Unterminated string");
+        }
+
+        protected Number parseNumber() {
+            int start = position;
+            boolean decimal = false;
+
+            while (position < input.length()) {
+                char c = input.charAt(position);
+                if (c == '.' || c == 'e' || c == 'E') decimal = true;
+                else if (!(c >= '0' && c <= '9') && c != '-' && c != '+') break;
+                position++;
+            }
+
+            if (start == position) throw error("Unexpected character '" + input.charAt(position) + "'");
+
+            String literal = input.substring(start, position);
+            try {
+                if (decimal) return Double.parseDouble(literal);
+                long value = Long.parseLong(literal);
+                return value == (int) value ? (Number) (int) value : (Number) value;
+            } catch (NumberFormatException e) {
+                throw error("Malformed number " + literal);
+            }
+        }
+
+        protected void expectWord(String word) {
+            if (!input.startsWith(word, position)) throw error("Expected " + word);
+            position += word.length();
+        }
+
+        protected void expect(char expected) {
+            if (peek() != expected) throw error("Expected '" + expected + "'");
+            position++;
+        }
+
+        protected char peek() {
+            return position < input.length() ? input.charAt(position) : '\0';
+        }
+
+        protected void skipWhitespace() {
+            while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+                position++;
+            }
+        }
+
+        protected IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at column " + (position + 1));
+        }
+
+    }
+
+}
@@ -0,0 +1,66 @@
+package net.programmer.igoodie.tsl.replay;
+
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.runtime.action.TSLAction;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Replaces side-effecting actions with stubs that only render their text and count the call.
+// Install before parsing, so the ruleset links against the stubs.
+public class RecordingStubs {
+
+    protected final Map<String, LongAdder> performCounts = new ConcurrentHashMap<>();
+
+    public RecordingStubs install(TSLPlatform platform, String... actionNames) {
+        for (String actionName : actionNames) {
+            LongAdder counter = performCounts.computeIfAbsent(actionName.toUpperCase(), name -> new LongAdder());
+            platform.registerAction(actionName, (p, args) -> new RecordingAction(p, args, counter));
+        }
+        return this;
+    }
+
+    public long getPerformCount(String actionName) {
+        LongAdder counter = performCounts.get(actionName.toUpperCase());
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public Map<String, Long> getPerformCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        performCounts.forEach((name, counter) -> counts.put(name, counter.sum()));
+        return Collections.unmodifiableMap(counts);
+    }
+
+    public void reset() {
+        performCounts.values().forEach(LongAdder::reset);
+    }
+
+    protected static class RecordingAction extends TSLAction {
+
+        protected final String text;
+        protected final LongAdder counter;
+
+        public RecordingAction(TSLPlatform platform, List<String> args, LongAdder counter) throws TSLSyntaxException {
+            super(platform, args);
+            this.text = String.join(" ", consumeMessagePart(args));
+            this.counter = counter;
+        }
+
+        @Override
+        public boolean perform(TSLEventContext ctx) {
+            // Keep the rendering cost, it's part of what a replay measures
+            replaceExpressions(text, ctx);
+            getCalculatedMessage(ctx);
+            counter.increment();
+            return true;
+        }
+
+    }
+
+}
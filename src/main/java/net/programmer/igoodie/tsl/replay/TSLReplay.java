@@ -0,0 +1,156 @@
+package net.programmer.igoodie.tsl.replay;
+
+import net.programmer.igoodie.goodies.runtime.GoodieElement;
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.journal.TSLJournalRecord;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import net.programmer.igoodie.tsl.runtime.executor.TSLExecutor;
+import net.programmer.igoodie.tsl.util.LatencyHistogram;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Drives recorded events through a ruleset, either on their original timeline
+// (optionally compressed by a speed factor) or as fast as the executor allows.
+public class TSLReplay {
+
+    public static final double AS_FAST_AS_POSSIBLE = 0;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+
+    protected final TSLPlatform platform;
+    protected final TSLRuleset ruleset;
+    protected final TSLExecutor executor;
+    protected double speed = AS_FAST_AS_POSSIBLE;
+    protected int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+    public TSLReplay(TSLPlatform platform, TSLRuleset ruleset, TSLExecutor executor) {
+        this.platform = platform;
+        this.ruleset = ruleset;
+        this.executor = executor;
+    }
+
+    // 1 keeps the original timing, 100 plays a day in under 15 minutes
+    public TSLReplay setSpeed(double speed) {
+        if (speed < 0)
+            throw new IllegalArgumentException("Expected a non-negative speed, found -> " + speed);
+        this.speed = speed;
+        return this;
+    }
+
+    public TSLReplay setMaxInFlight(int maxInFlight) {
+        if (maxInFlight <= 0)
+            throw new IllegalArgumentException("Expected a positive limit, found -> " + maxInFlight);
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public TSLReplayReport run(TSLReplaySource source) throws IOException, InterruptedException {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder failures = new LongAdder();
+        RuleLog replayedRules = new RuleLog();
+        RuleLog recordedRules = new RuleLog();
+
+        long startNanos = System.nanoTime();
+        long firstTimestamp = 0;
+        int events = 0;
+        TSLJournalRecord record;
+
+        while ((record = source.next()) != null) {
+            if (events == 0) firstTimestamp = record.getTimestamp();
+
+            long scheduledNanos = speed > 0
+                    ? startNanos + (long) ((record.getTimestamp() - firstTimestamp) * 1e6 / speed)
+                    : 0;
+
+            if (speed > 0) sleepUntil(scheduledNanos);
+            inFlight.acquire();
+
+            // Measured from the scheduled time, so a stalled replay can't hide its own queueing delay
+            long startedNanos = speed > 0 ? scheduledNanos : System.nanoTime();
+            TSLEventContext ctx = createContext(record);
+            int index = events++;
+            recordedRules.set(index, recordedRule(record));
+
+            executor.resolvePerform(ruleset, ctx).whenComplete((result, error) -> {
+                latency.record(System.nanoTime() - startedNanos);
+                if (error != null) failures.increment();
+                replayedRules.set(index, error == null ? replayedRule(ctx) : TSLReplayReport.FAILED);
+                inFlight.release();
+            });
+        }
+
+        inFlight.acquire(maxInFlight); // Drain
+        inFlight.release(maxInFlight);
+
+        return new TSLReplayReport(events, failures.sum(), System.nanoTime() - startNanos,
+                latency, replayedRules.toArray(events), recordedRules.toArray(events));
+    }
+
+    // Records without a signature only have the index, those are taken to be from this same ruleset
+    protected String recordedRule(TSLJournalRecord record) {
+        if (record.getMatchedRuleSignature() != null) return record.getMatchedRuleSignature();
+        String signature = ruleset.getRuleSignature(record.getMatchedRule());
+        return signature != null ? signature : TSLReplayReport.NO_RULE;
+    }
+
+    protected String replayedRule(TSLEventContext ctx) {
+        String signature = ruleset.getRuleSignature(ctx.getMatchedRule());
+        return signature != null ? signature : TSLReplayReport.NO_RULE;
+    }
+
+    // Keeps the recorded event id, so randomized actions pick the same branches again
+    protected TSLEventContext createContext(TSLJournalRecord record) {
+        TSLEventContext ctx = new TSLEventContext(platform, record.getEventName(), record.getEventId());
+        ctx.setTarget(record.getTarget());
+        for (Map.Entry<String, GoodieElement> entry : record.getEventArgs().entrySet()) {
+            ctx.getEventArgs().put(entry.getKey(), entry.getValue());
+        }
+        return ctx;
+    }
+
+    protected static void sleepUntil(long deadlineNanos) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            if (remaining > TimeUnit.MILLISECONDS.toNanos(2)) {
+                Thread.sleep(TimeUnit.NANOSECONDS.toMillis(remaining) - 1);
+            } else {
+                LockSupport.parkNanos(remaining);
+            }
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+    }
+
+    // Written from executor threads as performs complete, in any order
+    protected static class RuleLog {
+
+        protected String[] rules = new String[1024];
+
+        public synchronized void set(int index, String rule) {
+            if (index >= rules.length) {
+                rules = Arrays.copyOf(rules, Math.max(rules.length * 2, index + 1));
+            }
+            rules[index] = rule;
+        }
+
+        public synchronized String[] toArray(int size) {
+            return Arrays.copyOf(rules, size);
+        }
+
+    }
+
+}
@@ -0,0 +1,170 @@
+package net.programmer.igoodie.tsl.replay;
+
+import net.programmer.igoodie.tsl.util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+public class TSLReplayReport {
+
+    // Rules are told apart by their signatures, so adding or removing a rule doesn't shift the others
+    public static final String NO_RULE = "<no rule>";
+    public static final String FAILED = "<failed>";
+
+    protected final int events;
+    protected final long failures;
+    protected final long elapsedNanos;
+    protected final LatencyHistogram latency;
+    protected final String[] replayedRules;
+    protected final String[] recordedRules;
+
+    public TSLReplayReport(int events, long failures, long elapsedNanos, LatencyHistogram latency, String[] replayedRules, String[] recordedRules) {
+        this.events = events;
+        this.failures = failures;
+        this.elapsedNanos = elapsedNanos;
+        this.latency = latency;
+        this.replayedRules = replayedRules;
+        this.recordedRules = recordedRules;
+    }
+
+    public int getEvents() {
+        return events;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : events / (elapsedNanos / 1e9);
+    }
+
+    // Nanoseconds from dispatch (or scheduled dispatch) to completion
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public String getReplayedRule(int event) {
+        return replayedRules[event];
+    }
+
+    public Map<String, Long> getRuleFireCounts() {
+        return countRules(replayedRules);
+    }
+
+    public RuleDiff diff(TSLReplayReport baseline) {
+        return new RuleDiff(baseline.replayedRules, replayedRules);
+    }
+
+    // Against the rules that matched when the events were recorded
+    public RuleDiff diffAgainstRecorded() {
+        return new RuleDiff(recordedRules, replayedRules);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("events=%d failures=%d elapsed=%dms throughput=%.0f/s latency(us): p50=%d p99=%d p999=%d max=%d",
+                events, failures, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), getThroughput(),
+                TimeUnit.NANOSECONDS.toMicros(latency.getPercentile(50)),
+                TimeUnit.NANOSECONDS.toMicros(latency.getPercentile(99)),
+                TimeUnit.NANOSECONDS.toMicros(latency.getPercentile(99.9)),
+                TimeUnit.NANOSECONDS.toMicros(latency.getMax()));
+    }
+
+    protected static Map<String, Long> countRules(String[] rules) {
+        Map<String, Long> counts = new TreeMap<>();
+        for (String rule : rules) {
+            counts.merge(rule, 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    public static class RuleDiff {
+
+        protected final int compared;
+        protected final List<Divergence> divergences;
+        protected final Map<String, Long> fireCountDeltas;
+
+        public RuleDiff(String[] baseline, String[] replayed) {
+            this.compared = Math.min(baseline.length, replayed.length);
+            this.divergences = new ArrayList<>();
+            this.fireCountDeltas = new TreeMap<>();
+
+            for (int i = 0; i < compared; i++) {
+                if (!baseline[i].equals(replayed[i])) {
+                    divergences.add(new Divergence(i, baseline[i], replayed[i]));
+                }
+            }
+
+            Map<String, Long> baselineCounts = countRules(Arrays.copyOf(baseline, compared));
+            Map<String, Long> replayedCounts = countRules(Arrays.copyOf(replayed, compared));
+            baselineCounts.forEach((rule, count) -> fireCountDeltas.merge(rule, -count, Long::sum));
+            replayedCounts.forEach((rule, count) -> fireCountDeltas.merge(rule, count, Long::sum));
+            fireCountDeltas.values().removeIf(delta -> delta == 0);
+        }
+
+        public int getCompared() {
+            return compared;
+        }
+
+        public boolean isEmpty() {
+            return divergences.isEmpty();
+        }
+
+        public List<Divergence> getDivergences() {
+            return Collections.unmodifiableList(divergences);
+        }
+
+        // Rule signature -> replayed fires minus baseline fires, unchanged rules are left out
+        public Map<String, Long> getFireCountDeltas() {
+            return Collections.unmodifiableMap(fireCountDeltas);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("compared=%d diverged=%d deltas=%s", compared, divergences.size(), fireCountDeltas);
+        }
+
+    }
+
+    public static class Divergence {
+
+        protected final int event;
+        protected final String baselineRule;
+        protected final String replayedRule;
+
+        public Divergence(int event, String baselineRule, String replayedRule) {
+            this.event = event;
+            this.baselineRule = baselineRule;
+            this.replayedRule = replayedRule;
+        }
+
+        public int getEvent() {
+            return event;
+        }
+
+        public String getBaselineRule() {
+            return baselineRule;
+        }
+
+        public String getReplayedRule() {
+            return replayedRule;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + event + ": " + baselineRule + " -> " + replayedRule;
+        }
+
+    }
+
+}
@@ -0,0 +1,36 @@
+package net.programmer.igoodie.tsl.replay;
+
+import net.programmer.igoodie.tsl.journal.TSLJournalReader;
+import net.programmer.igoodie.tsl.journal.TSLJournalRecord;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Recorded events in their original order, next() returns null once exhausted
+public interface TSLReplaySource extends AutoCloseable {
+
+    TSLJournalRecord next() throws IOException;
+
+    @Override
+    void close() throws IOException;
+
+    static TSLReplaySource fromJournal(Path folder) {
+        TSLJournalReader reader = new TSLJournalReader(folder);
+        return new TSLReplaySource() {
+            @Override
+            public TSLJournalRecord next() throws IOException {
+                return reader.next();
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+
+    static TSLReplaySource fromJsonLines(Path file) throws IOException {
+        return new JsonLinesSource(file);
+    }
+
+}
@@ -0,0 +1,127 @@
+package net.programmer.igoodie.tsl.runtime;
+
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.TSLPlatformGenerations;
+import net.programmer.igoodie.tsl.exception.TSLPerformingException;
+import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.parser.TSLLexer;
+import net.programmer.igoodie.tsl.parser.TSLParser;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+// Ruleset that follows the published platform generations. Every perform runs on a single
+// compiled snapshot, new generations are compiled in the background and swapped in atomically.
+public class TSLLiveRuleset {
+
+    protected final TSLPlatformGenerations generations;
+    protected final String target;
+    protected final List<TSLLexer.Token> tokens;
+    protected final Executor compiler;
+    protected final AtomicReference<Compiled> compiled;
+    protected final Consumer<TSLPlatformGenerations.Generation> listener;
+
+    protected volatile CompletableFuture<TSLRuleset> lastCompilation;
+
+    public TSLLiveRuleset(TSLPlatformGenerations generations, String target, List<TSLLexer.Token> tokens, Executor compiler) throws TSLSyntaxException {
+        TSLPlatformGenerations.Generation generation = generations.current();
+
+        this.generations = generations;
+        this.target = target;
+        this.tokens = Collections.unmodifiableList(tokens);
+        this.compiler = compiler;
+        this.compiled = new AtomicReference<>(new Compiled(generation, compile(generation)));
+        this.lastCompilation = CompletableFuture.completedFuture(compiled.get().ruleset);
+        this.listener = this::recompile;
+
+        generations.addListener(listener);
+
+        // A generation might have been published while compiling the first one
+        if (generations.current() != generation) {
+            recompile(generations.current());
+        }
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public TSLRuleset getRuleset() {
+        return compiled.get().ruleset;
+    }
+
+    public long getGeneration() {
+        return compiled.get().generation.getNumber();
+    }
+
+    // Completes once the most recently requested compilation is swapped in, or failed
+    public CompletableFuture<TSLRuleset> getLastCompilation() {
+        return lastCompilation;
+    }
+
+    // While performing, the context (and every copy made from it) sees the platform of the generation
+    // its snapshot was compiled for. The caller's platform is put back once the perform returns.
+    public List<String> perform(TSLEventContext ctx) throws TSLPerformingException {
+        Compiled snapshot = compiled.get();
+        TSLPlatform callerPlatform = ctx.getPlatform();
+        ctx.setPlatform(snapshot.generation.getPlatform());
+        try {
+            return snapshot.ruleset.perform(ctx);
+        } finally {
+            ctx.setPlatform(callerPlatform);
+        }
+    }
+
+    public CompletableFuture<TSLRuleset> recompile(TSLPlatformGenerations.Generation generation) {
+        CompletableFuture<TSLRuleset> compilation = CompletableFuture.supplyAsync(() -> {
+            try {
+                TSLRuleset ruleset = compile(generation);
+                swap(new Compiled(generation, ruleset));
+                return ruleset;
+            } catch (TSLSyntaxException e) {
+                throw new CompletionException(e); // Keeps performing on the previous generation
+            }
+        }, compiler);
+
+        lastCompilation = compilation;
+        return compilation;
+    }
+
+    public void close() {
+        generations.removeListener(listener);
+    }
+
+    protected TSLRuleset compile(TSLPlatformGenerations.Generation generation) throws TSLSyntaxException {
+        return new TSLParser(generation.getPlatform(), target, tokens).parse();
+    }
+
+    // Settings changed on the current ruleset after this point still get lost,
+    // which only matters when they race with a publish
+    protected void swap(Compiled candidate) {
+        while (true) {
+            Compiled current = compiled.get();
+            if (current.generation.getNumber() >= candidate.generation.getNumber()) return; // A newer one won
+            candidate.ruleset.copySettingsFrom(current.ruleset);
+            if (compiled.compareAndSet(current, candidate)) return;
+        }
+    }
+
+    protected static class Compiled {
+
+        protected final TSLPlatformGenerations.Generation generation;
+        protected final TSLRuleset ruleset;
+
+        public Compiled(TSLPlatformGenerations.Generation generation, TSLRuleset ruleset) {
+            this.generation = generation;
+            this.ruleset = ruleset;
+        }
+
+    }
+
+}
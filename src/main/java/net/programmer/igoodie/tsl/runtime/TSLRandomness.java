@@ -0,0 +1,54 @@
+package net.programmer.igoodie.tsl.runtime;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Every event gets its own stream, derived from the global seed and its event id only.
+// Replaying the same events with the same seed draws the exact same numbers.
+public class TSLRandomness {
+
+    public static final long ROOT_STREAM = 0;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    protected final long seed;
+    protected final AtomicLong eventIds;
+
+    public TSLRandomness() {
+        this(mix64(System.nanoTime()) ^ mix64(System.currentTimeMillis() * GOLDEN_GAMMA));
+    }
+
+    public TSLRandomness(long seed) {
+        this.seed = seed;
+        this.eventIds = new AtomicLong();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long nextEventId() {
+        return eventIds.getAndIncrement();
+    }
+
+    public SplittableRandom streamOf(long eventId) {
+        return new SplittableRandom(mix64(seed + GOLDEN_GAMMA * (eventId + 1)));
+    }
+
+    // Stream of a context copy, identified by the chain of copy indices leading to it (see childStreamKey)
+    public SplittableRandom streamOf(long eventId, long streamKey) {
+        if (streamKey == ROOT_STREAM) return streamOf(eventId);
+        return new SplittableRandom(mix64(mix64(seed + GOLDEN_GAMMA * (eventId + 1)) + GOLDEN_GAMMA * streamKey));
+    }
+
+    public static long childStreamKey(long parentStreamKey, int copyIndex) {
+        return mix64(parentStreamKey + GOLDEN_GAMMA * (copyIndex + 1)) | 1L; // Never collides with the root
+    }
+
+    // Stafford variant 13 of the 64-bit finalizer, same one SplittableRandom uses
+    protected static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+}
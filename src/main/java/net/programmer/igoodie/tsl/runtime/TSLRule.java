@@ -2,24 +2,32 @@ package net.programmer.igoodie.tsl.runtime;
 
 import net.programmer.igoodie.tsl.exception.TSLPerformingException;
 import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.jfr.TSLFlightRecorder;
 import net.programmer.igoodie.tsl.runtime.action.TSLAction;
 import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
 import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
 import net.programmer.igoodie.tsl.runtime.predicate.TSLPredicate;
 
 import java.util.Collections;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class TSLRule {
 
     protected TSLEvent event;
     protected List<TSLPredicate> predicates;
     protected TSLAction action;
+    protected String signature;
+    protected long timeoutNanos;
+    protected int frameSize;
+    protected TSLRuleStatistics statistics;
+    protected volatile TSLRuleStatistics enabledStatistics; // Same counters, null while disabled
+    protected boolean firstOfEvent = true;
 
     public TSLRule(TSLEvent event) {
         this.event = event;
-        this.predicates = new LinkedList<>();
+        this.predicates = new ArrayList<>();
     }
 
     public TSLEvent getEvent() {
@@ -30,6 +38,72 @@ public class TSLRule {
         return Collections.unmodifiableList(predicates);
     }
 
+    // Action and event as written in the script, stays the same when other rules are added or removed
+    public String getSignature() {
+        return signature;
+    }
+
+    public void setSignature(String signature) {
+        this.signature = signature;
+    }
+
+    public long getTimeout(TimeUnit unit) {
+        return unit.convert(timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void setTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0)
+            throw new IllegalArgumentException("Expected a non-negative timeout, found -> " + timeout);
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    public void setFrameSize(int frameSize) {
+        this.frameSize = frameSize;
+    }
+
+    // Counters survive disabling, so they can be switched back on without losing history.
+    // Switched by the ruleset for all of its rules at once, a rule's evaluations come from the rules before it.
+    protected synchronized void setStatisticsEnabled(boolean enabled) {
+        if (enabled && statistics == null) {
+            statistics = new TSLRuleStatistics(predicates.size());
+        }
+        this.enabledStatistics = enabled ? statistics : null;
+    }
+
+    public boolean isStatisticsEnabled() {
+        return enabledStatistics != null;
+    }
+
+    public boolean isFirstOfEvent() {
+        return firstOfEvent;
+    }
+
+    // Cleared by the ruleset for rules behind another rule of the same event, those derive their evaluations
+    protected void setFirstOfEvent(boolean firstOfEvent) {
+        this.firstOfEvent = firstOfEvent;
+    }
+
+    // Settings made at runtime, for a recompiled copy of the same rule to take over
+    protected synchronized void copySettingsFrom(TSLRule previous) {
+        this.timeoutNanos = previous.timeoutNanos;
+
+        synchronized (previous) {
+            if (previous.statistics != null) {
+                // Keeps counting where the old one left off, so later rules still add up
+                this.statistics = previous.statistics.withPredicateCount(predicates.size());
+            }
+            setStatisticsEnabled(previous.isStatisticsEnabled());
+        }
+    }
+
+    public TSLRuleStatistics getStatistics() {
+        return statistics;
+    }
+
     public void setAction(TSLAction action) {
         if (this.action != null)
             throw new IllegalStateException("Action for this event is already set.");
@@ -40,7 +114,14 @@ public class TSLRule {
         if (this.event.getPropertyType(predicate.getFieldName()) == null)
             throw new TSLSyntaxException("This rule's event does not support given property -> {}", predicate.getFieldName());
 
-        this.predicates.add(predicate);
+        synchronized (this) {
+            this.predicates.add(predicate);
+            // Statistics are laid out for a fixed number of predicates
+            if (statistics != null) {
+                statistics = statistics.withPredicateCount(predicates.size());
+                if (enabledStatistics != null) enabledStatistics = statistics;
+            }
+        }
     }
 
     public List<String> perform(TSLEventContext ctx) throws TSLPerformingException {
@@ -50,13 +131,65 @@ public class TSLRule {
             return null;
         }
 
-        for (TSLPredicate predicate : predicates) {
-            if (!predicate.test(this, ctx)) {
-                return null;
+        // Read once, a single volatile read whether statistics are on or off
+        TSLRuleStatistics statistics = enabledStatistics;
+        if (firstOfEvent && statistics != null) statistics.recordArrival();
+
+        // Indexed, an iterator per rule would only be left out when escape analysis gets to it
+        try {
+            for (int predicateIndex = 0; predicateIndex < predicates.size(); predicateIndex++) {
+                if (!TSLFlightRecorder.test(predicates.get(predicateIndex), predicateIndex, this, ctx)) {
+                    // Nothing to count for the first predicate, most rules turn most events down there
+                    if (predicateIndex > 0 && statistics != null) {
+                        statistics.recordRejection(predicateIndex);
+                    }
+                    return null;
+                }
             }
+        } catch (RuntimeException e) {
+            if (statistics != null) statistics.recordFailure(-1);
+            throw e;
+        }
+
+        if (statistics == null) {
+            return performWithinDeadline(ctx);
         }
 
-        if (action.perform(ctx)) {
+        boolean timed = TSLRuleStatistics.isTimed(ctx.getEventId());
+        long startTime = timed ? System.nanoTime() : 0;
+        try {
+            List<String> result = performWithinDeadline(ctx);
+            statistics.recordAction(timed ? System.nanoTime() - startTime : -1, result != null);
+            return result;
+        } catch (TSLPerformingException | RuntimeException e) {
+            statistics.recordFailure(timed ? System.nanoTime() - startTime : -1);
+            throw e;
+        }
+    }
+
+    protected List<String> performWithinDeadline(TSLEventContext ctx) throws TSLPerformingException {
+        if (timeoutNanos == 0) {
+            return performAction(ctx);
+        }
+
+        // Rule deadline can only tighten the event's own deadline
+        long eventDeadline = ctx.getDeadline();
+        long ruleDeadline = System.nanoTime() + timeoutNanos;
+        boolean tighter = eventDeadline == TSLEventContext.NO_DEADLINE || ruleDeadline - eventDeadline < 0;
+
+        if (tighter) ctx.setDeadline(ruleDeadline);
+        try {
+            return performAction(ctx);
+        } finally {
+            if (tighter) ctx.setDeadline(eventDeadline);
+        }
+    }
+
+    protected List<String> performAction(TSLEventContext ctx) throws TSLPerformingException {
+        ctx.checkCancelled();
+        ctx.ensureFrame(frameSize); // Allocated once per perform, loops only overwrite their slots
+
+        if (TSLFlightRecorder.perform(null, action, ctx)) {
             return action.getCalculatedMessage(ctx);
         }
 
@@ -0,0 +1,243 @@
+package net.programmer.igoodie.tsl.runtime;
+
+import net.programmer.igoodie.tsl.util.LatencyHistogram;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters of a single rule, cheap enough to keep on in production.
+// A rule that turns an event down at its first predicate counts nothing: only the first rule of an
+// event type counts arrivals, later rules see what earlier ones passed on, and first predicate
+// rejections are whatever is left of the evaluations after the other outcomes. So an event costs one
+// increment for arriving and one for the rule it ended on. Action times are sampled from one in
+// TIMING_SAMPLE_RATE events.
+public class TSLRuleStatistics {
+
+    public static final int TIMING_SAMPLE_BITS = 6;
+    public static final int TIMING_SAMPLE_RATE = 1 << TIMING_SAMPLE_BITS;
+
+    protected final LongAdder arrivals;
+    protected final LongAdder matches;
+    protected final LongAdder declines;
+    protected final LongAdder failures;
+    protected final LongAdder[] rejections; // By predicate, the first one is derived and left null
+    protected final LatencyHistogram actionNanos;
+
+    public TSLRuleStatistics(int predicateCount) {
+        this.arrivals = new LongAdder();
+        this.matches = new LongAdder();
+        this.declines = new LongAdder();
+        this.failures = new LongAdder();
+        this.rejections = new LongAdder[predicateCount];
+        this.actionNanos = new LatencyHistogram();
+        for (int i = 1; i < predicateCount; i++) {
+            rejections[i] = new LongAdder();
+        }
+    }
+
+    // Same counters laid out for another number of predicates, rejections of the ones kept carry over
+    protected TSLRuleStatistics(TSLRuleStatistics previous, int predicateCount) {
+        this.arrivals = previous.arrivals;
+        this.matches = previous.matches;
+        this.declines = previous.declines;
+        this.failures = previous.failures;
+        this.rejections = Arrays.copyOf(previous.rejections, predicateCount);
+        this.actionNanos = previous.actionNanos;
+        for (int i = 1; i < predicateCount; i++) {
+            if (rejections[i] == null) rejections[i] = new LongAdder();
+        }
+    }
+
+    public TSLRuleStatistics withPredicateCount(int predicateCount) {
+        return predicateCount == rejections.length ? this : new TSLRuleStatistics(this, predicateCount);
+    }
+
+    public int getPredicateCount() {
+        return rejections.length;
+    }
+
+    // Only counted by the first rule of an event type, the events it got are all events of that type
+    public void recordArrival() {
+        arrivals.increment();
+    }
+
+    // Rejections by the first predicate are derived, only later predicates are counted
+    public void recordRejection(int predicateIndex) {
+        if (predicateIndex > 0 && predicateIndex < rejections.length) rejections[predicateIndex].increment();
+    }
+
+    // Two clock reads cost about as much as a cheap action, so only a sample is timed.
+    // Keyed by the event, so every rule times the same events. Event ids count up, their low bits sample evenly.
+    public static boolean isTimed(long eventId) {
+        return (eventId & (TIMING_SAMPLE_RATE - 1)) == 0;
+    }
+
+    // Declined means the action itself returned false. Pass a negative time for untimed actions.
+    public void recordAction(long nanos, boolean performed) {
+        if (nanos >= 0) actionNanos.record(nanos);
+        (performed ? matches : declines).increment();
+    }
+
+    // Any exception out of the rule, the event goes no further than this rule either way
+    public void recordFailure(long nanos) {
+        if (nanos >= 0) actionNanos.record(nanos);
+        failures.increment();
+    }
+
+    // Counts of events in flight while resetting may land on either side of it
+    public void reset() {
+        arrivals.reset();
+        matches.reset();
+        declines.reset();
+        failures.reset();
+        for (int i = 1; i < rejections.length; i++) {
+            rejections[i].reset();
+        }
+        actionNanos.reset();
+    }
+
+    // Passed on is how many events earlier rules of the same event type let through to this one
+    public Snapshot snapshot(int ruleIndex, TSLRule rule, long passedOn) {
+        String[] fieldNames = new String[rule.getPredicates().size()];
+        for (int i = 0; i < fieldNames.length; i++) {
+            fieldNames[i] = rule.getPredicates().get(i).getFieldName();
+        }
+
+        long evaluations = arrivals.sum() + passedOn;
+        long matched = matches.sum(), declined = declines.sum(), failed = failures.sum();
+        long[] rejectionCounts = new long[fieldNames.length];
+        if (rejectionCounts.length > 0) {
+            long rejected = evaluations - matched - declined - failed;
+            for (int i = 1; i < rejectionCounts.length && i < rejections.length; i++) {
+                rejectionCounts[i] = rejections[i].sum();
+                rejected -= rejectionCounts[i];
+            }
+            // Events in flight while snapshotting may have arrived without an outcome yet
+            rejectionCounts[0] = Math.max(0, rejected);
+        }
+
+        return new Snapshot(ruleIndex, rule.getEvent().getName(), evaluations, matched, declined, failed,
+                rejectionCounts, fieldNames,
+                actionNanos.getCount(), actionNanos.getMean(), actionNanos.getPercentile(50),
+                actionNanos.getPercentile(99), actionNanos.getPercentile(99.9), actionNanos.getMax());
+    }
+
+    public static class Snapshot {
+
+        protected final int ruleIndex;
+        protected final String eventName;
+        protected final long evaluations;
+        protected final long matches;
+        protected final long declines;
+        protected final long failures;
+        protected final long[] predicateRejections;
+        protected final String[] predicateFields;
+        protected final long timedActions;
+        protected final double actionMeanNanos;
+        protected final long actionP50Nanos;
+        protected final long actionP99Nanos;
+        protected final long actionP999Nanos;
+        protected final long actionMaxNanos;
+
+        public Snapshot(int ruleIndex, String eventName, long evaluations, long matches, long declines, long failures,
+                        long[] predicateRejections, String[] predicateFields, long timedActions, double actionMeanNanos,
+                        long actionP50Nanos, long actionP99Nanos, long actionP999Nanos, long actionMaxNanos) {
+            this.ruleIndex = ruleIndex;
+            this.eventName = eventName;
+            this.evaluations = evaluations;
+            this.matches = matches;
+            this.declines = declines;
+            this.failures = failures;
+            this.predicateRejections = predicateRejections;
+            this.predicateFields = predicateFields;
+            this.timedActions = timedActions;
+            this.actionMeanNanos = actionMeanNanos;
+            this.actionP50Nanos = actionP50Nanos;
+            this.actionP99Nanos = actionP99Nanos;
+            this.actionP999Nanos = actionP999Nanos;
+            this.actionMaxNanos = actionMaxNanos;
+        }
+
+        public int getRuleIndex() {
+            return ruleIndex;
+        }
+
+        public String getEventName() {
+            return eventName;
+        }
+
+        // Events of this rule's event type that reached it
+        public long getEvaluations() {
+            return evaluations;
+        }
+
+        public long getMatches() {
+            return matches;
+        }
+
+        // Events that went on to later rules of the same event type, everything but matches and failures
+        public long getPassedOn() {
+            return evaluations - matches - failures;
+        }
+
+        public long getDeclines() {
+            return declines;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getPredicateRejections(int predicateIndex) {
+            return predicateRejections[predicateIndex];
+        }
+
+        public List<String> getPredicateFields() {
+            return Collections.unmodifiableList(Arrays.asList(predicateFields));
+        }
+
+        // How many actions the time percentiles are based on
+        public long getTimedActions() {
+            return timedActions;
+        }
+
+        public double getActionMean(TimeUnit unit) {
+            return actionMeanNanos / unit.toNanos(1);
+        }
+
+        public long getActionPercentile50(TimeUnit unit) {
+            return unit.convert(actionP50Nanos, TimeUnit.NANOSECONDS);
+        }
+
+        public long getActionPercentile99(TimeUnit unit) {
+            return unit.convert(actionP99Nanos, TimeUnit.NANOSECONDS);
+        }
+
+        public long getActionPercentile999(TimeUnit unit) {
+            return unit.convert(actionP999Nanos, TimeUnit.NANOSECONDS);
+        }
+
+        public long getActionMax(TimeUnit unit) {
+            return unit.convert(actionMaxNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder rejections = new StringBuilder();
+            for (int i = 0; i < predicateFields.length; i++) {
+                if (i > 0) rejections.append(", ");
+                rejections.append(predicateFields[i]).append('=').append(predicateRejections[i]);
+            }
+
+            return String.format("#%d %s: evaluations=%d matches=%d declines=%d failures=%d rejections={%s} action(us): p50=%d p99=%d max=%d",
+                    ruleIndex, eventName, evaluations, matches, declines, failures, rejections,
+                    TimeUnit.NANOSECONDS.toMicros(actionP50Nanos), TimeUnit.NANOSECONDS.toMicros(actionP99Nanos),
+                    TimeUnit.NANOSECONDS.toMicros(actionMaxNanos));
+        }
+
+    }
+
+}
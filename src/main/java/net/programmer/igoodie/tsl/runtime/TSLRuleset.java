@@ -1,11 +1,16 @@
 package net.programmer.igoodie.tsl.runtime;
 
 import net.programmer.igoodie.tsl.exception.TSLPerformingException;
+import net.programmer.igoodie.tsl.jfr.TSLFlightRecorder;
+import net.programmer.igoodie.tsl.journal.TSLJournal;
+import net.programmer.igoodie.tsl.logging.TSLErrors;
 import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class TSLRuleset {
 
@@ -13,6 +18,9 @@ public class TSLRuleset {
 
     protected List<TSLRule> rules;
 
+    protected volatile TSLJournal journal;
+    protected volatile boolean statisticsEnabled;
+
     public TSLRuleset(String target) {
         this.target = target;
         this.rules = new ArrayList<>();
@@ -22,21 +30,114 @@ public class TSLRuleset {
         return Collections.unmodifiableList(rules);
     }
 
+    // Falls back to the position for rules that were built without a signature
+    public String getRuleSignature(int index) {
+        if (index < 0 || index >= rules.size()) return null;
+        String signature = rules.get(index).getSignature();
+        return signature != null ? signature : "#" + index;
+    }
+
     public void addRule(TSLRule rule) {
+        if (statisticsEnabled) rule.setStatisticsEnabled(true);
+        for (TSLRule other : rules) {
+            if (other.getEvent().getName().equalsIgnoreCase(rule.getEvent().getName())) {
+                rule.setFirstOfEvent(false);
+                break;
+            }
+        }
         this.rules.add(rule);
     }
 
-    public List<String> perform(TSLEventContext ctx) throws TSLPerformingException {
+    public void setStatisticsEnabled(boolean enabled) {
+        this.statisticsEnabled = enabled;
         for (TSLRule rule : rules) {
-            List<String> result = rule.perform(ctx);
-            ctx.setPerformingRule(null);
+            rule.setStatisticsEnabled(enabled);
+        }
+    }
 
-            if (result != null) {
-                return result;
-            }
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    // One entry per rule, in rule order. Rules that were never measured are left out.
+    // Evaluations of a rule are what the rules before it of the same event passed on.
+    // Statistics are only switched for the whole ruleset, so every rule before it has counters too.
+    public List<TSLRuleStatistics.Snapshot> getStatistics() {
+        List<TSLRuleStatistics.Snapshot> snapshots = new ArrayList<>(rules.size());
+        Map<String, Long> passedOn = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < rules.size(); i++) {
+            TSLRule rule = rules.get(i);
+            TSLRuleStatistics statistics = rule.getStatistics();
+            if (statistics == null) continue;
+
+            String eventName = rule.getEvent().getName();
+            TSLRuleStatistics.Snapshot snapshot = statistics.snapshot(i, rule, passedOn.getOrDefault(eventName, 0L));
+            passedOn.put(eventName, snapshot.getPassedOn());
+            snapshots.add(snapshot);
         }
+        return snapshots;
+    }
+
+    public void resetStatistics() {
+        for (TSLRule rule : rules) {
+            TSLRuleStatistics statistics = rule.getStatistics();
+            if (statistics != null) statistics.reset();
+        }
+    }
+
+    // Takes over journal, statistics and rule timeouts of a previous compilation of the same script
+    public void copySettingsFrom(TSLRuleset previous) {
+        this.journal = previous.journal;
+        this.statisticsEnabled = previous.statisticsEnabled;
 
-        return null;
+        if (previous.rules.size() != rules.size()) {
+            setStatisticsEnabled(statisticsEnabled);
+            return;
+        }
+
+        for (int i = 0; i < rules.size(); i++) {
+            rules.get(i).copySettingsFrom(previous.rules.get(i));
+        }
+    }
+
+    public TSLJournal getJournal() {
+        return journal;
+    }
+
+    // Every performed event gets recorded, along with the index and signature of the rule it matched
+    public void setJournal(TSLJournal journal) {
+        this.journal = journal;
+    }
+
+    public List<String> perform(TSLEventContext ctx) throws TSLPerformingException {
+        TSLFlightRecorder.Span span = TSLFlightRecorder.dispatch(ctx);
+        ctx.setMatchedRule(TSLEventContext.NO_MATCHED_RULE);
+
+        try {
+            for (int i = 0; i < rules.size(); i++) {
+                ctx.setPerformingRuleIndex(i);
+                List<String> result = rules.get(i).perform(ctx);
+                ctx.setPerformingRule(null);
+
+                if (result != null) {
+                    ctx.setMatchedRule(i);
+                    return result;
+                }
+            }
+
+            return null;
+
+        } finally {
+            TSLJournal journal = this.journal;
+            if (journal != null) {
+                try {
+                    journal.append(ctx, getRuleSignature(ctx.getMatchedRule()));
+                } catch (RuntimeException e) {
+                    TSLErrors.report("Could not journal " + ctx.getEventName() + " of " + ctx.getTarget(), e);
+                }
+            }
+            span.close();
+        }
     }
 
 }
@@ -3,27 +3,33 @@ package net.programmer.igoodie.tsl.runtime.action;
 import net.programmer.igoodie.tsl.TSLPlatform;
 import net.programmer.igoodie.tsl.exception.TSLPerformingException;
 import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.jfr.TSLFlightRecorder;
+import net.programmer.igoodie.tsl.parser.TSLLocalScope;
 import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
 import net.programmer.igoodie.tsl.util.Pair;
-import net.programmer.igoodie.tsl.util.PatternReplacer;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 public abstract class TSLAction {
 
     public static final Pattern EXPRESSION_PATTERN = Pattern.compile("\\$\\{(.*?)\\}");
 
+    // Inputs other than the message get cached up to this many, the rest are compiled on every render
+    public static final int MAX_TEMPLATES = 64;
+
     protected final TSLPlatform platform;
+    protected final Map<String, Integer> localSlots;
+    protected final Map<String, Template> templates;
     protected List<String> message = Collections.emptyList();
 
     public TSLAction(TSLPlatform platform, List<String> args) throws TSLSyntaxException {
         this.platform = platform;
+        this.localSlots = TSLLocalScope.visibleSlots();
+        this.templates = new ConcurrentHashMap<>();
     }
 
     public List<String> getMessage() {
@@ -31,17 +37,26 @@ public abstract class TSLAction {
     }
 
     public List<String> getCalculatedMessage(TSLEventContext ctx) {
-        return message.stream()
-                .map(word -> replaceExpressions(word, ctx))
-                .collect(Collectors.toList());
+        List<String> calculatedMessage = new ArrayList<>(message.size());
+        for (int i = 0; i < message.size(); i++) { // Message is usually a subList, no iterator for it
+            calculatedMessage.add(replaceExpressions(message.get(i), ctx));
+        }
+        return calculatedMessage;
     }
 
     protected List<String> consumeMessagePart(List<String> args) {
         Pair<List<String>, List<String>> parts = splitDisplaying(args);
-        this.message = parts.getRight();
+        setMessage(parts.getRight());
         return parts.getLeft();
     }
 
+    protected void setMessage(List<String> message) {
+        this.message = message;
+        for (String word : message) {
+            if (word.contains("${")) templates.computeIfAbsent(word, this::compileTemplate);
+        }
+    }
+
     protected Pair<List<String>, List<String>> splitDisplaying(List<String> args) {
         int index = IntStream.range(0, args.size())
                 .filter(i -> args.get(args.size() - i - 1).equalsIgnoreCase("DISPLAYING"))
@@ -59,10 +74,122 @@ public abstract class TSLAction {
 
     public abstract boolean perform(TSLEventContext ctx) throws TSLPerformingException;
 
+    // Whether this action reads local variables through ${...} in its args only. FOR merges iterations
+    // into performRepeated when its body does and never references the loop variable.
+    // Std actions do, platform actions that read the frame some other way must leave this off.
+    public boolean readsLocalsFromArgsOnly() {
+        return false;
+    }
+
+    protected static boolean readLocalsFromArgsOnly(Collection<? extends TSLAction> actions) {
+        for (TSLAction action : actions) {
+            if (action != null && !action.readsLocalsFromArgsOnly()) return false;
+        }
+        return true;
+    }
+
+    // Override to perform all repetitions at once, e.g. a single drop of 64 items instead of 64 drops
+    public boolean performRepeated(TSLEventContext ctx, int iterations) throws TSLPerformingException {
+        boolean success = true;
+
+        for (int i = 0; i < iterations; i++) {
+            ctx.checkCancelled();
+            success &= perform(ctx);
+        }
+
+        return success;
+    }
+
     public final String replaceExpressions(String input, TSLEventContext ctx) {
-        return PatternReplacer.replaceMatches(EXPRESSION_PATTERN, input, (matcher, matchIndex) -> {
+        try (TSLFlightRecorder.Span span = TSLFlightRecorder.render(ctx, input)) {
+            if (input.indexOf("${") == -1) return input; // Nothing to replace
+
+            Template template = templates.get(input);
+
+            if (template == null) {
+                // Inputs built at perform time would otherwise pile up here forever
+                template = compileTemplate(input);
+                if (templates.size() < MAX_TEMPLATES) {
+                    Template cached = templates.putIfAbsent(input, template);
+                    if (cached != null) template = cached;
+                }
+            }
+
+            return template.render(ctx);
+        }
+    }
+
+    public int getCachedTemplates() {
+        return templates.size();
+    }
+
+    protected Template compileTemplate(String input) {
+        List<Object> segments = new ArrayList<>();
+        Matcher matcher = EXPRESSION_PATTERN.matcher(input);
+        int start = 0;
+
+        while (matcher.find()) {
+            if (matcher.start() > start) {
+                segments.add(input.substring(start, matcher.start()));
+            }
+
             String expression = matcher.group(1);
+            Integer slot = localSlots.get(expression);
+            segments.add(slot != null ? (Object) slot : new Expression(expression));
+            start = matcher.end();
+        }
+
+        if (start < input.length()) {
+            segments.add(input.substring(start));
+        }
+
+        return new Template(input, segments.toArray());
+    }
+
+    // Literal text, local variable slots and expressions; split once, rendered many times
+    protected static class Template {
+
+        protected final String source;
+        protected final Object[] segments;
+
+        public Template(String source, Object[] segments) {
+            this.source = source;
+            this.segments = segments;
+        }
+
+        public String render(TSLEventContext ctx) {
+            if (segments.length == 1 && segments[0] instanceof String) {
+                return source; // Nothing to replace
+            }
+
+            StringBuilder sb = new StringBuilder(source.length() + 16);
+
+            for (Object segment : segments) {
+                if (segment instanceof String) {
+                    sb.append((String) segment);
+                } else if (segment instanceof Integer) {
+                    long[] frame = ctx.getFrame();
+                    int slot = (Integer) segment;
+                    sb.append(slot < frame.length ? frame[slot] : 0);
+                } else {
+                    sb.append(((Expression) segment).evaluate(ctx));
+                }
+            }
+
+            return sb.toString();
+        }
+
+    }
+
+    protected static class Expression {
 
+        protected final String expression;
+
+        public Expression(String expression) {
+            this.expression = expression;
+        }
+
+        public String evaluate(TSLEventContext ctx) {
             if (ctx.getPerformState().has(expression)) {
                 return ctx.getPerformState()
                         .get(expression)
@@ -70,12 +197,13 @@ public abstract class TSLAction {
                         .getString();
             }
 
-            return ctx.getPlatform()
-                    .getExpressionEvaluator(expression)
-                    .flatMap(evaluator -> evaluator.evaluate(expression, ctx))
-                    .map(Objects::toString)
-                    .orElse(null);
-        });
+            ExpressionEvaluator evaluator = ctx.getPlatform().findExpressionEvaluator(expression);
+            if (evaluator == null) return null;
+
+            Optional<?> value = evaluator.evaluate(expression, ctx);
+            return value.isPresent() ? Objects.toString(value.get()) : null;
+        }
+
     }
 
     @FunctionalInterface
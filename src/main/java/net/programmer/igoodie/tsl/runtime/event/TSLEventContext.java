@@ -2,30 +2,71 @@ package net.programmer.igoodie.tsl.runtime.event;
 
 import net.programmer.igoodie.goodies.runtime.GoodieObject;
 import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.exception.TSLCancellationException;
+import net.programmer.igoodie.tsl.runtime.TSLRandomness;
 import net.programmer.igoodie.tsl.runtime.TSLRule;
 
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
 public class TSLEventContext {
 
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+    public static final int NO_MATCHED_RULE = -1;
+
+    protected static final long[] EMPTY_FRAME = new long[0];
+    protected static final Object[] EMPTY_SCRATCH = new Object[0];
+
     protected TSLPlatform platform;
+    protected long eventId;
+    protected SplittableRandom random;
+    protected long streamKey;
+    protected int copies;
     protected String eventName;
     protected String target;
     protected GoodieObject eventArgs;
     protected GoodieObject performState;
+    protected long[] frame;
+    protected Object[] scratch;
     protected TSLRule performingRule;
+    protected int performingRuleIndex;
+    protected int matchedRule;
+    protected Cancellation cancellation;
+    protected volatile long deadline;
 
     public TSLEventContext(TSLPlatform platform, String eventName) {
+        this(platform, eventName, platform.getRandomness().nextEventId());
+    }
+
+    public TSLEventContext(TSLPlatform platform, String eventName, long eventId) {
         this.platform = platform;
+        this.eventId = eventId;
+        this.streamKey = TSLRandomness.ROOT_STREAM;
         this.eventName = eventName;
         this.eventArgs = new GoodieObject();
         this.performState = new GoodieObject();
+        this.frame = EMPTY_FRAME;
+        this.scratch = EMPTY_SCRATCH;
+        this.performingRuleIndex = NO_MATCHED_RULE;
+        this.matchedRule = NO_MATCHED_RULE;
+        this.cancellation = new Cancellation();
+        this.deadline = NO_DEADLINE;
     }
 
     public TSLEventContext copy() {
-        TSLEventContext ctx = new TSLEventContext(platform, eventName);
+        TSLEventContext ctx = new TSLEventContext(platform, eventName, eventId);
+        // Derived from the copy index, so copying never advances this context's own stream
+        ctx.streamKey = TSLRandomness.childStreamKey(this.streamKey, this.copies++);
         ctx.target = this.target;
         ctx.eventArgs = this.eventArgs.deepCopy();
         ctx.performState = this.performState.deepCopy();
+        ctx.frame = this.frame.length == 0 ? EMPTY_FRAME : this.frame.clone();
         ctx.performingRule = this.performingRule;
+        ctx.performingRuleIndex = this.performingRuleIndex;
+        ctx.matchedRule = this.matchedRule;
+        ctx.cancellation = this.cancellation; // Copies get cancelled along with the original
+        ctx.deadline = this.deadline;
         return ctx;
     }
 
@@ -33,6 +74,28 @@ public class TSLEventContext {
         return platform;
     }
 
+    // Live rulesets swap in the platform generation they perform on, for the duration of the perform
+    public void setPlatform(TSLPlatform platform) {
+        this.platform = platform;
+    }
+
+    public long getEventId() {
+        return eventId;
+    }
+
+    // Replays set the recorded id, so the event draws the same random numbers again
+    public void setEventId(long eventId) {
+        this.eventId = eventId;
+        this.random = null;
+    }
+
+    public SplittableRandom getRandom() {
+        if (random == null) {
+            random = platform.getRandomness().streamOf(eventId, streamKey);
+        }
+        return random;
+    }
+
     public String getEventName() {
         return eventName;
     }
@@ -53,6 +116,26 @@ public class TSLEventContext {
         return performState;
     }
 
+    // Local variable slots, bound by the parser. Re-read after ensureFrame, it may grow
+    public long[] getFrame() {
+        return frame;
+    }
+
+    public void ensureFrame(int size) {
+        if (frame.length < size) {
+            frame = Arrays.copyOf(frame, size);
+        }
+    }
+
+    // Working space for a single evaluation (e.g. a condition's property values), never shared with copies.
+    // Contents are only valid until the next call
+    public Object[] getScratch(int size) {
+        if (scratch.length < size) {
+            scratch = new Object[size];
+        }
+        return scratch;
+    }
+
     public TSLRule getPerformingRule() {
         return performingRule;
     }
@@ -61,4 +144,89 @@ public class TSLEventContext {
         this.performingRule = performingRule;
     }
 
+    // Index of the rule within its ruleset, NO_MATCHED_RULE when performed outside of one
+    public int getPerformingRuleIndex() {
+        return performingRuleIndex;
+    }
+
+    public void setPerformingRuleIndex(int performingRuleIndex) {
+        this.performingRuleIndex = performingRuleIndex;
+    }
+
+    // Index of the rule the ruleset performed this event with
+    public int getMatchedRule() {
+        return matchedRule;
+    }
+
+    public void setMatchedRule(int matchedRule) {
+        this.matchedRule = matchedRule;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(long deadlineNanos) {
+        this.deadline = deadlineNanos;
+        cancellation.wakeUp();
+    }
+
+    public void setTimeout(long timeout, TimeUnit unit) {
+        setDeadline(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    public boolean isDeadlineExceeded() {
+        long deadline = this.deadline;
+        return deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0;
+    }
+
+    public void cancel() {
+        cancellation.cancel();
+    }
+
+    public boolean isCancelled() {
+        return cancellation.cancelled || isDeadlineExceeded();
+    }
+
+    public void checkCancelled() throws TSLCancellationException {
+        if (cancellation.cancelled)
+            throw new TSLCancellationException("Event is cancelled -> {}", eventName);
+        if (isDeadlineExceeded())
+            throw new TSLCancellationException("Event exceeded its deadline -> {}", eventName);
+    }
+
+    // Sleeps for the given time, returns early if the event is cancelled or runs out of time
+    public void sleep(long millis) throws TSLCancellationException, InterruptedException {
+        long wakeUpTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+
+        synchronized (cancellation) {
+            while (!isCancelled()) {
+                long deadline = this.deadline;
+                long until = deadline != NO_DEADLINE && deadline - wakeUpTime < 0 ? deadline : wakeUpTime;
+                long remaining = until - System.nanoTime();
+
+                if (remaining <= 0) break;
+
+                TimeUnit.NANOSECONDS.timedWait(cancellation, remaining);
+            }
+        }
+
+        checkCancelled();
+    }
+
+    protected static class Cancellation {
+
+        protected volatile boolean cancelled;
+
+        public synchronized void cancel() {
+            this.cancelled = true;
+            this.notifyAll();
+        }
+
+        public synchronized void wakeUp() {
+            this.notifyAll();
+        }
+
+    }
+
 }
@@ -0,0 +1,157 @@
+package net.programmer.igoodie.tsl.runtime.executor;
+
+import net.programmer.igoodie.tsl.logging.TSLErrors;
+import net.programmer.igoodie.tsl.util.LatencyHistogram;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Queues tasks without blocking the producer, runs at most maxInFlight of them at once
+// and never more than one per key, so tasks of the same key keep their order.
+// Keys are compared with equals, anything with a proper equals and hashCode works.
+public class TSLBoundedDispatcher {
+
+    protected final String name;
+    protected final int maxInFlight;
+    protected final Executor executor;
+
+    protected final Map<Object, ArrayDeque<Task>> keyQueues = new HashMap<>();
+    protected final ArrayDeque<Object> readyKeys = new ArrayDeque<>();
+    protected int inFlight;
+    protected int queued;
+
+    protected final LatencyHistogram deliveryLatency = new LatencyHistogram();
+
+    public TSLBoundedDispatcher(String name, int maxInFlight) {
+        this(name, maxInFlight, createWorkerPool(name));
+    }
+
+    public TSLBoundedDispatcher(String name, int maxInFlight, Executor executor) {
+        if (maxInFlight <= 0)
+            throw new IllegalArgumentException("Expected a positive in-flight limit, found -> " + maxInFlight);
+
+        this.name = name;
+        this.maxInFlight = maxInFlight;
+        this.executor = executor;
+    }
+
+    protected static ExecutorService createWorkerPool(String name) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "Dispatcher-\"" + name + "\"-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    // Enqueue to completion time of every dispatched task
+    public LatencyHistogram getDeliveryLatency() {
+        return deliveryLatency;
+    }
+
+    public void dispatch(Object key, Runnable task) {
+        synchronized (this) {
+            ArrayDeque<Task> keyQueue = keyQueues.get(key);
+
+            if (keyQueue == null) {
+                keyQueue = new ArrayDeque<>();
+                keyQueues.put(key, keyQueue);
+                readyKeys.add(key); // Key is idle, it can start right away
+            }
+
+            keyQueue.add(new Task(task, System.nanoTime()));
+            queued++;
+        }
+
+        drain();
+    }
+
+    public synchronized int getPendingTasks() {
+        return queued;
+    }
+
+    public synchronized boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        while (queued > 0) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) return false;
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+
+        return true;
+    }
+
+    protected void drain() {
+        while (true) {
+            Object key;
+            Task task;
+
+            synchronized (this) {
+                if (inFlight >= maxInFlight || readyKeys.isEmpty()) return;
+                key = readyKeys.poll();
+                task = keyQueues.get(key).peek(); // Stays queued until it finishes, marking the key busy
+                inFlight++;
+            }
+
+            executor.execute(() -> run(key, task));
+        }
+    }
+
+    protected void run(Object key, Task task) {
+        try {
+            task.runnable.run();
+        } catch (Throwable e) {
+            TSLErrors.report("Task of " + key + " failed on " + Thread.currentThread().getName(), e);
+        } finally {
+            deliveryLatency.record(System.nanoTime() - task.enqueueTime);
+            onFinished(key);
+        }
+    }
+
+    protected void onFinished(Object key) {
+        synchronized (this) {
+            ArrayDeque<Task> keyQueue = keyQueues.get(key);
+            keyQueue.poll();
+            inFlight--;
+            queued--;
+
+            if (keyQueue.isEmpty()) {
+                keyQueues.remove(key);
+            } else {
+                readyKeys.add(key);
+            }
+
+            if (queued == 0) this.notifyAll();
+        }
+
+        drain();
+    }
+
+    protected static class Task {
+
+        protected final Runnable runnable;
+        protected final long enqueueTime;
+
+        public Task(Runnable runnable, long enqueueTime) {
+            this.runnable = runnable;
+            this.enqueueTime = enqueueTime;
+        }
+
+    }
+
+}
@@ -1,24 +1,47 @@
 package net.programmer.igoodie.tsl.runtime.executor;
 
+import net.programmer.igoodie.tsl.jfr.TSLFlightRecorder;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
 
 public class TSLExecutor implements Executor {
 
     protected final String target;
     protected final ThreadGroup threadGroup;
+    protected final Executor delegate;
 
     public TSLExecutor(String target) {
+        this(target, null);
+    }
+
+    public TSLExecutor(String target, Executor delegate) {
         this.target = target;
         this.threadGroup = new ThreadGroup("TSLExecutor-" + target);
+        this.delegate = delegate;
+    }
+
+    public String getTarget() {
+        return target;
     }
 
     @Override
     public void execute(Runnable command) {
+        if (delegate != null) {
+            delegate.execute(command);
+            return;
+        }
+
         new Thread(threadGroup, command, "Executor-\"" + target + "\"").start();
     }
 
@@ -32,33 +55,212 @@ public class TSLExecutor implements Executor {
         }, this);
     }
 
-    public <V> CompletableFuture<List<V>> resolveProcedure(Procedure<V> procedure) {
-        return CompletableFuture.supplyAsync(() -> {
-            List<V> results = new ArrayList<>();
+    // Cancelling the returned future cancels the event, releasing its queued and waiting work
+    public CompletableFuture<List<String>> resolvePerform(TSLRuleset ruleset, TSLEventContext ctx) {
+        TSLFlightRecorder.Span queueWait = TSLFlightRecorder.queueWait(ctx);
+        return bindCancellation(resolveCallable(() -> {
+            queueWait.close();
+            ctx.checkCancelled();
+            return ruleset.perform(ctx);
+        }), ctx);
+    }
 
-            for (Callable<V> command : procedure.steps) {
-                try {
-                    results.add(command.call());
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-            }
+    protected <V> CompletableFuture<V> bindCancellation(CompletableFuture<V> future, TSLEventContext ctx) {
+        future.whenComplete((result, e) -> {
+            if (e instanceof CancellationException) ctx.cancel();
+        });
+        return future;
+    }
 
-            return results;
-        }, this);
+    public <V> CompletableFuture<List<V>> resolveProcedure(Procedure<V> procedure) {
+        return new ProcedureRun<>(procedure).start();
     }
 
     public static class Procedure<V> {
 
         protected final List<Callable<V>> steps;
+        protected final List<int[]> dependencies;
+        protected int maxConcurrency;
+
+        public Procedure() {
+            this.steps = new ArrayList<>();
+            this.dependencies = new ArrayList<>();
+            this.maxConcurrency = Runtime.getRuntime().availableProcessors();
+        }
 
         @SafeVarargs
         public Procedure(Callable<V>... steps) {
             this(Arrays.asList(steps));
         }
 
+        // Plain list of steps keeps running one after another
         public Procedure(List<Callable<V>> steps) {
-            this.steps = steps;
+            this();
+            for (int i = 0; i < steps.size(); i++) {
+                addStep(steps.get(i), i == 0 ? new int[0] : new int[]{i - 1});
+            }
+        }
+
+        public int addStep(Callable<V> step, int... dependsOn) {
+            int index = steps.size();
+
+            for (int dependency : dependsOn) {
+                if (dependency < 0 || dependency >= index)
+                    throw new IllegalArgumentException("Steps can only depend on previously added steps, found -> " + dependency);
+            }
+
+            steps.add(step);
+            dependencies.add(dependsOn.clone());
+            return index;
+        }
+
+        public Procedure<V> setMaxConcurrency(int maxConcurrency) {
+            if (maxConcurrency <= 0)
+                throw new IllegalArgumentException("Expected a positive concurrency, found -> " + maxConcurrency);
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        public int size() {
+            return steps.size();
+        }
+
+    }
+
+    protected class ProcedureRun<V> {
+
+        protected final Procedure<V> procedure;
+        protected final CompletableFuture<List<V>> future;
+        protected final List<V> results;
+        protected final int[] pendingDependencies;
+        protected final List<List<Integer>> dependents;
+        protected final boolean[] skipped;
+        protected final ArrayDeque<Integer> readySteps;
+        protected int inFlight, finished;
+        protected int failedStep = -1;
+        protected Throwable failure;
+
+        public ProcedureRun(Procedure<V> procedure) {
+            int size = procedure.size();
+
+            this.procedure = procedure;
+            this.future = new CompletableFuture<>();
+            this.results = new ArrayList<>(Collections.nCopies(size, null));
+            this.pendingDependencies = new int[size];
+            this.dependents = new ArrayList<>(size);
+            this.skipped = new boolean[size];
+            this.readySteps = new ArrayDeque<>();
+
+            for (int i = 0; i < size; i++) {
+                dependents.add(new ArrayList<>());
+            }
+
+            for (int i = 0; i < size; i++) {
+                int[] dependsOn = procedure.dependencies.get(i);
+                pendingDependencies[i] = dependsOn.length;
+                for (int dependency : dependsOn) {
+                    dependents.get(dependency).add(i);
+                }
+                if (dependsOn.length == 0) {
+                    readySteps.add(i);
+                }
+            }
+        }
+
+        public CompletableFuture<List<V>> start() {
+            synchronized (this) {
+                launchReadySteps();
+                completeIfDone();
+            }
+            return future;
+        }
+
+        protected void launchReadySteps() {
+            while (inFlight < procedure.maxConcurrency && !readySteps.isEmpty()) {
+                int step = readySteps.poll();
+                Callable<V> callable = procedure.steps.get(step);
+                inFlight++;
+
+                resolveCallable(callable).whenComplete((result, e) -> onStepFinished(step, result, e));
+            }
+        }
+
+        protected synchronized void onStepFinished(int step, V result, Throwable e) {
+            inFlight--;
+            finished++;
+
+            if (e == null) {
+                results.set(step, result);
+
+                for (int dependent : dependents.get(step)) {
+                    if (--pendingDependencies[dependent] == 0 && !skipped[dependent]) {
+                        readySteps.add(dependent);
+                    }
+                }
+
+            } else {
+                if (failure == null) {
+                    failure = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    failedStep = step;
+                }
+                skipDependents(step);
+            }
+
+            launchReadySteps();
+            completeIfDone();
+        }
+
+        protected void skipDependents(int step) {
+            for (int dependent : dependents.get(step)) {
+                if (skipped[dependent]) continue;
+                skipped[dependent] = true;
+                finished++;
+                skipDependents(dependent);
+            }
+        }
+
+        protected void completeIfDone() {
+            if (finished < procedure.size() || inFlight > 0) return;
+
+            if (failure == null) {
+                future.complete(results);
+                return;
+            }
+
+            List<Integer> skippedSteps = new ArrayList<>();
+            for (int i = 0; i < skipped.length; i++) {
+                if (skipped[i]) skippedSteps.add(i);
+            }
+
+            future.completeExceptionally(new ProcedureException(failedStep, failure, results, skippedSteps));
+        }
+
+    }
+
+    public static class ProcedureException extends RuntimeException {
+
+        protected final int failedStep;
+        protected final List<?> results;
+        protected final List<Integer> skippedSteps;
+
+        public ProcedureException(int failedStep, Throwable cause, List<?> results, List<Integer> skippedSteps) {
+            super("Procedure step #" + failedStep + " failed", cause);
+            this.failedStep = failedStep;
+            this.results = Collections.unmodifiableList(results);
+            this.skippedSteps = Collections.unmodifiableList(skippedSteps);
+        }
+
+        public int getFailedStep() {
+            return failedStep;
+        }
+
+        // Results of the steps that finished, null for failed and skipped ones
+        public List<?> getResults() {
+            return results;
+        }
+
+        public List<Integer> getSkippedSteps() {
+            return skippedSteps;
         }
 
     }
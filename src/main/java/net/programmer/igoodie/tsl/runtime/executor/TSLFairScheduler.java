@@ -0,0 +1,236 @@
+package net.programmer.igoodie.tsl.runtime.executor;
+
+import net.programmer.igoodie.tsl.logging.TSLErrors;
+import net.programmer.igoodie.tsl.util.LatencyHistogram;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Deficit round robin over per-target queues, sharing a fixed set of workers.
+// Targets are charged by the worker time their tasks actually occupied. An estimate is
+// reserved when a task is taken, so other workers don't keep draining the same target
+// while its running tasks haven't been charged yet.
+public class TSLFairScheduler {
+
+    public static final long DEFAULT_QUANTUM_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    protected static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    protected final String name;
+    protected final long quantumNanos;
+    protected final Thread[] workers;
+
+    protected final Object lock = new Object();
+    protected final Map<String, TargetQueue> queues = new HashMap<>();
+    protected final ArrayDeque<TargetQueue> activeQueues = new ArrayDeque<>();
+    protected boolean shutdown;
+
+    public TSLFairScheduler(String name, int workerCount) {
+        this(name, workerCount, DEFAULT_QUANTUM_NANOS);
+    }
+
+    public TSLFairScheduler(String name, int workerCount, long quantumNanos) {
+        if (workerCount <= 0)
+            throw new IllegalArgumentException("Expected at least one worker, found -> " + workerCount);
+        if (quantumNanos <= 0)
+            throw new IllegalArgumentException("Expected a positive quantum, found -> " + quantumNanos);
+
+        this.name = name;
+        this.quantumNanos = quantumNanos;
+        this.workers = new Thread[workerCount];
+
+        for (int i = 0; i < workerCount; i++) {
+            this.workers[i] = new Thread(this::workerLoop, "FairScheduler-\"" + name + "\"-" + i);
+            this.workers[i].setDaemon(true);
+            this.workers[i].start();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public TSLExecutor createExecutor(String target) {
+        return new TSLExecutor(target, command -> submit(target, command));
+    }
+
+    public void setWeight(String target, int weight) {
+        if (weight <= 0)
+            throw new IllegalArgumentException("Expected a positive weight, found -> " + weight);
+
+        synchronized (lock) {
+            getQueue(target).weight = weight;
+        }
+    }
+
+    public void submit(String target, Runnable task) {
+        synchronized (lock) {
+            if (shutdown)
+                throw new IllegalStateException("Scheduler is already shut down.");
+
+            TargetQueue queue = getQueue(target);
+            queue.tasks.add(new Task(task, System.nanoTime()));
+
+            if (!queue.active) {
+                queue.active = true;
+                activeQueues.addLast(queue);
+            }
+            lock.notify(); // Every task can use an idle worker, not only a target's first
+        }
+    }
+
+    public Statistics getStatistics(String target) {
+        synchronized (lock) {
+            TargetQueue queue = queues.get(target);
+            return queue == null ? null : queue.statistics;
+        }
+    }
+
+    public Map<String, Statistics> getStatistics() {
+        Map<String, Statistics> statistics = new HashMap<>();
+        synchronized (lock) {
+            queues.forEach((target, queue) -> statistics.put(target, queue.statistics));
+        }
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    public void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+            lock.notifyAll();
+        }
+    }
+
+    protected TargetQueue getQueue(String target) {
+        return queues.computeIfAbsent(target, t -> new TargetQueue(t, quantumNanos));
+    }
+
+    protected void workerLoop() {
+        boolean cpuTimeSupported = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+
+        while (true) {
+            TargetQueue queue;
+            Task task;
+            long reservedNanos;
+
+            synchronized (lock) {
+                while (true) {
+                    queue = activeQueues.peekFirst();
+
+                    if (queue == null) {
+                        if (shutdown) return;
+                        try {
+                            lock.wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        continue;
+                    }
+
+                    if (queue.deficit <= 0) {
+                        // Out of credit, top up and give the next target its turn
+                        queue.deficit += quantumNanos * queue.weight;
+                        activeQueues.addLast(activeQueues.pollFirst());
+                        continue;
+                    }
+
+                    task = queue.tasks.poll();
+                    reservedNanos = queue.costEstimate;
+                    queue.deficit -= reservedNanos;
+
+                    if (queue.tasks.isEmpty()) {
+                        activeQueues.pollFirst();
+                        queue.active = false;
+                        queue.deficit = Math.min(queue.deficit, 0); // Idle targets don't bank credit
+                    }
+
+                    break;
+                }
+            }
+
+            long startTime = System.nanoTime();
+            long startCpuTime = cpuTimeSupported ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+            queue.statistics.queueLatency.record(startTime - task.enqueueTime);
+
+            try {
+                task.runnable.run();
+            } catch (Throwable e) {
+                TSLErrors.report("Task of " + queue.target + " failed on " + Thread.currentThread().getName(), e);
+            }
+
+            long workerTime = System.nanoTime() - startTime;
+            long cpuTime = cpuTimeSupported ? THREAD_MX_BEAN.getCurrentThreadCpuTime() - startCpuTime : workerTime;
+
+            queue.statistics.completedTasks.increment();
+            queue.statistics.workerTime.add(workerTime);
+            queue.statistics.cpuTime.add(cpuTime);
+
+            synchronized (lock) {
+                queue.deficit += reservedNanos - workerTime;
+                if (!queue.active) queue.deficit = Math.min(queue.deficit, 0);
+                queue.costEstimate += (workerTime - queue.costEstimate) / 8;
+            }
+        }
+    }
+
+    protected static class Task {
+
+        protected final Runnable runnable;
+        protected final long enqueueTime;
+
+        public Task(Runnable runnable, long enqueueTime) {
+            this.runnable = runnable;
+            this.enqueueTime = enqueueTime;
+        }
+
+    }
+
+    protected static class TargetQueue {
+
+        protected final String target;
+        protected final ArrayDeque<Task> tasks = new ArrayDeque<>();
+        protected final Statistics statistics = new Statistics();
+        protected int weight = 1;
+        protected long deficit;
+        protected long costEstimate;
+        protected boolean active;
+
+        public TargetQueue(String target, long costEstimate) {
+            this.target = target;
+            this.costEstimate = costEstimate;
+        }
+
+    }
+
+    public static class Statistics {
+
+        protected final LongAdder completedTasks = new LongAdder();
+        protected final LongAdder workerTime = new LongAdder();
+        protected final LongAdder cpuTime = new LongAdder();
+        protected final LatencyHistogram queueLatency = new LatencyHistogram();
+
+        public long getCompletedTasks() {
+            return completedTasks.sum();
+        }
+
+        public long getWorkerTimeNanos() {
+            return workerTime.sum();
+        }
+
+        public long getCpuTimeNanos() {
+            return cpuTime.sum();
+        }
+
+        public LatencyHistogram getQueueLatency() {
+            return queueLatency;
+        }
+
+    }
+
+}
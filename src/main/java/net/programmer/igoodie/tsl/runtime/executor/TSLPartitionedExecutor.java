@@ -0,0 +1,90 @@
+package net.programmer.igoodie.tsl.runtime.executor;
+
+import net.programmer.igoodie.tsl.jfr.TSLFlightRecorder;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+// Events sharing an ordering key run one after another, different keys run in parallel.
+public class TSLPartitionedExecutor extends TSLExecutor {
+
+    public static final Function<TSLEventContext, Object> ACTOR_KEY = orderingKeyOf("actor");
+
+    protected final Function<TSLEventContext, ?> orderingKey;
+    protected final Map<Object, CompletableFuture<?>> partitionTails;
+
+    public TSLPartitionedExecutor(String target) {
+        this(target, null, ACTOR_KEY);
+    }
+
+    public TSLPartitionedExecutor(String target, Executor delegate) {
+        this(target, delegate, ACTOR_KEY);
+    }
+
+    public TSLPartitionedExecutor(String target, Executor delegate, Function<TSLEventContext, ?> orderingKey) {
+        super(target, delegate);
+        this.orderingKey = orderingKey;
+        this.partitionTails = new ConcurrentHashMap<>();
+    }
+
+    public static Function<TSLEventContext, Object> orderingKeyOf(String propertyName) {
+        return ctx -> ctx.getEventArgs().has(propertyName)
+                ? ctx.getEventArgs().get(propertyName).toString()
+                : null;
+    }
+
+    @Override
+    public CompletableFuture<List<String>> resolvePerform(TSLRuleset ruleset, TSLEventContext ctx) {
+        TSLFlightRecorder.Span queueWait = TSLFlightRecorder.queueWait(ctx);
+        return bindCancellation(resolveOrdered(ctx, () -> {
+            queueWait.close();
+            ctx.checkCancelled();
+            return ruleset.perform(ctx);
+        }), ctx);
+    }
+
+    public <V> CompletableFuture<V> resolveOrdered(TSLEventContext ctx, Callable<V> callable) {
+        Object key = orderingKey.apply(ctx);
+
+        if (key == null) {
+            return resolveCallable(callable); // Unkeyed events aren't ordered against anything
+        }
+
+        @SuppressWarnings("unchecked")
+        CompletableFuture<V>[] execution = new CompletableFuture[1];
+
+        // The chain links executions only, never a future handed out. Cancelling one
+        // mustn't let the next event of its partition start while it's still running.
+        partitionTails.compute(key, (k, tail) -> {
+            execution[0] = tail == null
+                    ? resolveCallable(callable)
+                    : tail.handle((result, e) -> null).thenCompose(ignored -> resolveCallable(callable));
+            return execution[0];
+        });
+
+        // Partition is released before the caller hears back
+        CompletableFuture<V> future = new CompletableFuture<>();
+        execution[0].whenComplete((result, e) -> {
+            partitionTails.remove(key, execution[0]);
+            if (e == null) {
+                future.complete(result);
+            } else {
+                future.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+        });
+        return future;
+    }
+
+    public int getActivePartitions() {
+        return partitionTails.size();
+    }
+
+}
@@ -0,0 +1,279 @@
+package net.programmer.igoodie.tsl.runtime.executor;
+
+import net.programmer.igoodie.tsl.logging.TSLErrors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// One event loop per shard, every target is pinned to exactly one shard.
+// A target's tasks run in submission order on its owner thread only.
+// Shutting down stops new submissions, tasks submitted before it still run.
+public class TSLShardedScheduler {
+
+    protected final String name;
+    protected final Shard[] shards;
+    protected final Map<String, TargetState> targets;
+    protected volatile boolean shutdown;
+
+    public TSLShardedScheduler(String name) {
+        this(name, Runtime.getRuntime().availableProcessors());
+    }
+
+    public TSLShardedScheduler(String name, int shardCount) {
+        if (shardCount <= 0)
+            throw new IllegalArgumentException("Expected at least one shard, found -> " + shardCount);
+
+        this.name = name;
+        this.shards = new Shard[shardCount];
+        this.targets = new ConcurrentHashMap<>();
+
+        for (int i = 0; i < shardCount; i++) {
+            this.shards[i] = new Shard(i, "ShardedScheduler-\"" + name + "\"-" + i);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public TSLExecutor createExecutor(String target) {
+        return new TSLExecutor(target, command -> submit(target, command));
+    }
+
+    public void submit(String target, Runnable task) {
+        if (shutdown)
+            throw new IllegalStateException("Scheduler is already shut down.");
+
+        TargetState state = getState(target);
+        state.submittedTasks.increment();
+
+        synchronized (state) {
+            if (state.pendingTasks != null) {
+                state.pendingTasks.add(task); // Migration in progress, hand over once the old shard drains
+                return;
+            }
+            if (!state.shard.enqueue(task))
+                throw new IllegalStateException("Scheduler is already shut down.");
+        }
+    }
+
+    public int getShardIndex(String target) {
+        TargetState state = getState(target);
+        synchronized (state) {
+            return state.shard.index;
+        }
+    }
+
+    public boolean isOwnerThread(String target) {
+        TargetState state = getState(target);
+        synchronized (state) {
+            return state.shard.thread == Thread.currentThread();
+        }
+    }
+
+    public boolean migrate(String target, int shardIndex) {
+        if (shardIndex < 0 || shardIndex >= shards.length)
+            throw new IndexOutOfBoundsException("Unknown shard -> " + shardIndex);
+
+        TargetState state = getState(target);
+        Shard destination = shards[shardIndex];
+
+        synchronized (state) {
+            if (state.shard == destination || state.pendingTasks != null) return false;
+
+            // Runs after every task already queued on the old shard
+            Shard source = state.shard;
+            boolean queued = source.enqueue(() -> {
+                List<Runnable> handedOver;
+                synchronized (state) {
+                    handedOver = state.pendingTasks;
+                    state.pendingTasks = null;
+                    if (destination.enqueueAll(handedOver)) {
+                        state.shard = destination;
+                        return;
+                    }
+                }
+                // Destination already shut down, the old shard drains them instead
+                handedOver.forEach(Shard::runTask);
+            });
+
+            if (!queued) return false;
+            state.pendingTasks = new ArrayList<>();
+        }
+
+        return true;
+    }
+
+    // Moves hot targets from the busiest shard to the idlest one,
+    // based on the tasks submitted since the previous call
+    public int rebalance() {
+        long[] shardLoads = new long[shards.length];
+        Map<TargetState, Long> targetLoads = new HashMap<>();
+        Map<TargetState, Integer> targetShards = new HashMap<>();
+
+        for (TargetState state : targets.values()) {
+            long load = state.submittedTasks.sumThenReset();
+            if (load == 0) continue;
+            int shardIndex;
+            synchronized (state) {
+                shardIndex = state.shard.index;
+            }
+            targetLoads.put(state, load);
+            targetShards.put(state, shardIndex);
+            shardLoads[shardIndex] += load;
+        }
+
+        int moved = 0;
+
+        for (int round = 0; round < shards.length; round++) {
+            int busiest = 0, idlest = 0;
+            for (int i = 1; i < shards.length; i++) {
+                if (shardLoads[i] > shardLoads[busiest]) busiest = i;
+                if (shardLoads[i] < shardLoads[idlest]) idlest = i;
+            }
+
+            long imbalance = shardLoads[busiest] - shardLoads[idlest];
+            TargetState candidate = null;
+            long candidateLoad = 0;
+
+            for (Map.Entry<TargetState, Long> entry : targetLoads.entrySet()) {
+                TargetState state = entry.getKey();
+                long load = entry.getValue();
+                if (targetShards.get(state) != busiest) continue;
+                if (load >= imbalance) continue; // Moving it wouldn't improve anything
+                if (load > candidateLoad) {
+                    candidate = state;
+                    candidateLoad = load;
+                }
+            }
+
+            if (candidate == null || !migrate(candidate.target, idlest)) break;
+
+            targetLoads.remove(candidate);
+            shardLoads[busiest] -= candidateLoad;
+            shardLoads[idlest] += candidateLoad;
+            moved++;
+        }
+
+        return moved;
+    }
+
+    public long getExecutedTasks(int shardIndex) {
+        return shards[shardIndex].executedTasks.sum();
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        for (Shard shard : shards) {
+            shard.close();
+        }
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Shard shard : shards) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining > 0) TimeUnit.NANOSECONDS.timedJoin(shard.thread, remaining);
+            if (shard.thread.isAlive()) return false;
+        }
+        return true;
+    }
+
+    protected TargetState getState(String target) {
+        return targets.computeIfAbsent(target, t -> new TargetState(t, shards[shardOf(t)]));
+    }
+
+    protected int shardOf(String target) {
+        int hash = target.hashCode();
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, shards.length);
+    }
+
+    protected static class TargetState {
+
+        protected final String target;
+        protected final LongAdder submittedTasks = new LongAdder();
+        protected Shard shard;
+        protected List<Runnable> pendingTasks;
+
+        public TargetState(String target, Shard shard) {
+            this.target = target;
+            this.shard = shard;
+        }
+
+    }
+
+    protected static class Shard {
+
+        // Queued last on shutdown, the loop exits once it reaches it
+        protected static final Runnable CLOSE = () -> {};
+
+        protected final int index;
+        protected final Thread thread;
+        protected final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+        protected final LongAdder executedTasks = new LongAdder();
+        protected boolean closed;
+
+        public Shard(int index, String threadName) {
+            this.index = index;
+            this.thread = new Thread(this::eventLoop, threadName);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        protected synchronized boolean enqueue(Runnable task) {
+            if (closed) return false;
+            tasks.add(task);
+            return true;
+        }
+
+        protected synchronized boolean enqueueAll(List<Runnable> pending) {
+            if (closed) return false;
+            tasks.addAll(pending);
+            return true;
+        }
+
+        protected synchronized void close() {
+            if (closed) return;
+            closed = true;
+            tasks.add(CLOSE);
+        }
+
+        protected void eventLoop() {
+            while (true) {
+                Runnable task;
+                try {
+                    task = tasks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                if (task == CLOSE) return;
+                runTask(task);
+                executedTasks.increment();
+            }
+        }
+
+        protected static void runTask(Runnable task) {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                TSLErrors.report("Task failed on " + Thread.currentThread().getName(), e);
+            }
+        }
+
+    }
+
+}
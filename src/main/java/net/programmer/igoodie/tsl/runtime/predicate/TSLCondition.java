@@ -0,0 +1,239 @@
+package net.programmer.igoodie.tsl.runtime.predicate;
+
+import net.programmer.igoodie.tsl.runtime.TSLRule;
+import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+// Compiled AND/OR/NOT tree over comparisons, evaluated with short-circuiting.
+// Every distinct property gets a slot, so it is read at most once per evaluation.
+public class TSLCondition implements BiPredicate<TSLRule, TSLEventContext> {
+
+    protected static final Object UNREAD = new Object();
+
+    protected final Node root;
+    protected final String[] fieldNames;
+
+    public TSLCondition(Node root) {
+        Map<String, Integer> slots = new LinkedHashMap<>();
+        this.root = root.compile(slots);
+        this.fieldNames = slots.keySet().toArray(new String[0]);
+    }
+
+    public List<String> getFieldNames() {
+        return Arrays.asList(fieldNames);
+    }
+
+    // Property values go to the context's scratch space, so a test allocates nothing
+    @Override
+    public boolean test(TSLRule rule, TSLEventContext ctx) {
+        Object[] values = ctx.getScratch(fieldNames.length);
+        Arrays.fill(values, 0, fieldNames.length, UNREAD);
+        return root.test(rule, ctx, values);
+    }
+
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+
+    protected static Object read(TSLRule rule, TSLEventContext ctx, Object[] values, int slot, String fieldName) {
+        Object value = values[slot];
+
+        if (value == UNREAD) {
+            TSLEvent.Property<?> property = rule.getEvent().getPropertyType(fieldName);
+            value = property == null ? null : property.read(ctx.getEventArgs()).orElse(null);
+            values[slot] = value;
+        }
+
+        return value;
+    }
+
+    public static abstract class Node {
+
+        protected abstract Node compile(Map<String, Integer> slots);
+
+        protected abstract boolean test(TSLRule rule, TSLEventContext ctx, Object[] values);
+
+        public static Node comparison(String fieldName, TSLComparator comparator) {
+            return new Comparison(fieldName, comparator);
+        }
+
+        public static Node and(Node left, Node right) {
+            return new And(flatten(And.class, left, right));
+        }
+
+        public static Node or(Node left, Node right) {
+            return new Or(flatten(Or.class, left, right));
+        }
+
+        public static Node not(Node operand) {
+            return operand instanceof Not ? ((Not) operand).operand : new Not(operand);
+        }
+
+        // A AND (B AND C) becomes a single AND over three operands
+        protected static Node[] flatten(Class<? extends Junction> type, Node left, Node right) {
+            List<Node> operands = new ArrayList<>();
+            for (Node node : new Node[]{left, right}) {
+                if (type.isInstance(node)) {
+                    operands.addAll(Arrays.asList(((Junction) node).operands));
+                } else {
+                    operands.add(node);
+                }
+            }
+            return operands.toArray(new Node[0]);
+        }
+
+    }
+
+    protected static class Comparison extends Node {
+
+        protected final String fieldName;
+        protected final TSLComparator comparator;
+        protected final int slot;
+
+        public Comparison(String fieldName, TSLComparator comparator) {
+            this(fieldName, comparator, -1);
+        }
+
+        protected Comparison(String fieldName, TSLComparator comparator, int slot) {
+            this.fieldName = fieldName;
+            this.comparator = comparator;
+            this.slot = slot;
+        }
+
+        @Override
+        protected Node compile(Map<String, Integer> slots) {
+            Integer slot = slots.get(fieldName);
+
+            if (slot == null) {
+                slot = slots.size();
+                slots.put(fieldName, slot);
+            }
+
+            return new Comparison(fieldName, comparator, slot);
+        }
+
+        @Override
+        protected boolean test(TSLRule rule, TSLEventContext ctx, Object[] values) {
+            return comparator.compare(read(rule, ctx, values, slot, fieldName));
+        }
+
+        @Override
+        public String toString() {
+            return fieldName + " " + comparator.getClass().getSimpleName();
+        }
+
+    }
+
+    protected static abstract class Junction extends Node {
+
+        protected final Node[] operands;
+
+        public Junction(Node[] operands) {
+            this.operands = operands;
+        }
+
+        protected Node[] compileOperands(Map<String, Integer> slots) {
+            Node[] compiled = new Node[operands.length];
+            for (int i = 0; i < operands.length; i++) {
+                compiled[i] = operands[i].compile(slots);
+            }
+            return compiled;
+        }
+
+        protected String toString(String operator) {
+            StringBuilder sb = new StringBuilder("(");
+            for (int i = 0; i < operands.length; i++) {
+                if (i != 0) sb.append(" ").append(operator).append(" ");
+                sb.append(operands[i]);
+            }
+            return sb.append(")").toString();
+        }
+
+    }
+
+    protected static class And extends Junction {
+
+        public And(Node[] operands) {
+            super(operands);
+        }
+
+        @Override
+        protected Node compile(Map<String, Integer> slots) {
+            return new And(compileOperands(slots));
+        }
+
+        @Override
+        protected boolean test(TSLRule rule, TSLEventContext ctx, Object[] values) {
+            for (Node operand : operands) {
+                if (!operand.test(rule, ctx, values)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return toString("AND");
+        }
+
+    }
+
+    protected static class Or extends Junction {
+
+        public Or(Node[] operands) {
+            super(operands);
+        }
+
+        @Override
+        protected Node compile(Map<String, Integer> slots) {
+            return new Or(compileOperands(slots));
+        }
+
+        @Override
+        protected boolean test(TSLRule rule, TSLEventContext ctx, Object[] values) {
+            for (Node operand : operands) {
+                if (operand.test(rule, ctx, values)) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return toString("OR");
+        }
+
+    }
+
+    protected static class Not extends Node {
+
+        protected final Node operand;
+
+        public Not(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        protected Node compile(Map<String, Integer> slots) {
+            return new Not(operand.compile(slots));
+        }
+
+        @Override
+        protected boolean test(TSLRule rule, TSLEventContext ctx, Object[] values) {
+            return !operand.test(rule, ctx, values);
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + operand;
+        }
+
+    }
+
+}
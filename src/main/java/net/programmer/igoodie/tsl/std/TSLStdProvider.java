@@ -0,0 +1,32 @@
+package net.programmer.igoodie.tsl.std;
+
+import net.programmer.igoodie.tsl.TSLDefinitionProvider;
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.std.action.*;
+import net.programmer.igoodie.tsl.std.comparator.*;
+
+public class TSLStdProvider implements TSLDefinitionProvider {
+
+    @Override
+    public void registerDefinitions(TSLPlatform platform) {
+        platform.registerLazyAction("WAIT", () -> WaitAction::new);
+        platform.registerLazyAction("SEQUENTIALLY", () -> SequentiallyAction::new);
+        platform.registerLazyAction("EITHER", () -> EitherAction::new);
+        platform.registerLazyAction("NOTHING", () -> NothingAction::new);
+        platform.registerLazyAction("FOR", () -> ForAction::new);
+        platform.registerLazyAction("IF", () -> IfAction::new);
+        platform.registerLazyAction("REFLECT", () -> ReflectAction::new);
+
+        platform.registerLazyComparator("IN RANGE", () -> InRangeComparator::new);
+        platform.registerLazyComparator("CONTAINS", () -> ContainsComparator::new);
+        platform.registerLazyComparator("IS", () -> IsComparator::new);
+        platform.registerLazyComparator("PREFIX", () -> PrefixComparator::new);
+        platform.registerLazyComparator("POSTFIX", () -> PostfixComparator::new);
+        platform.registerLazyComparator("=", () -> EqualsComparator::new);
+        platform.registerLazyComparator(">", () -> GtComparator::new);
+        platform.registerLazyComparator(">=", () -> GteComparator::new);
+        platform.registerLazyComparator("<", () -> LtComparator::new);
+        platform.registerLazyComparator("<=", () -> LteComparator::new);
+    }
+
+}
@@ -4,6 +4,7 @@ import net.programmer.igoodie.goodies.util.accessor.ListAccessor;
 import net.programmer.igoodie.tsl.TSLPlatform;
 import net.programmer.igoodie.tsl.exception.TSLPerformingException;
 import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.jfr.TSLFlightRecorder;
 import net.programmer.igoodie.tsl.parser.TSLParser;
 import net.programmer.igoodie.tsl.runtime.action.TSLAction;
 import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
@@ -11,6 +12,7 @@ import net.programmer.igoodie.tsl.util.Pair;
 import net.programmer.igoodie.tsl.util.Utils;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -30,7 +32,8 @@ public class EitherAction extends TSLAction {
         super(platform, args);
         args = consumeAllMessagePart(args);
 
-        List<List<String>> actionChunks = Utils.splitIntoChunks(args, arg -> arg.equalsIgnoreCase("OR"));
+        List<List<String>> actionChunks = Utils.splitIntoChunks(args, arg -> arg.equalsIgnoreCase("OR"),
+                arg -> arg.equalsIgnoreCase("IF"), arg -> arg.equalsIgnoreCase("THEN")); // IF conditions have their own OR
 
         if (actionChunks.size() <= 1) {
             throw new TSLSyntaxException("Expected at least 2 actions, instead found -> {}", actionChunks.size());
@@ -57,6 +60,8 @@ public class EitherAction extends TSLAction {
                 );
             }
         }
+
+        this.actionSampler.build();
     }
 
     protected Pair<Integer, List<String>> parseWeight(List<String> tokens) throws TSLSyntaxException {
@@ -122,14 +127,23 @@ public class EitherAction extends TSLAction {
                 .filter(arg -> arg.equalsIgnoreCase("DISPLAYING"))
                 .orElseThrow(() -> new TSLSyntaxException("Expected 'DISPLAYING' after 'ALL'"));
 
-        this.message = args.subList(indexAll + 2, args.size());
+        setMessage(args.subList(indexAll + 2, args.size()));
 
         return args.subList(0, indexAll + 2);
     }
 
     @Override
     public boolean perform(TSLEventContext ctx) throws TSLPerformingException {
-        return actionSampler.sample().perform(ctx);
+        ctx.checkCancelled();
+        return TSLFlightRecorder.perform(this, actionSampler.sample(ctx.getRandom().nextDouble()), ctx);
+    }
+
+    @Override
+    public boolean readsLocalsFromArgsOnly() {
+        for (WeightedSampler<TSLAction>.Node node : actionSampler.nodes) {
+            if (!node.data.readsLocalsFromArgsOnly()) return false;
+        }
+        return true;
     }
 
     public enum SamplerMode {DEFAULT, WEIGHTED, PERCENTAGE}
@@ -171,56 +185,113 @@ public class EitherAction extends TSLAction {
         }
     }
 
+    // Walker/Vose alias method, O(1) sampling with a single uniform draw
     public static class WeightedSampler<T> {
 
-        public class Node implements Comparable<Node> {
+        public class Node {
 
             protected int weight;
             protected T data;
 
-            @Override
-            public int compareTo(Node other) {
-                return Integer.compare(this.weight, other.weight);
-            }
-
         }
 
-        protected Random random;
         protected List<Node> nodes;
+        protected volatile AliasTable table;
 
         public WeightedSampler() {
-            this.random = new Random();
             this.nodes = new ArrayList<>();
         }
 
         public void addElement(T data, int weight) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("Expected a non-negative weight, found -> " + weight);
+            }
+
             Node node = new Node();
             node.weight = weight;
             node.data = data;
 
             this.nodes.add(node);
-            Collections.sort(this.nodes);
+            this.table = null;
         }
 
-        public T sample() {
+        public synchronized void build() {
             if (nodes.isEmpty()) {
                 throw new IllegalStateException("No elements to sample from.");
             }
 
-            Node selectedNode = null;
-            double highestThreshold = -1;
+            int n = nodes.size();
+            double totalWeight = 0;
+            for (Node node : nodes) totalWeight += node.weight;
+
+            Object[] data = new Object[n];
+            double[] probability = new double[n];
+            int[] alias = new int[n];
+            double[] scaled = new double[n];
+            int[] small = new int[n], large = new int[n];
+            int smallCount = 0, largeCount = 0;
+
+            for (int i = 0; i < n; i++) {
+                data[i] = nodes.get(i).data;
+                alias[i] = i;
+                // All-zero weights fall back to a uniform pick
+                scaled[i] = totalWeight == 0 ? 1.0 : (double) nodes.get(i).weight * n / totalWeight;
+                if (scaled[i] < 1.0) small[smallCount++] = i;
+                else large[largeCount++] = i;
+            }
+
+            while (smallCount > 0 && largeCount > 0) {
+                int less = small[--smallCount];
+                int more = large[--largeCount];
+
+                probability[less] = scaled[less];
+                alias[less] = more;
+
+                scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+                if (scaled[more] < 1.0) small[smallCount++] = more;
+                else large[largeCount++] = more;
+            }
+
+            // Whatever is left is 1.0, give or take floating point error
+            while (largeCount > 0) probability[large[--largeCount]] = 1.0;
+            while (smallCount > 0) probability[small[--smallCount]] = 1.0;
+
+            this.table = new AliasTable(data, probability, alias);
+        }
+
+        public T sample() {
+            return sample(ThreadLocalRandom.current().nextDouble());
+        }
+
+        // Maps a single uniform value in [0, 1) to an element
+        @SuppressWarnings("unchecked")
+        public T sample(double uniform) {
+            AliasTable table = this.table;
+
+            if (table == null) {
+                build();
+                table = this.table;
+            }
+
+            double scaled = uniform * table.data.length;
+            int column = Math.min((int) scaled, table.data.length - 1);
+            double coin = scaled - column;
+
+            return (T) table.data[coin < table.probability[column] ? column : table.alias[column]];
+        }
+
+        protected static class AliasTable {
 
-            for (Node node : nodes) {
-                double threshold = random.nextDouble() * node.weight;
+            protected final Object[] data;
+            protected final double[] probability;
+            protected final int[] alias;
 
-                if (threshold > highestThreshold) {
-                    highestThreshold = threshold;
-                    selectedNode = node;
-                }
+            public AliasTable(Object[] data, double[] probability, int[] alias) {
+                this.data = data;
+                this.probability = probability;
+                this.alias = alias;
             }
 
-            assert selectedNode != null;
-            return selectedNode.data;
         }
 
     }
@@ -4,19 +4,24 @@ import net.programmer.igoodie.goodies.util.accessor.ListAccessor;
 import net.programmer.igoodie.tsl.TSLPlatform;
 import net.programmer.igoodie.tsl.exception.TSLPerformingException;
 import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.jfr.TSLFlightRecorder;
+import net.programmer.igoodie.tsl.parser.TSLLocalScope;
 import net.programmer.igoodie.tsl.parser.TSLParser;
 import net.programmer.igoodie.tsl.runtime.action.TSLAction;
 import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
 
 import java.util.List;
+import java.util.regex.Matcher;
 
 // TODO: FOR <N> TIMES
 // TODO: FOR i FROM <N> TO <N> [INCREASING <N>]?
 public class ForAction extends TSLAction {
 
     protected String variableName;
+    protected int variableSlot = -1;
     protected int from, to, inc;
     protected TSLAction action;
+    protected boolean batchable;
 
     public ForAction(TSLPlatform platform, List<String> args) throws TSLSyntaxException {
         super(platform, args);
@@ -24,7 +29,36 @@ public class ForAction extends TSLAction {
 
         args = consumeLoopHeader(args);
 
-        action = new TSLParser(platform, args).parseAction();
+        TSLLocalScope scope = TSLLocalScope.current();
+        boolean ownsScope = scope == null; // Parsed outside a rule
+        if (ownsScope) scope = TSLLocalScope.open();
+
+        Integer shadowedSlot = variableName == null ? null : scope.getSlot(variableName);
+        if (variableName != null) variableSlot = scope.declare(variableName);
+
+        try {
+            action = new TSLParser(platform, args).parseAction();
+        } finally {
+            if (variableName != null) scope.restore(variableName, shadowedSlot);
+            if (ownsScope) scope.close();
+        }
+
+        // Repetitions are interchangeable, unless the body reads the loop variable
+        batchable = variableName == null || action.readsLocalsFromArgsOnly() && !referencesVariable(args);
+    }
+
+    protected boolean referencesVariable(List<String> args) {
+        for (String arg : args) {
+            Matcher matcher = EXPRESSION_PATTERN.matcher(arg);
+            while (matcher.find()) {
+                if (matcher.group(1).equals(variableName)) return true;
+            }
+        }
+        return false;
+    }
+
+    public long getIterations() {
+        return to < from ? 0 : ((long) to - from) / inc + 1;
     }
 
     protected List<String> consumeLoopHeader(List<String> tokens) throws TSLSyntaxException {
@@ -51,6 +85,9 @@ public class ForAction extends TSLAction {
 
             if (tokenAccessor.get(5).filter(t -> t.equalsIgnoreCase("INCREASING")).isPresent()) {
                 this.inc = parseInt(tokenAccessor.get(6).orElse(null));
+                if (this.inc <= 0) {
+                    throw new TSLSyntaxException("Expected a positive increment, found -> {}", this.inc);
+                }
                 headerEndIndex += 2;
             } else {
                 this.inc = 1;
@@ -64,18 +101,51 @@ public class ForAction extends TSLAction {
 
     @Override
     public boolean perform(TSLEventContext ctx) throws TSLPerformingException {
+        if (batchable) {
+            return performBatched(ctx, getIterations());
+        }
+
         boolean success = true;
 
-        for (int i = from; i <= to; i += inc) {
-            if (variableName != null)
-                ctx.getPerformState().put(variableName, i);
-            success &= action.perform(ctx);
+        if (variableSlot != -1)
+            ctx.ensureFrame(variableSlot + 1);
+
+        // Counted in long, so a loop ending at Integer.MAX_VALUE doesn't wrap around
+        for (long i = from; i <= to; i += inc) {
+            ctx.checkCancelled();
+            if (variableSlot != -1)
+                ctx.getFrame()[variableSlot] = i;
+            success &= TSLFlightRecorder.perform(this, action, ctx);
         }
 
-        if (variableName != null)
-            ctx.getPerformState().remove(variableName);
+        return success;
+    }
+
+    @Override
+    public boolean performRepeated(TSLEventContext ctx, int iterations) throws TSLPerformingException {
+        if (batchable) {
+            return performBatched(ctx, iterations * getIterations()); // At most 2^31 * 2^32, fits a long
+        }
+
+        return super.performRepeated(ctx, iterations);
+    }
+
+    protected boolean performBatched(TSLEventContext ctx, long iterations) throws TSLPerformingException {
+        boolean success = true;
+
+        while (iterations > 0) {
+            int chunk = (int) Math.min(iterations, Integer.MAX_VALUE);
+            ctx.checkCancelled();
+            success &= TSLFlightRecorder.performRepeated(this, action, ctx, chunk);
+            iterations -= chunk;
+        }
 
         return success;
     }
 
+    @Override
+    public boolean readsLocalsFromArgsOnly() {
+        return action.readsLocalsFromArgsOnly();
+    }
+
 }
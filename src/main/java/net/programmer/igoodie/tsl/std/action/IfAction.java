@@ -3,6 +3,7 @@ package net.programmer.igoodie.tsl.std.action;
 import net.programmer.igoodie.tsl.TSLPlatform;
 import net.programmer.igoodie.tsl.exception.TSLPerformingException;
 import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.jfr.TSLFlightRecorder;
 import net.programmer.igoodie.tsl.parser.CharStream;
 import net.programmer.igoodie.tsl.parser.TSLLexer;
 import net.programmer.igoodie.tsl.parser.TSLParser;
@@ -10,18 +11,21 @@ import net.programmer.igoodie.tsl.runtime.TSLRuleset;
 import net.programmer.igoodie.tsl.runtime.action.TSLAction;
 import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
 import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
-import net.programmer.igoodie.tsl.runtime.predicate.TSLPredicate;
+import net.programmer.igoodie.tsl.runtime.predicate.TSLCondition;
 import net.programmer.igoodie.tsl.util.Pair;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.IntStream;
 
 // IF <C> THEN <A> [ELSE <A>]
+// <C> := <C> OR <C> | <C> AND <C> | NOT <C> | ( <C> ) | <field> <comparator> <value>
+// ( and ) are words of their own, separated by spaces
 public class IfAction extends TSLAction {
 
-    protected TSLPredicate condition;
+    protected TSLCondition condition;
     protected TSLAction thenAction;
     protected TSLAction elseAction;
 
@@ -30,7 +34,7 @@ public class IfAction extends TSLAction {
 
         splitIfElse(args).using((ifPart, elsePart) -> {
             splitCondition(ifPart).using((conditionArgs, bodyArgs) -> {
-                this.condition = new TSLParser(platform, conditionArgs).parsePredicate();
+                this.condition = new TSLParser(platform, conditionArgs).parseCondition();
                 this.thenAction = new TSLParser(platform, bodyArgs).parseAction();
             });
 
@@ -75,13 +79,18 @@ public class IfAction extends TSLAction {
         }
 
         if (condition.test(ctx.getPerformingRule(), ctx)) {
-            return thenAction.perform(ctx);
+            return TSLFlightRecorder.perform(this, thenAction, ctx);
 
         } else if (elseAction != null) {
-            return elseAction.perform(ctx);
+            return TSLFlightRecorder.perform(this, elseAction, ctx);
         }
 
         return true;
     }
 
+    @Override
+    public boolean readsLocalsFromArgsOnly() {
+        return readLocalsFromArgsOnly(Arrays.asList(thenAction, elseAction));
+    }
+
 }
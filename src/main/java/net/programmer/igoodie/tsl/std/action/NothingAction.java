@@ -24,4 +24,9 @@ public class NothingAction extends TSLAction {
         return true;
     }
 
+    @Override
+    public boolean readsLocalsFromArgsOnly() {
+        return true;
+    }
+
 }
@@ -4,6 +4,7 @@ import net.programmer.igoodie.goodies.util.accessor.ListAccessor;
 import net.programmer.igoodie.tsl.TSLPlatform;
 import net.programmer.igoodie.tsl.exception.TSLPerformingException;
 import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.jfr.TSLFlightRecorder;
 import net.programmer.igoodie.tsl.parser.CharStream;
 import net.programmer.igoodie.tsl.parser.TSLLexer;
 import net.programmer.igoodie.tsl.parser.TSLParser;
@@ -11,10 +12,13 @@ import net.programmer.igoodie.tsl.runtime.TSLRuleset;
 import net.programmer.igoodie.tsl.runtime.action.TSLAction;
 import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
 import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import net.programmer.igoodie.tsl.runtime.executor.TSLBoundedDispatcher;
 import net.programmer.igoodie.tsl.runtime.executor.TSLExecutor;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntUnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -23,13 +27,69 @@ import java.util.stream.Stream;
 // REFLECT * [ONLY]? <action>
 public class ReflectAction extends TSLAction {
 
-    protected static List<ReflectProvider> providers = new ArrayList<>();
+    protected static final ReflectProvider[] NO_PROVIDERS = new ReflectProvider[0];
+    protected static final Object providersLock = new Object();
+
+    // Copy-on-write, performs read one immutable snapshot without locking
+    protected static volatile ReflectProvider[] providers = NO_PROVIDERS;
+
+    // Every provider gets one batch per REFLECT, queued on the dispatcher so REFLECT returns right away.
+    // Ordering is per batch, keyed per provider and original target: a batch holds every reflected target
+    // of one event, so each target still sees that original target's events in order, and a slow batch
+    // only holds up later batches of the same group. Providers that need targets independent of each
+    // other hand each context to that target's own executor (see main). Setting null delivers inline.
+    public static final int DEFAULT_MAX_IN_FLIGHT = 16;
+    protected static volatile TSLBoundedDispatcher dispatcher = new TSLBoundedDispatcher("Reflect", DEFAULT_MAX_IN_FLIGHT);
+
+    public static TSLBoundedDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public static void setDispatcher(TSLBoundedDispatcher dispatcher) {
+        ReflectAction.dispatcher = dispatcher;
+    }
+
+    // Versioned target sets, per provider and per original target
+    public static final int MAX_TARGET_SETS = 1024;
+    protected static final Map<ReflectProvider, Map<String, TargetSet>> targetSets = new ConcurrentHashMap<>();
 
     public static ReflectProvider registerProvider(ReflectProvider provider) {
-        providers.add(provider);
+        synchronized (providersLock) {
+            ReflectProvider[] newProviders = Arrays.copyOf(providers, providers.length + 1);
+            newProviders[providers.length] = provider;
+            providers = newProviders;
+        }
         return provider;
     }
 
+    public static boolean unregisterProvider(ReflectProvider provider) {
+        synchronized (providersLock) {
+            ReflectProvider[] newProviders = Arrays.stream(providers)
+                    .filter(p -> p != provider)
+                    .toArray(ReflectProvider[]::new);
+            boolean removed = newProviders.length != providers.length;
+            providers = newProviders.length == 0 ? NO_PROVIDERS : newProviders;
+            targetSets.remove(provider);
+            return removed;
+        }
+    }
+
+    public static List<ReflectProvider> getProviders() {
+        return Collections.unmodifiableList(Arrays.asList(providers));
+    }
+
+    public static boolean isRegistered(ReflectProvider provider) {
+        for (ReflectProvider registered : providers) {
+            if (registered == provider) return true;
+        }
+        return false;
+    }
+
+    public static int getCachedTargetSets(ReflectProvider provider) {
+        Map<String, TargetSet> providerSets = targetSets.get(provider);
+        return providerSets == null ? 0 : providerSets.size();
+    }
+
     protected boolean greedyTargets;
     protected int randomTargets;
     protected boolean targetsOnly;
@@ -76,57 +136,198 @@ public class ReflectAction extends TSLAction {
 
     @Override
     public boolean perform(TSLEventContext ctx) throws TSLPerformingException {
-        Set<String> targets;
-
+        ReflectProvider[] providers = ReflectAction.providers;
         String originalTarget = ctx.getTarget();
-
-        if (this.greedyTargets) {
-            targets = providers.stream()
-                    .map(provider -> provider.getAllEventTargets(originalTarget))
-                    .flatMap(Collection::stream)
-                    .collect(Collectors.toSet());
-        } else if (this.randomTargets > 0) {
-            targets = providers.stream()
-                    .map(provider -> provider.getRandomEventTargets(originalTarget, this.randomTargets))
-                    .flatMap(Collection::stream)
-                    .collect(Collectors.toSet());
-        } else {
-            targets = providers.stream()
-                    .map(provider -> provider.getEventTargets(originalTarget, this.targets))
-                    .flatMap(Collection::stream)
-                    .collect(Collectors.toSet());
+        Set<String> targets = new LinkedHashSet<>();
+
+        for (ReflectProvider provider : providers) {
+            // Explicit targets never need the provider's full set
+            if (this.greedyTargets) {
+                String[] targetSet = getTargetSet(provider, originalTarget);
+                if (targetSet != null) Collections.addAll(targets, targetSet);
+                else targets.addAll(provider.getAllEventTargets(originalTarget));
+            } else if (this.randomTargets > 0) {
+                String[] targetSet = getTargetSet(provider, originalTarget);
+                if (targetSet != null) sampleTargets(targetSet, this.randomTargets, ctx.getRandom()::nextInt, targets);
+                else targets.addAll(provider.getRandomEventTargets(originalTarget, this.randomTargets, ctx.getRandom()));
+            } else {
+                targets.addAll(provider.getEventTargets(originalTarget, this.targets));
+            }
         }
 
         boolean success = false;
 
         if (!this.targetsOnly) {
-            success = this.action.perform(ctx);
+            ctx.checkCancelled();
+            success = TSLFlightRecorder.perform(this, this.action, ctx);
         }
 
-        targets.forEach(target -> {
-            TSLEventContext targetCtx = ctx.copy();
-            targetCtx.setTarget(target);
-            providers.forEach(provider -> provider.onEventReflection(
-                    originalTarget,
-                    this.action,
-                    targetCtx));
-        });
+        ctx.checkCancelled();
+
+        if (targets.isEmpty()) return success;
+
+        TSLBoundedDispatcher dispatcher = ReflectAction.dispatcher;
+
+        try (TSLFlightRecorder.Span span = TSLFlightRecorder.reflect(ctx, targets.size(), dispatcher != null)) {
+            List<TSLEventContext> targetContexts = new ArrayList<>(targets.size());
+            for (String target : targets) {
+                TSLEventContext targetCtx = ctx.copy();
+                targetCtx.setTarget(target);
+                targetContexts.add(targetCtx);
+            }
+
+            List<TSLEventContext> reflectedContexts = Collections.unmodifiableList(targetContexts);
+
+            for (ReflectProvider provider : providers) {
+                if (dispatcher != null) {
+                    dispatcher.dispatch(groupKey(provider, originalTarget),
+                            () -> deliver(provider, originalTarget, ctx, reflectedContexts));
+                } else {
+                    deliver(provider, originalTarget, ctx, reflectedContexts);
+                }
+            }
+
+            return success;
+        }
+    }
+
+    protected void deliver(ReflectProvider provider, String originalTarget, TSLEventContext ctx, List<TSLEventContext> reflectedContexts) {
+        if (ctx.isCancelled()) return; // Copies share the original's cancellation
+        provider.onEventReflectionBatch(originalTarget, this.action, reflectedContexts);
+    }
+
+    protected static GroupKey groupKey(ReflectProvider provider, String originalTarget) {
+        return new GroupKey(provider, originalTarget);
+    }
+
+    protected static String[] getTargetSet(ReflectProvider provider, String originalTarget) {
+        long version = provider.getTargetsVersion(originalTarget);
+
+        if (version == ReflectProvider.UNVERSIONED) return null;
+
+        Map<String, TargetSet> providerSets = targetSets.get(provider);
+
+        if (providerSets == null) {
+            // Unregistering removes the provider's sets after swapping the providers, so checking here
+            // keeps a perform still holding the old snapshot from bringing them back
+            providerSets = targetSets.compute(provider, (p, sets) -> sets != null ? sets
+                    : isRegistered(p) ? new ConcurrentHashMap<>() : null);
+            if (providerSets == null) return null;
+        }
+
+        TargetSet targetSet = providerSets.get(originalTarget);
+
+        if (targetSet == null || targetSet.version != version) {
+            // Version is read before the targets, a racing bump only causes one extra refresh
+            targetSet = new TargetSet(version, provider.getAllEventTargets(originalTarget).toArray(new String[0]));
+            if (providerSets.put(originalTarget, targetSet) == null) evictTargetSets(providerSets, originalTarget);
+        }
+
+        return targetSet.targets;
+    }
+
+    // Original targets come and go (players leaving), drop arbitrary others past the limit
+    protected static void evictTargetSets(Map<String, TargetSet> providerSets, String keptTarget) {
+        Iterator<String> iterator = providerSets.keySet().iterator();
+        while (providerSets.size() > MAX_TARGET_SETS && iterator.hasNext()) {
+            if (!iterator.next().equals(keptTarget)) iterator.remove();
+        }
+    }
+
+    // Partial Fisher-Yates, swaps are kept aside so the shared pool is never copied or mutated
+    protected static void sampleTargets(String[] pool, int count, IntUnaryOperator nextInt, Collection<String> sampled) {
+        int n = pool.length;
+
+        if (count >= n) {
+            Collections.addAll(sampled, pool);
+            return;
+        }
+
+        Map<Integer, Integer> swaps = new HashMap<>();
+
+        for (int i = 0; i < count; i++) {
+            int j = i + nextInt.applyAsInt(n - i);
+            int picked = swaps.getOrDefault(j, j);
+            swaps.put(j, swaps.getOrDefault(i, i));
+            sampled.add(pool[picked]);
+        }
+    }
+
+    // Providers are compared by reference, like the registry does
+    protected static class GroupKey {
+
+        protected final ReflectProvider provider;
+        protected final String originalTarget;
+
+        public GroupKey(ReflectProvider provider, String originalTarget) {
+            this.provider = provider;
+            this.originalTarget = originalTarget;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof GroupKey)) return false;
+            GroupKey that = (GroupKey) other;
+            return provider == that.provider && Objects.equals(originalTarget, that.originalTarget);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(provider) + Objects.hashCode(originalTarget);
+        }
+
+        @Override
+        public String toString() {
+            return provider + "|" + originalTarget;
+        }
+
+    }
+
+    protected static class TargetSet {
+
+        protected final long version;
+        protected final String[] targets;
+
+        public TargetSet(long version, String[] targets) {
+            this.version = version;
+            this.targets = targets;
+        }
 
-        return success;
     }
 
     public interface ReflectProvider {
 
+        long UNVERSIONED = -1;
+
+        // Return a version that changes whenever the target list does (e.g. on player join/leave)
+        // to let REFLECT reuse the last getAllEventTargets result until then
+        default long getTargetsVersion(String originalTarget) {
+            return UNVERSIONED;
+        }
+
         List<String> getEventTargets(String originalTarget, List<String> targets);
 
         List<String> getAllEventTargets(String originalTarget);
 
         List<String> getRandomEventTargets(String originalTarget, int count);
 
+        // Override to pick from the event's own random stream, keeping REFLECT <N> replayable
+        default List<String> getRandomEventTargets(String originalTarget, int count, SplittableRandom random) {
+            return getRandomEventTargets(originalTarget, count);
+        }
+
         void onEventReflection(String originalTarget, TSLAction action, TSLEventContext ctx);
 
+        // Receives every reflected context of a REFLECT at once, on a dispatcher thread if one is set
+        default void onEventReflectionBatch(String originalTarget, TSLAction action, List<TSLEventContext> contexts) {
+            for (TSLEventContext ctx : contexts) {
+                onEventReflection(originalTarget, action, ctx);
+            }
+        }
+
         default void unsubscribe() {
-            ReflectAction.providers.removeIf(provider -> provider == this);
+            ReflectAction.unregisterProvider(this);
         }
 
     }
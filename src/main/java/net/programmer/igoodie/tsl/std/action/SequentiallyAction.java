@@ -3,6 +3,7 @@ package net.programmer.igoodie.tsl.std.action;
 import net.programmer.igoodie.tsl.TSLPlatform;
 import net.programmer.igoodie.tsl.exception.TSLPerformingException;
 import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.jfr.TSLFlightRecorder;
 import net.programmer.igoodie.tsl.parser.TSLParser;
 import net.programmer.igoodie.tsl.runtime.action.TSLAction;
 import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
@@ -22,7 +23,8 @@ public class SequentiallyAction extends TSLAction {
 
         this.actions = new ArrayList<>();
 
-        List<List<String>> actionChunks = Utils.splitIntoChunks(args, arg -> arg.equalsIgnoreCase("AND"));
+        List<List<String>> actionChunks = Utils.splitIntoChunks(args, arg -> arg.equalsIgnoreCase("AND"),
+                arg -> arg.equalsIgnoreCase("IF"), arg -> arg.equalsIgnoreCase("THEN")); // IF conditions have their own AND
 
         for (List<String> actionChunk : actionChunks) {
             if (actionChunk.isEmpty()) {
@@ -39,10 +41,16 @@ public class SequentiallyAction extends TSLAction {
         boolean success = true;
 
         for (TSLAction action : actions) {
-            success &= action.perform(ctx);
+            ctx.checkCancelled();
+            success &= TSLFlightRecorder.perform(this, action, ctx);
         }
 
         return success;
     }
 
+    @Override
+    public boolean readsLocalsFromArgsOnly() {
+        return readLocalsFromArgsOnly(actions);
+    }
+
 }
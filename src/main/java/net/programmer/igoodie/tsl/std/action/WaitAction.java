@@ -39,7 +39,7 @@ public class WaitAction extends TSLAction {
     @Override
     public boolean perform(TSLEventContext ctx) throws TSLPerformingException {
         try {
-            Thread.sleep(sleepTime);
+            ctx.sleep(sleepTime);
         } catch (InterruptedException e) {
             e.printStackTrace();
             return false;
@@ -48,4 +48,9 @@ public class WaitAction extends TSLAction {
         return true;
     }
 
+    @Override
+    public boolean readsLocalsFromArgsOnly() {
+        return true;
+    }
+
 }
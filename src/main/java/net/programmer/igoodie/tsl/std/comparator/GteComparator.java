@@ -7,6 +7,7 @@ public class GteComparator extends TSLComparator {
 
     public GteComparator(Object right) throws TSLSyntaxException {
         super(right);
+        this.right = this.tryParseNumber(right);
     }
 
     @Override
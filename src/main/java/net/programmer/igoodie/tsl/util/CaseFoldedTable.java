@@ -0,0 +1,106 @@
+package net.programmer.igoodie.tsl.util;
+
+import java.util.Map;
+
+// Immutable open-addressing table, keys are stored pre-folded.
+// Lookups fold the given key char by char while probing, so they don't allocate.
+public final class CaseFoldedTable<V> {
+
+    public enum Folding {
+        EXACT,
+        UPPER_CASE,
+        UPPER_FIRST_LETTERS;
+
+        public char fold(char c, boolean wordStart) {
+            switch (this) {
+                case UPPER_CASE:
+                    return Character.toUpperCase(c);
+                case UPPER_FIRST_LETTERS:
+                    return wordStart ? Character.toUpperCase(c) : c;
+                default:
+                    return c;
+            }
+        }
+    }
+
+    private final Folding folding;
+    private final String[] keys;
+    private final Object[] values;
+    private final int mask;
+    private final int size;
+
+    public CaseFoldedTable(Folding folding, Map<String, ? extends V> entries) {
+        int capacity = Integer.highestOneBit(Math.max(2, entries.size() * 2 - 1)) << 1; // Load factor <= 0.5
+
+        this.folding = folding;
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        this.size = entries.size();
+
+        for (Map.Entry<String, ? extends V> entry : entries.entrySet()) {
+            String key = entry.getKey();
+            int index = hash(key) & mask;
+
+            while (keys[index] != null) {
+                if (matches(keys[index], key))
+                    throw new IllegalArgumentException("Keys collide after folding -> " + key);
+                index = (index + 1) & mask;
+            }
+
+            keys[index] = key;
+            values[index] = entry.getValue();
+        }
+    }
+
+    public Folding getFolding() {
+        return folding;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(String key) {
+        int index = hash(key) & mask;
+        String candidate;
+
+        while ((candidate = keys[index]) != null) {
+            if (matches(candidate, key)) return (V) values[index];
+            index = (index + 1) & mask;
+        }
+
+        return null;
+    }
+
+    private int hash(String key) {
+        int hash = 0;
+        boolean wordStart = true;
+
+        for (int i = 0, length = key.length(); i < length; i++) {
+            char c = key.charAt(i);
+            hash = 31 * hash + folding.fold(c, wordStart);
+            wordStart = c == ' ';
+        }
+
+        hash *= 0x9E3779B1;
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean matches(String foldedKey, String key) {
+        int length = key.length();
+        if (foldedKey.length() != length) return false;
+
+        boolean wordStart = true;
+
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            if (folding.fold(c, wordStart) != foldedKey.charAt(i)) return false;
+            wordStart = c == ' ';
+        }
+
+        return true;
+    }
+
+}
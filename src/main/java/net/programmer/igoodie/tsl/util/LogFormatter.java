@@ -7,8 +7,20 @@ public final class LogFormatter {
     public static final Pattern ARG_PATTERN = Pattern.compile("\\{}");
 
     public static String format(String format, Object... args) {
-        return PatternReplacer.replaceMatches(ARG_PATTERN, format,
-                (matcher, matchIndex) -> args[matchIndex].toString());
+        if (args.length == 0) return format;
+        return formatTo(new StringBuilder(format.length() + 16 * args.length), format, args).toString();
+    }
+
+    // Placeholders without a matching argument are kept as they are
+    public static StringBuilder formatTo(StringBuilder sb, String format, Object... args) {
+        int start = 0, argIndex = 0, index;
+
+        while (argIndex < args.length && (index = format.indexOf("{}", start)) != -1) {
+            sb.append(format, start, index).append(args[argIndex++]);
+            start = index + 2;
+        }
+
+        return sb.append(format, start, format.length());
     }
 
     public static String escapeJson(String jsonString) {
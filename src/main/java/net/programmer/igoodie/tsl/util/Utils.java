@@ -28,6 +28,24 @@ public final class Utils {
         return result;
     }
 
+    // Delimiters between a span start and the next span end are kept as elements of the current chunk
+    public static <V> List<List<V>> splitIntoChunks(List<V> input, Predicate<V> delimiterPredicate,
+                                                    Predicate<V> spanStartPredicate, Predicate<V> spanEndPredicate) {
+        return splitIntoChunks(input, new Predicate<V>() {
+            boolean inSpan;
+
+            @Override
+            public boolean test(V element) {
+                if (inSpan) {
+                    inSpan = !spanEndPredicate.test(element);
+                    return false;
+                }
+                inSpan = spanStartPredicate.test(element);
+                return !inSpan && delimiterPredicate.test(element);
+            }
+        });
+    }
+
     public static String leftPad(String str, int desiredLength, char padChar) {
         return repeat(Character.toString(padChar), Math.max(0, desiredLength - str.length())) + str;
     }
@@ -0,0 +1,84 @@
+package example;
+
+import example.action.PrintAction;
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.parser.CharStream;
+import net.programmer.igoodie.tsl.parser.TSLLexer;
+import net.programmer.igoodie.tsl.parser.TSLParser;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import net.programmer.igoodie.tsl.std.action.*;
+import net.programmer.igoodie.tsl.std.comparator.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+// Time to first dispatch on a large platform. Needs a fresh JVM per run:
+//   java -cp <test classpath> example.ColdStartBenchmark lazy|eager [definitions]
+public class ColdStartBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        boolean lazy = args.length == 0 || args[0].equalsIgnoreCase("lazy");
+        int definitions = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        long startTime = System.nanoTime();
+        TSLPlatform platform = new TSLPlatform("ColdStart", 1.0f);
+
+        if (lazy) {
+            platform.loadProviders();
+            for (int i = 0; i < definitions; i++) {
+                platform.registerLazyAction("CUSTOM_" + i, () -> PrintAction::new);
+            }
+        } else {
+            registerStdEagerly(platform);
+            for (int i = 0; i < definitions; i++) {
+                platform.registerAction("CUSTOM_" + i, PrintAction::new);
+            }
+        }
+
+        platform.registerEvent(new TSLEvent("Donation")
+                .addPropertyType(TSLEvent.PropertyBuilder.DOUBLE.create("amount")));
+        long registeredTime = System.nanoTime();
+
+        String script = "CUSTOM_0 Hello ON Donation WITH amount > 10";
+        TSLRuleset ruleset = new TSLParser(platform, "Player:iGoodie",
+                new TSLLexer(CharStream.fromString(script)).tokenize()).parse();
+
+        TSLEventContext ctx = new TSLEventContext(platform, "Donation");
+        ctx.getEventArgs().put("amount", 20.0);
+        ruleset.perform(ctx);
+        long dispatchedTime = System.nanoTime();
+
+        System.out.printf("mode=%s definitions=%d registration=%dus firstDispatch=%dus total=%dus loadedClasses=%d jvmUptime=%dms%n",
+                lazy ? "lazy" : "eager", definitions,
+                TimeUnit.NANOSECONDS.toMicros(registeredTime - startTime),
+                TimeUnit.NANOSECONDS.toMicros(dispatchedTime - registeredTime),
+                TimeUnit.NANOSECONDS.toMicros(dispatchedTime - startTime),
+                ManagementFactory.getClassLoadingMXBean().getLoadedClassCount(),
+                ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
+    // What initializeStd used to do, linking every definition up front
+    private static void registerStdEagerly(TSLPlatform platform) {
+        platform.registerAction("WAIT", WaitAction::new);
+        platform.registerAction("SEQUENTIALLY", SequentiallyAction::new);
+        platform.registerAction("EITHER", EitherAction::new);
+        platform.registerAction("NOTHING", NothingAction::new);
+        platform.registerAction("FOR", ForAction::new);
+        platform.registerAction("IF", IfAction::new);
+        platform.registerAction("REFLECT", ReflectAction::new);
+
+        platform.registerComparator("IN RANGE", InRangeComparator::new);
+        platform.registerComparator("CONTAINS", ContainsComparator::new);
+        platform.registerComparator("IS", IsComparator::new);
+        platform.registerComparator("PREFIX", PrefixComparator::new);
+        platform.registerComparator("POSTFIX", PostfixComparator::new);
+        platform.registerComparator("=", EqualsComparator::new);
+        platform.registerComparator(">", GtComparator::new);
+        platform.registerComparator(">=", GteComparator::new);
+        platform.registerComparator("<", LtComparator::new);
+        platform.registerComparator("<=", LteComparator::new);
+    }
+
+}
@@ -0,0 +1,211 @@
+package example;
+
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.journal.TSLJournalRecord;
+import net.programmer.igoodie.tsl.parser.CharStream;
+import net.programmer.igoodie.tsl.parser.TSLLexer;
+import net.programmer.igoodie.tsl.parser.TSLParser;
+import net.programmer.igoodie.tsl.replay.RecordingStubs;
+import net.programmer.igoodie.tsl.replay.TSLReplay;
+import net.programmer.igoodie.tsl.replay.TSLReplayReport;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
+import net.programmer.igoodie.tsl.runtime.executor.TSLExecutor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// End-to-end throughput over synthetic traffic, headless and seeded
+public class TwitchLoadTest {
+
+    private static final long SEED = 20220415L;
+    private static final String TARGET = "Player:iGoodie";
+
+    private static final String SCRIPT = String.join("\n",
+            "DROP diamond 1",
+            " DISPLAYING %${actor} donated ${amount}${currency}!%",
+            " ON Donation WITH amount >= 100",
+            "",
+            "EITHER DROP apple OR DROP stick OR DROP %golden_carrot%",
+            " ON Donation",
+            "",
+            "SUMMON creeper DISPLAYING %${actor} wanted a creeper%",
+            " ON Twitch Chat Message WITH message CONTAINS creeper",
+            "",
+            "IF months > 12 AND tier >= 2 THEN DROP cake ELSE DROP cookie",
+            " ON Twitch Subscription",
+            "",
+            "FOR 3 TIMES DROP arrow",
+            " ON Twitch Subscription Gift",
+            "",
+            "EXECUTE %/weather thunder% DISPLAYING %${actor} raided with ${raiders}!%",
+            " ON Twitch Raid WITH raiders > 100",
+            "",
+            "DROP %minecraft:diamond% ON Twitch Follow");
+
+    private static TSLPlatform createPlatform() {
+        TSLPlatform platform = new TSLPlatform("LoadTest", 1.0f);
+        platform.initializeStd();
+
+        platform.registerExpression("actor", (expr, ctx) -> ctx.getEventArgs().getString(expr));
+        platform.registerExpression("amount", (expr, ctx) -> ctx.getEventArgs().getDouble(expr));
+        platform.registerExpression("currency", (expr, ctx) -> ctx.getEventArgs().getString(expr));
+        platform.registerExpression("raiders", (expr, ctx) -> ctx.getEventArgs().getInteger(expr));
+
+        TSLEvent.Property<String> actor = TSLEvent.PropertyBuilder.STRING.create("actor");
+        TSLEvent.Property<String> message = TSLEvent.PropertyBuilder.STRING.create("message");
+        TSLEvent.Property<Integer> months = TSLEvent.PropertyBuilder.INT.create("months");
+        TSLEvent.Property<Integer> tier = TSLEvent.PropertyBuilder.INT.create("tier");
+
+        platform.registerEvent(new TSLEvent("Donation").addPropertyType(actor).addPropertyType(message)
+                .addPropertyType(TSLEvent.PropertyBuilder.DOUBLE.create("amount"))
+                .addPropertyType(TSLEvent.PropertyBuilder.STRING.create("currency")));
+        platform.registerEvent(new TSLEvent("Twitch Follow").addPropertyType(actor));
+        platform.registerEvent(new TSLEvent("Twitch Chat Message").addPropertyType(actor).addPropertyType(message)
+                .addPropertyType(months));
+        platform.registerEvent(new TSLEvent("Twitch Subscription").addPropertyType(actor).addPropertyType(months)
+                .addPropertyType(tier)
+                .addPropertyType(TSLEvent.PropertyBuilder.BOOLEAN.create("gifted")));
+        platform.registerEvent(new TSLEvent("Twitch Subscription Gift").addPropertyType(actor).addPropertyType(tier)
+                .addPropertyType(TSLEvent.PropertyBuilder.DOUBLE.create("amount")));
+        platform.registerEvent(new TSLEvent("Twitch Raid").addPropertyType(actor)
+                .addPropertyType(TSLEvent.PropertyBuilder.INT.create("raiders")));
+
+        return platform;
+    }
+
+    private static TSLRuleset parse(TSLPlatform platform) throws IOException, TSLSyntaxException {
+        return new TSLParser(platform, TARGET, new TSLLexer(CharStream.fromString(SCRIPT)).tokenize()).parse();
+    }
+
+    @Test
+    public void shouldGenerateSameTrafficForSameSeed() {
+        TwitchTrafficGenerator first = new TwitchTrafficGenerator().setSeed(SEED).setEvents(50_000);
+        TwitchTrafficGenerator second = new TwitchTrafficGenerator().setSeed(SEED).setEvents(50_000);
+        Map<String, Integer> eventCounts = new HashMap<>();
+        double maxDonation = 0;
+        long lastTimestamp = 0;
+        int events = 0;
+
+        TSLJournalRecord a, b;
+        while ((a = first.next()) != null) {
+            b = second.next();
+            Assertions.assertNotNull(b);
+            Assertions.assertEquals(a.getSequence(), b.getSequence());
+            Assertions.assertEquals(a.getTimestamp(), b.getTimestamp());
+            Assertions.assertEquals(a.getEventName(), b.getEventName());
+            Assertions.assertEquals(a.getEventArgs().getString("actor"), b.getEventArgs().getString("actor"));
+            Assertions.assertEquals(events++, a.getSequence());
+            Assertions.assertTrue(a.getTimestamp() >= lastTimestamp);
+
+            eventCounts.merge(a.getEventName(), 1, Integer::sum);
+            if (a.getEventName().equals("Donation")) {
+                maxDonation = Math.max(maxDonation, a.getEventArgs().getDouble("amount").get());
+            }
+            lastTimestamp = a.getTimestamp();
+        }
+
+        Assertions.assertNull(second.next());
+        Assertions.assertEquals(50_000, events);
+        Assertions.assertEquals(6, eventCounts.size(), eventCounts.toString());
+        Assertions.assertTrue(eventCounts.get("Twitch Chat Message") > eventCounts.get("Donation"));
+        Assertions.assertTrue(maxDonation > 100, "Expected a heavy tail, max donation was " + maxDonation);
+    }
+
+    @Test
+    public void shouldFollowCustomMix() {
+        TwitchTrafficGenerator generator = new TwitchTrafficGenerator().setSeed(SEED).setEvents(1_000)
+                .addToMix(TwitchTrafficGenerator.Kind.RAID, 1);
+
+        TSLJournalRecord record;
+        while ((record = generator.next()) != null) {
+            Assertions.assertEquals("Twitch Raid", record.getEventName());
+        }
+    }
+
+    @Test
+    public void shouldSustainSyntheticTraffic() throws Exception {
+        int events = 200_000;
+        ExecutorService pool = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "LoadTest");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            Run warmup = run(pool, 20_000);
+            Run first = run(pool, events);
+            Run second = run(pool, events);
+
+            Assertions.assertEquals(events, first.report.getEvents());
+            Assertions.assertEquals(0, first.report.getFailures());
+            Assertions.assertEquals(first.performCounts, second.performCounts);
+            Assertions.assertTrue(first.report.diff(second.report).isEmpty(), first.report.diff(second.report).toString());
+            Assertions.assertTrue(warmup.performCounts.get("DROP") > 0);
+            Assertions.assertTrue(first.report.getRuleFireCounts().containsKey(first.ruleset.getRuleSignature(0)),
+                    "Big donations never matched");
+
+            System.out.printf("Synthetic traffic: %.0f events/s, latency p50=%dus p99=%dus p999=%dus, allocation %.1f MB/s (%d B/event)%n",
+                    first.report.getThroughput(),
+                    TimeUnit.NANOSECONDS.toMicros(first.report.getLatency().getPercentile(50)),
+                    TimeUnit.NANOSECONDS.toMicros(first.report.getLatency().getPercentile(99)),
+                    TimeUnit.NANOSECONDS.toMicros(first.report.getLatency().getPercentile(99.9)),
+                    first.allocatedBytes / 1e6 / (first.report.getElapsedNanos() / 1e9),
+                    first.allocatedBytes / events);
+            System.out.println("Rule fires: " + first.report.getRuleFireCounts() + " actions: " + first.performCounts);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Run run(ExecutorService pool, int events) throws Exception {
+        TSLPlatform platform = createPlatform();
+        RecordingStubs stubs = new RecordingStubs().install(platform, "DROP", "SUMMON", "EXECUTE");
+        platform.freeze();
+        TSLRuleset ruleset = parse(platform);
+
+        TwitchTrafficGenerator traffic = new TwitchTrafficGenerator().setSeed(SEED).setEvents(events);
+        TSLReplay replay = new TSLReplay(platform, ruleset, new TSLExecutor(TARGET, pool));
+
+        long allocatedBefore = allocatedBytes();
+        TSLReplayReport report = replay.run(traffic);
+        long allocatedBytes = allocatedBytes() - allocatedBefore;
+
+        return new Run(ruleset, report, stubs.getPerformCounts(), allocatedBytes);
+    }
+
+    // Every live thread, the generator runs on this one and performs on the pool
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long allocated : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (allocated > 0) total += allocated;
+        }
+        return total;
+    }
+
+    private static class Run {
+
+        final TSLRuleset ruleset;
+        final TSLReplayReport report;
+        final Map<String, Long> performCounts;
+        final long allocatedBytes;
+
+        Run(TSLRuleset ruleset, TSLReplayReport report, Map<String, Long> performCounts, long allocatedBytes) {
+            this.ruleset = ruleset;
+            this.report = report;
+            this.performCounts = performCounts;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+    }
+
+}
@@ -0,0 +1,221 @@
+package example;
+
+import net.programmer.igoodie.goodies.runtime.GoodieObject;
+import net.programmer.igoodie.tsl.journal.TSLJournalRecord;
+import net.programmer.igoodie.tsl.replay.TSLReplaySource;
+import net.programmer.igoodie.tsl.std.action.EitherAction;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.SplittableRandom;
+
+// Seeded synthetic stream traffic, replayable through TSLReplay.
+// Same seed and settings, same events.
+public class TwitchTrafficGenerator implements TSLReplaySource {
+
+    public enum Kind {
+        CHAT_MESSAGE, CHAT_FLOOD, FOLLOW, DONATION, SUBSCRIPTION, GIFT_BURST, RAID
+    }
+
+    private static final String[] MESSAGES = {
+            "gg", "PogChamp", "KEKW", "LUL", "first time here!", "hello from Turkey",
+            "drop a diamond pls", "can you summon a creeper?", "that was close", "W"
+    };
+
+    private static final String[] CURRENCIES = {"USD", "EUR", "TRY", "GBP"};
+
+    protected long seed = 42;
+    protected int events = 100_000;
+    protected double eventsPerSecond = 50;
+    protected int actors = 10_000;
+    protected String target = "Player:iGoodie";
+    protected double donationMinimum = 1.0;
+    protected double donationAlpha = 1.2; // Pareto shape, lower means heavier tail
+    protected int maxGiftBurst = 100;
+    protected int maxFloodLength = 200;
+    protected final EitherAction.WeightedSampler<Kind> mix = new EitherAction.WeightedSampler<>();
+    protected boolean customMix;
+
+    protected SplittableRandom random;
+    protected final Queue<TSLJournalRecord> pending = new ArrayDeque<>();
+    protected long timestamp;
+    protected long sequence;
+
+    public TwitchTrafficGenerator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public TwitchTrafficGenerator setEvents(int events) {
+        this.events = events;
+        return this;
+    }
+
+    public TwitchTrafficGenerator setEventsPerSecond(double eventsPerSecond) {
+        this.eventsPerSecond = eventsPerSecond;
+        return this;
+    }
+
+    public TwitchTrafficGenerator setActors(int actors) {
+        this.actors = actors;
+        return this;
+    }
+
+    public TwitchTrafficGenerator setTarget(String target) {
+        this.target = target;
+        return this;
+    }
+
+    public TwitchTrafficGenerator setDonations(double minimum, double alpha) {
+        this.donationMinimum = minimum;
+        this.donationAlpha = alpha;
+        return this;
+    }
+
+    public TwitchTrafficGenerator setMaxGiftBurst(int maxGiftBurst) {
+        this.maxGiftBurst = maxGiftBurst;
+        return this;
+    }
+
+    public TwitchTrafficGenerator setMaxFloodLength(int maxFloodLength) {
+        this.maxFloodLength = maxFloodLength;
+        return this;
+    }
+
+    public TwitchTrafficGenerator addToMix(Kind kind, int weight) {
+        this.mix.addElement(kind, weight);
+        this.customMix = true;
+        return this;
+    }
+
+    @Override
+    public TSLJournalRecord next() {
+        if (random == null) start();
+        if (sequence >= events) return null;
+
+        if (pending.isEmpty()) {
+            timestamp += Math.max(1, Math.round(exponential(1000.0 / eventsPerSecond)));
+            generate(mix.sample(random.nextDouble()));
+        }
+
+        sequence++;
+        return pending.poll();
+    }
+
+    @Override
+    public void close() {}
+
+    protected void start() {
+        if (!customMix) {
+            mix.addElement(Kind.CHAT_MESSAGE, 700);
+            mix.addElement(Kind.CHAT_FLOOD, 5);
+            mix.addElement(Kind.FOLLOW, 120);
+            mix.addElement(Kind.DONATION, 80);
+            mix.addElement(Kind.SUBSCRIPTION, 60);
+            mix.addElement(Kind.GIFT_BURST, 10);
+            mix.addElement(Kind.RAID, 2);
+        }
+        random = new SplittableRandom(seed);
+        timestamp = 1_650_000_000_000L;
+    }
+
+    protected void generate(Kind kind) {
+        switch (kind) {
+            case CHAT_MESSAGE:
+                emit("Twitch Chat Message", chatArgs(actor()));
+                break;
+
+            case CHAT_FLOOD:
+                // Everyone spams the same emote within a few seconds
+                String emote = MESSAGES[random.nextInt(4)];
+                int length = 10 + random.nextInt(maxFloodLength);
+                for (int i = 0; i < length; i++) {
+                    GoodieObject args = chatArgs(actor());
+                    args.put("message", emote);
+                    emit("Twitch Chat Message", args);
+                    timestamp += random.nextInt(20);
+                }
+                break;
+
+            case FOLLOW:
+                emit("Twitch Follow", args("actor", actor()));
+                break;
+
+            case DONATION:
+                emit("Donation", args(
+                        "actor", actor(),
+                        "message", MESSAGES[random.nextInt(MESSAGES.length)],
+                        "amount", donationAmount(),
+                        "currency", CURRENCIES[random.nextInt(CURRENCIES.length)]));
+                break;
+
+            case SUBSCRIPTION:
+                emit("Twitch Subscription", subscriptionArgs(actor(), false));
+                break;
+
+            case GIFT_BURST:
+                // One gift announcement, then a subscription per recipient in quick succession
+                String gifter = actor();
+                int gifts = 1 + (int) Math.min(maxGiftBurst - 1, exponential(maxGiftBurst / 10.0));
+                emit("Twitch Subscription Gift", args("actor", gifter, "amount", (double) gifts, "tier", 1));
+                for (int i = 0; i < gifts; i++) {
+                    timestamp += random.nextInt(5);
+                    emit("Twitch Subscription", subscriptionArgs(actor(), true));
+                }
+                break;
+
+            case RAID:
+                emit("Twitch Raid", args("actor", actor(), "raiders", (int) Math.min(50_000, 2 + pareto(1, 0.9))));
+                break;
+        }
+    }
+
+    protected void emit(String eventName, GoodieObject args) {
+        long eventSequence = sequence + pending.size();
+        pending.add(new TSLJournalRecord(eventSequence, timestamp, eventSequence, target, eventName,
+                TSLJournalRecord.NO_MATCHED_RULE, args));
+    }
+
+    protected static GoodieObject args(Object... keyValues) {
+        GoodieObject args = new GoodieObject();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            args.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return args;
+    }
+
+    protected GoodieObject chatArgs(String actor) {
+        return args(
+                "actor", actor,
+                "message", MESSAGES[random.nextInt(MESSAGES.length)],
+                "months", random.nextInt(4) == 0 ? random.nextInt(48) : 0);
+    }
+
+    protected GoodieObject subscriptionArgs(String actor, boolean gifted) {
+        int tierRoll = random.nextInt(100);
+        return args(
+                "actor", actor,
+                "months", 1 + (int) exponential(6),
+                "tier", tierRoll < 20 ? 0 : tierRoll < 90 ? 1 : tierRoll < 97 ? 2 : 3,
+                "gifted", gifted);
+    }
+
+    // Skewed towards regulars, a few actors produce most of the events
+    protected String actor() {
+        double u = random.nextDouble();
+        return "viewer_" + (int) (actors * u * u * u);
+    }
+
+    protected double donationAmount() {
+        return Math.min(10_000, Math.round(pareto(donationMinimum, donationAlpha) * 100) / 100.0);
+    }
+
+    protected double pareto(double minimum, double alpha) {
+        return minimum / Math.pow(1 - random.nextDouble(), 1 / alpha);
+    }
+
+    protected double exponential(double mean) {
+        return -mean * Math.log(1 - random.nextDouble());
+    }
+
+}
@@ -0,0 +1,326 @@
+package unit;
+
+import net.programmer.igoodie.tsl.logging.AsyncFileLogger;
+import net.programmer.igoodie.tsl.logging.LogArchiver;
+import net.programmer.igoodie.tsl.logging.RollingPolicy;
+import net.programmer.igoodie.tsl.logging.TSLLogger;
+import net.programmer.igoodie.tsl.util.LatencyHistogram;
+import net.programmer.igoodie.tsl.util.LogFormatter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+public class AsyncFileLoggerTests {
+
+    @Test
+    public void shouldFormatLikeBefore() {
+        Assertions.assertEquals("a 1 b two c", LogFormatter.format("a {} b {} c", 1, "two"));
+        Assertions.assertEquals("no args {}", LogFormatter.format("no args {}"));
+        Assertions.assertEquals("null and {}", LogFormatter.format("{} and {}", (Object) null));
+    }
+
+    @Test
+    public void shouldSkipDisabledLevels() throws IOException, InterruptedException {
+        Path path = Files.createTempFile("tsl-async", ".log");
+
+        try {
+            try (AsyncFileLogger logger = new AsyncFileLogger(path, 16)) {
+                logger.setLevel(TSLLogger.LogLevel.WARN);
+                logger.debug("hidden {}", 1);
+                logger.warn("shown {}", 2);
+                Assertions.assertTrue(logger.flush(5, TimeUnit.SECONDS));
+            }
+
+            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            Assertions.assertEquals(1, lines.size());
+            Assertions.assertTrue(lines.get(0).endsWith("] shown 2"), lines.get(0));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void shouldKeepWritingPastArgumentsThatFailToFormat() throws IOException, InterruptedException {
+        Path path = Files.createTempFile("tsl-async", ".log");
+        Object broken = new Object() {
+            @Override
+            public String toString() {
+                throw new IllegalStateException("Broken toString");
+            }
+        };
+
+        try {
+            // Laps the ring a few times, a dead writer would leave the producer waiting
+            try (AsyncFileLogger logger = new AsyncFileLogger(path, 4)) {
+                for (int i = 0; i < 10; i++) {
+                    logger.info("broken {}", broken);
+                    logger.info("fine {}", i);
+                }
+                Assertions.assertTrue(logger.flush(5, TimeUnit.SECONDS));
+            }
+
+            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            Assertions.assertEquals(20, lines.size());
+            Assertions.assertTrue(lines.get(0).endsWith("] Could not format -> broken {} (java.lang.IllegalStateException)"), lines.get(0));
+            Assertions.assertTrue(lines.get(19).endsWith("] fine 9"), lines.get(19));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void shouldStopWaitingOnADeadWriter() throws IOException, InterruptedException {
+        Path path = Files.createTempFile("tsl-async", ".log");
+
+        try (AsyncFileLogger logger = new AsyncFileLogger(path, 2) {
+            @Override
+            protected void writerLoop() {} // Dies right away
+        }) {
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 10; i++) logger.info("message {}", i);
+            });
+            producer.start();
+            producer.join(TimeUnit.SECONDS.toMillis(10));
+
+            Assertions.assertFalse(producer.isAlive(), "Producer stuck on a full ring");
+            Assertions.assertFalse(logger.flush(5, TimeUnit.SECONDS));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void shouldKeepEveryMessageInProducerOrderUnderContention() throws Exception {
+        Path path = Files.createTempFile("tsl-async", ".log");
+        int producers = 4, messagesPerProducer = 20_000;
+        LatencyHistogram producerLatency = new LatencyHistogram();
+
+        try (AsyncFileLogger logger = new AsyncFileLogger(path, 1024)) {
+            List<Thread> threads = new ArrayList<>();
+
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < messagesPerProducer; i++) {
+                        long start = System.nanoTime();
+                        logger.info("producer={} seq={} \u00fcn\u00efcode", producer, i);
+                        producerLatency.record(System.nanoTime() - start);
+                    }
+                }));
+            }
+
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) thread.join();
+
+            Assertions.assertTrue(logger.flush(10, TimeUnit.SECONDS));
+        }
+
+        // Producers only claim a slot, the file write happens on the writer thread
+        Assertions.assertEquals(producers * messagesPerProducer, producerLatency.getCount());
+        Assertions.assertTrue(producerLatency.getPercentile(50) < TimeUnit.MICROSECONDS.toNanos(100),
+                "Producer-side latency (ns): " + producerLatency);
+
+        int[] lastSeq = new int[producers];
+        java.util.Arrays.fill(lastSeq, -1);
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+
+        for (String line : lines) {
+            int producer = Integer.parseInt(line.substring(line.indexOf("producer=") + 9, line.indexOf(" seq=")));
+            int seq = Integer.parseInt(line.substring(line.indexOf("seq=") + 4, line.indexOf(" \u00fcn\u00efcode")));
+            Assertions.assertEquals(lastSeq[producer] + 1, seq, "Messages of a producer stay in order");
+            lastSeq[producer] = seq;
+        }
+
+        Assertions.assertEquals(producers * messagesPerProducer, lines.size());
+        Files.delete(path);
+    }
+
+    @Test
+    public void shouldNeitherHangNorLoseOrderWhenClosedWhileLogging() throws Exception {
+        int producers = 4;
+
+        // The race is narrow, so close many loggers mid-stream
+        for (int round = 0; round < 50; round++) {
+            Path path = Files.createTempFile("tsl-async", ".log");
+            AsyncFileLogger logger = new AsyncFileLogger(path, 16);
+            List<Thread> threads = new ArrayList<>();
+
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        logger.info("producer={} seq={}", producer, i);
+                    }
+                }));
+            }
+
+            threads.forEach(Thread::start);
+            Thread.sleep(round % 5);
+            logger.close();
+
+            for (Thread thread : threads) {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+                Assertions.assertFalse(thread.isAlive(), "Producer stuck on a closed logger");
+            }
+
+            // Whatever made it in is a gapless prefix of every producer's messages
+            int[] lastSeq = new int[producers];
+            java.util.Arrays.fill(lastSeq, -1);
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                int producer = Integer.parseInt(line.substring(line.indexOf("producer=") + 9, line.indexOf(" seq=")));
+                int seq = Integer.parseInt(line.substring(line.indexOf("seq=") + 4));
+                Assertions.assertEquals(lastSeq[producer] + 1, seq, "Messages of a producer stay in order");
+                lastSeq[producer] = seq;
+            }
+            Files.delete(path);
+        }
+    }
+
+    // Clock that tests move forward by hand
+    private static class ManualClock extends Clock {
+
+        private volatile Instant instant = Instant.parse("2026-10-19T12:00:00Z");
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+    }
+
+    private static void deleteRecursively(Path folder) throws IOException {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static String gunzip(Path path) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) out.write(buffer, 0, read);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void shouldRollBySizeAndCompressInBackground() throws Exception {
+        Path folder = Files.createTempDirectory("tsl-rolling");
+
+        try {
+            Path path = folder.resolve("tsl.log");
+            RollingPolicy policy = new RollingPolicy()
+                    .setMaxFileBytes(200)
+                    .setCompress(true)
+                    .setMaxHistory(3);
+
+            LogArchiver archiver;
+
+            try (AsyncFileLogger logger = new AsyncFileLogger(path, 64, policy)) {
+                archiver = logger.getArchiver();
+                for (int round = 0; round < 10; round++) {
+                    for (int i = 0; i < 5; i++) {
+                        logger.info("round {} message {}", round, i);
+                    }
+                    Assertions.assertTrue(logger.flush(5, TimeUnit.SECONDS));
+                }
+            }
+
+            List<LogArchiver.RolledFile> rolledFiles = archiver.listRolledFiles();
+            Assertions.assertEquals(3, rolledFiles.size(), "Only the newest rolled files are kept");
+
+            for (LogArchiver.RolledFile rolledFile : rolledFiles) {
+                Assertions.assertTrue(rolledFile.getPath().toString().endsWith(".log.gz"));
+                Assertions.assertTrue(gunzip(rolledFile.getPath()).startsWith("["));
+            }
+
+            Assertions.assertTrue(Files.size(path) > 0);
+        } finally {
+            deleteRecursively(folder);
+        }
+    }
+
+    @Test
+    public void shouldRollDailyUnderTheDayItCovers() throws Exception {
+        Path folder = Files.createTempDirectory("tsl-rolling");
+
+        try {
+            Path path = folder.resolve("tsl.log");
+            ManualClock clock = new ManualClock();
+            RollingPolicy policy = new RollingPolicy().setDaily(true).setClock(clock);
+
+            try (AsyncFileLogger logger = new AsyncFileLogger(path, 64, policy)) {
+                logger.info("first day");
+                Assertions.assertTrue(logger.flush(5, TimeUnit.SECONDS));
+
+                clock.instant = clock.instant.plusSeconds(TimeUnit.DAYS.toSeconds(1));
+                logger.info("second day");
+                Assertions.assertTrue(logger.flush(5, TimeUnit.SECONDS));
+            }
+
+            Path rolled = folder.resolve("tsl.2026-10-19.0.log");
+            Assertions.assertTrue(Files.readAllLines(rolled).get(0).endsWith("first day"));
+            Assertions.assertTrue(Files.readAllLines(path).get(0).endsWith("second day"));
+        } finally {
+            deleteRecursively(folder);
+        }
+    }
+
+    @Test
+    public void shouldEnforceTotalBytesRetention() throws Exception {
+        Path folder = Files.createTempDirectory("tsl-rolling");
+
+        try {
+            Path path = folder.resolve("tsl.log");
+            RollingPolicy policy = new RollingPolicy().setMaxFileBytes(1).setMaxTotalBytes(250);
+
+            LocalDate day = LocalDate.of(2026, 10, 19);
+            for (int i = 0; i < 5; i++) {
+                Files.write(folder.resolve("tsl." + day + "." + i + ".log"), new byte[100]);
+            }
+
+            LogArchiver archiver = new LogArchiver(path, policy);
+            archiver.enforceRetention();
+
+            List<LogArchiver.RolledFile> rolledFiles = archiver.listRolledFiles();
+            Assertions.assertEquals(2, rolledFiles.size());
+            Assertions.assertTrue(Files.exists(folder.resolve("tsl." + day + ".4.log")), "Newest files survive");
+            Assertions.assertTrue(Files.exists(folder.resolve("tsl." + day + ".3.log")));
+            Assertions.assertEquals(folder.resolve("tsl." + day + ".5.log"), archiver.nextRolledPath(day));
+        } finally {
+            deleteRecursively(folder);
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+package unit;
+
+import net.programmer.igoodie.tsl.std.action.EitherAction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+public class EitherActionTests {
+
+    // Pearson's chi-squared statistic against the exact weight proportions
+    private static double chiSquared(long[] observed, int[] weights) {
+        long samples = 0, totalWeight = 0;
+        for (long count : observed) samples += count;
+        for (int weight : weights) totalWeight += weight;
+
+        double chiSquared = 0;
+        for (int i = 0; i < weights.length; i++) {
+            double expected = (double) samples * weights[i] / totalWeight;
+            if (expected == 0) {
+                Assertions.assertEquals(0, observed[i], "Zero weight element was never sampled");
+                continue;
+            }
+            chiSquared += Math.pow(observed[i] - expected, 2) / expected;
+        }
+        return chiSquared;
+    }
+
+    private static long[] sampleMany(int[] weights, int samples) {
+        EitherAction.WeightedSampler<Integer> sampler = new EitherAction.WeightedSampler<>();
+        for (int i = 0; i < weights.length; i++) {
+            sampler.addElement(i, weights[i]);
+        }
+        sampler.build();
+
+        SplittableRandom random = new SplittableRandom(42);
+        long[] observed = new long[weights.length];
+        for (int i = 0; i < samples; i++) {
+            observed[sampler.sample(random.nextDouble())]++;
+        }
+        return observed;
+    }
+
+    @Test
+    public void shouldSampleProportionallyToWeights() {
+        int[] weights = {1, 2, 3, 4};
+        long[] observed = sampleMany(weights, 400_000);
+
+        // Critical value for 3 degrees of freedom at p = 0.001
+        Assertions.assertTrue(chiSquared(observed, weights) < 16.27,
+                "Sampled distribution matches the weights");
+    }
+
+    @Test
+    public void shouldSampleChancePercentagesExactly() throws Exception {
+        int[] weights = {
+                EitherAction.PercentageWeight.fromString("0.5"),
+                EitherAction.PercentageWeight.fromString("12.25"),
+                EitherAction.PercentageWeight.fromString("37.25"),
+                EitherAction.PercentageWeight.fromString("50"),
+                0
+        };
+        long[] observed = sampleMany(weights, 400_000);
+
+        // Critical value for 3 degrees of freedom at p = 0.001 (zero weight excluded)
+        Assertions.assertTrue(chiSquared(observed, weights) < 16.27,
+                "Sampled distribution matches the percentages");
+    }
+
+    @Test
+    public void shouldSampleManyBranches() {
+        int[] weights = new int[50];
+        for (int i = 0; i < weights.length; i++) weights[i] = i + 1;
+        long[] observed = sampleMany(weights, 1_000_000);
+
+        // Critical value for 49 degrees of freedom at p = 0.001
+        Assertions.assertTrue(chiSquared(observed, weights) < 85.35,
+                "Sampled distribution matches the weights");
+    }
+
+}
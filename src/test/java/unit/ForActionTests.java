@@ -0,0 +1,154 @@
+package unit;
+
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.exception.TSLPerformingException;
+import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.parser.TSLParser;
+import net.programmer.igoodie.tsl.runtime.action.TSLAction;
+import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import net.programmer.igoodie.tsl.std.action.ForAction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ForActionTests {
+
+    private static final TSLPlatform platform = new TSLPlatform("TestPlatform", 1.0f);
+    private static final List<String> drops = new ArrayList<>();
+
+    // Turns N repetitions into a single drop of N items
+    public static class DropAction extends TSLAction {
+
+        protected final String item;
+
+        public DropAction(TSLPlatform platform, List<String> args) throws TSLSyntaxException {
+            super(platform, args);
+            this.item = args.get(0);
+        }
+
+        @Override
+        public boolean perform(TSLEventContext ctx) {
+            return performRepeated(ctx, 1);
+        }
+
+        @Override
+        public boolean performRepeated(TSLEventContext ctx, int iterations) {
+            drops.add(replaceExpressions(item, ctx) + " x" + iterations);
+            return true;
+        }
+
+        @Override
+        public boolean readsLocalsFromArgsOnly() {
+            return true;
+        }
+
+    }
+
+    // Reads every visible local straight from the frame, without ${...} in its args
+    public static class DumpLocalsAction extends TSLAction {
+
+        public DumpLocalsAction(TSLPlatform platform, List<String> args) throws TSLSyntaxException {
+            super(platform, args);
+        }
+
+        @Override
+        public boolean perform(TSLEventContext ctx) {
+            localSlots.forEach((name, slot) -> drops.add(name + "=" + ctx.getFrame()[slot]));
+            return true;
+        }
+
+    }
+
+    @BeforeAll
+    public static void registerEverything() {
+        platform.initializeStd();
+        platform.registerAction("DROP", DropAction::new);
+        platform.registerAction("DUMP", DumpLocalsAction::new);
+        platform.registerEvent(new TSLEvent("Donation"));
+    }
+
+    @BeforeEach
+    public void clearDrops() {
+        drops.clear();
+    }
+
+    private static void perform(String... script) throws TSLSyntaxException, TSLPerformingException {
+        TSLAction action = new TSLParser(platform, Arrays.asList(script)).parseAction();
+        action.perform(new TSLEventContext(platform, "Donation"));
+    }
+
+    @Test
+    public void shouldBatchRepetitions() throws TSLSyntaxException, TSLPerformingException {
+        perform("FOR", "64", "TIMES", "DROP", "minecraft:diamond");
+        Assertions.assertIterableEquals(Arrays.asList("minecraft:diamond x64"), drops);
+    }
+
+    @Test
+    public void shouldBatchNestedRepetitions() throws TSLSyntaxException, TSLPerformingException {
+        perform("FOR", "i", "FROM", "1", "TO", "3", "FOR", "32", "TIMES", "DROP", "minecraft:stick");
+        Assertions.assertIterableEquals(Arrays.asList("minecraft:stick x96"), drops);
+    }
+
+    @Test
+    public void shouldNotBatchWhenLoopVariableIsRead() throws TSLSyntaxException, TSLPerformingException {
+        perform("FOR", "i", "FROM", "1", "TO", "5", "INCREASING", "2", "DROP", "block_${i}");
+        Assertions.assertIterableEquals(Arrays.asList("block_1 x1", "block_3 x1", "block_5 x1"), drops);
+    }
+
+    @Test
+    public void shouldKeepNestedLoopVariablesApart() throws TSLSyntaxException, TSLPerformingException {
+        perform("FOR", "i", "FROM", "1", "TO", "2",
+                "FOR", "j", "FROM", "5", "TO", "6", "DROP", "cell_${i}_${j}");
+        Assertions.assertIterableEquals(Arrays.asList(
+                "cell_1_5 x1", "cell_1_6 x1", "cell_2_5 x1", "cell_2_6 x1"), drops);
+    }
+
+    @Test
+    public void shouldRejectNonPositiveIncrement() {
+        Assertions.assertThrows(TSLSyntaxException.class,
+                () -> perform("FOR", "i", "FROM", "1", "TO", "5", "INCREASING", "0", "DROP", "apple"));
+    }
+
+    @Test
+    public void shouldNotBatchBodiesThatDidNotOptIn() throws TSLSyntaxException, TSLPerformingException {
+        perform("FOR", "i", "FROM", "1", "TO", "3", "DUMP");
+        Assertions.assertIterableEquals(Arrays.asList("i=1", "i=2", "i=3"), drops);
+    }
+
+    @Test
+    public void shouldNotBatchOnSimilarlyNamedVariables() throws TSLSyntaxException, TSLPerformingException {
+        perform("FOR", "i", "FROM", "1", "TO", "2", "DROP", "block_${id}");
+        Assertions.assertIterableEquals(Arrays.asList("block_null x2"), drops);
+    }
+
+    @Test
+    public void shouldCountIterationsWithoutOverflow() throws TSLSyntaxException, TSLPerformingException {
+        ForAction wholeRange = (ForAction) new TSLParser(platform, Arrays.asList(
+                "FOR", "i", "FROM", "-2147483648", "TO", "2147483647", "DROP", "apple")).parseAction();
+        Assertions.assertEquals(1L << 32, wholeRange.getIterations());
+
+        perform("FOR", "i", "FROM", "2147483645", "TO", "2147483647", "DROP", "block_${i}");
+        Assertions.assertIterableEquals(Arrays.asList(
+                "block_2147483645 x1", "block_2147483646 x1", "block_2147483647 x1"), drops);
+    }
+
+    @Test
+    public void shouldBoundTemplatesBuiltAtPerformTime() throws TSLSyntaxException {
+        TSLAction action = new TSLParser(platform, Arrays.asList("NOTHING", "DISPLAYING", "Got ${count} apples")).parseAction();
+        TSLEventContext ctx = new TSLEventContext(platform, "Donation");
+
+        for (int i = 0; i < TSLAction.MAX_TEMPLATES * 4; i++) {
+            Assertions.assertEquals("item_" + i + "_", action.replaceExpressions("item_" + i + "_${missing}", ctx).replace("null", ""));
+        }
+
+        Assertions.assertEquals(TSLAction.MAX_TEMPLATES, action.getCachedTemplates());
+        Assertions.assertEquals(Arrays.asList("Got null apples"), action.getCalculatedMessage(ctx)); // Compiled at parse time
+    }
+
+}
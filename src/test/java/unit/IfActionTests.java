@@ -0,0 +1,176 @@
+package unit;
+
+import net.programmer.igoodie.goodies.runtime.GoodieObject;
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.exception.TSLPerformingException;
+import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.parser.CharStream;
+import net.programmer.igoodie.tsl.parser.TSLLexer;
+import net.programmer.igoodie.tsl.parser.TSLParser;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import net.programmer.igoodie.tsl.runtime.action.TSLAction;
+import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import net.programmer.igoodie.tsl.runtime.predicate.TSLCondition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IfActionTests {
+
+    private static final TSLPlatform platform = new TSLPlatform("TestPlatform", 1.0f);
+    private static final List<String> marks = new ArrayList<>();
+    private static final Map<String, AtomicInteger> reads = new ConcurrentHashMap<>();
+
+    // Counts how many times each property is read
+    private static <T> TSLEvent.Property<T> counting(String propertyName, TSLEvent.Property.Reader<T> reader) {
+        return new TSLEvent.PropertyBuilder<T>((eventArgs, name) -> {
+            reads.computeIfAbsent(name, k -> new AtomicInteger()).incrementAndGet();
+            return reader.read(eventArgs, name);
+        }, (eventArgs, name, value) -> eventArgs.put(name, value.toString())).create(propertyName);
+    }
+
+    @BeforeAll
+    public static void registerEverything() {
+        platform.initializeStd();
+
+        platform.registerAction("MARK", (platform, args) -> new TSLAction(platform, args) {
+            @Override
+            public boolean perform(TSLEventContext ctx) {
+                marks.add(args.get(0));
+                return true;
+            }
+        });
+
+        platform.registerEvent(new TSLEvent("Donation")
+                .addPropertyType(counting("amount", GoodieObject::getDouble))
+                .addPropertyType(counting("message", GoodieObject::getString))
+                .addPropertyType(counting("actor", GoodieObject::getString)));
+    }
+
+    @BeforeEach
+    public void clearState() {
+        marks.clear();
+        reads.clear();
+    }
+
+    private static TSLRuleset parse(String script) throws IOException, TSLSyntaxException {
+        List<TSLLexer.Token> tokens = new TSLLexer(CharStream.fromString(script)).tokenize();
+        return new TSLParser(platform, "Player:iGoodie", tokens).parse();
+    }
+
+    private static void donate(TSLRuleset ruleset, double amount, String message, String actor) throws TSLPerformingException {
+        TSLEventContext ctx = new TSLEventContext(platform, "Donation");
+        ctx.setTarget("Player:iGoodie");
+        ctx.getEventArgs().put("amount", amount);
+        ctx.getEventArgs().put("message", message);
+        ctx.getEventArgs().put("actor", actor);
+        ruleset.perform(ctx);
+    }
+
+    private static int readsOf(String property) {
+        AtomicInteger count = reads.get(property);
+        return count == null ? 0 : count.get();
+    }
+
+    @Test
+    public void shouldEvaluateCompoundConditions() throws IOException, TSLSyntaxException, TSLPerformingException {
+        TSLRuleset ruleset = parse("IF amount > 10 AND message CONTAINS gg THEN MARK yes ELSE MARK no ON Donation");
+
+        donate(ruleset, 20, "gg wp", "Alice");
+        donate(ruleset, 20, "hello", "Alice");
+        donate(ruleset, 5, "gg", "Alice");
+
+        Assertions.assertIterableEquals(Arrays.asList("yes", "no", "no"), marks);
+    }
+
+    @Test
+    public void shouldRespectPrecedenceAndGrouping() throws IOException, TSLSyntaxException, TSLPerformingException {
+        // AND binds tighter than OR, parentheses and NOT override it
+        TSLRuleset precedence = parse("IF actor IS Bob OR amount > 10 AND message CONTAINS gg THEN MARK first ON Donation");
+        TSLRuleset grouping = parse("IF ( actor IS Bob OR amount > 10 ) AND NOT message CONTAINS gg THEN MARK second ON Donation");
+
+        donate(precedence, 1, "hello", "Bob");
+        donate(grouping, 1, "hello", "Bob");
+        Assertions.assertIterableEquals(Arrays.asList("first", "second"), marks);
+
+        marks.clear();
+        donate(precedence, 50, "gg", "Alice");
+        donate(grouping, 50, "gg", "Alice");
+        Assertions.assertIterableEquals(Arrays.asList("first"), marks);
+    }
+
+    @Test
+    public void shouldReadEachPropertyOnce() throws IOException, TSLSyntaxException, TSLPerformingException {
+        TSLRuleset ruleset = parse("IF amount > 10 AND amount < 100 AND ( message CONTAINS gg OR message CONTAINS wp ) THEN MARK yes ON Donation");
+
+        donate(ruleset, 20, "well played, wp", "Alice");
+
+        Assertions.assertIterableEquals(Arrays.asList("yes"), marks);
+        Assertions.assertEquals(1, readsOf("amount"));
+        Assertions.assertEquals(1, readsOf("message"));
+        Assertions.assertEquals(0, readsOf("actor"));
+    }
+
+    @Test
+    public void shouldShortCircuit() throws IOException, TSLSyntaxException, TSLPerformingException {
+        TSLRuleset ruleset = parse("IF amount > 10 AND message CONTAINS gg THEN MARK yes ON Donation");
+
+        donate(ruleset, 5, "gg", "Alice");
+
+        Assertions.assertTrue(marks.isEmpty());
+        Assertions.assertEquals(0, readsOf("message"), "Right operand was never evaluated");
+    }
+
+    @Test
+    public void shouldRejectMalformedConditions() {
+        Assertions.assertThrows(TSLSyntaxException.class,
+                () -> new TSLParser(platform, Arrays.asList("(", "amount", ">", "10")).parseCondition());
+        Assertions.assertThrows(TSLSyntaxException.class,
+                () -> new TSLParser(platform, Arrays.asList("amount", ">", "10", "AND")).parseCondition());
+        Assertions.assertThrows(TSLSyntaxException.class,
+                () -> new TSLParser(platform, Arrays.asList("amount", ">", "10", ")")).parseCondition());
+    }
+
+    @Test
+    public void shouldKeepConditionsWholeInsideSequentiallyAndEither() throws IOException, TSLSyntaxException, TSLPerformingException {
+        TSLRuleset sequentially = parse("SEQUENTIALLY IF amount > 10 AND message CONTAINS gg THEN MARK big ELSE MARK small AND MARK after ON Donation");
+        TSLRuleset either = parse("EITHER IF amount > 10 OR message CONTAINS gg THEN MARK match ELSE MARK miss OR IF amount > 10 OR message CONTAINS gg THEN MARK match ELSE MARK miss ON Donation");
+
+        donate(sequentially, 20, "gg", "Alice");
+        donate(sequentially, 20, "hello", "Alice");
+        donate(either, 5, "gg", "Alice");
+        donate(either, 5, "hello", "Alice");
+
+        Assertions.assertIterableEquals(Arrays.asList("big", "after", "small", "after", "match", "miss"), marks);
+    }
+
+    @Test
+    public void shouldPointOutParenthesesWithoutSpaces() {
+        TSLSyntaxException opening = Assertions.assertThrows(TSLSyntaxException.class,
+                () -> new TSLParser(platform, Arrays.asList("(amount", ">", "10", ")")).parseCondition());
+        TSLSyntaxException closing = Assertions.assertThrows(TSLSyntaxException.class,
+                () -> new TSLParser(platform, Arrays.asList("(", "amount", ">", "10)")).parseCondition());
+
+        Assertions.assertTrue(opening.getMessage().contains("(amount"), opening.getMessage());
+        Assertions.assertTrue(closing.getMessage().contains("10)"), closing.getMessage());
+    }
+
+    @Test
+    public void shouldCollectDistinctFields() throws TSLSyntaxException {
+        TSLCondition condition = new TSLParser(platform, Arrays.asList(
+                "NOT", "amount", ">", "10", "OR", "message", "IS", "hi", "OR", "amount", "<", "2")).parseCondition();
+
+        Assertions.assertIterableEquals(Arrays.asList("amount", "message"), condition.getFieldNames());
+    }
+
+}
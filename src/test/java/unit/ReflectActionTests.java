@@ -0,0 +1,330 @@
+package unit;
+
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.parser.TSLParser;
+import net.programmer.igoodie.tsl.runtime.action.TSLAction;
+import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import net.programmer.igoodie.tsl.runtime.executor.TSLBoundedDispatcher;
+import net.programmer.igoodie.tsl.std.action.ReflectAction;
+import net.programmer.igoodie.tsl.util.LatencyHistogram;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ReflectActionTests {
+
+    private static final TSLPlatform platform = new TSLPlatform("TestPlatform", 1.0f);
+
+    @BeforeAll
+    public static void registerEverything() {
+        platform.initializeStd();
+        platform.registerEvent(new TSLEvent("Donation"));
+    }
+
+    private static class FixedProvider implements ReflectAction.ReflectProvider {
+
+        protected final List<String> players;
+        protected final AtomicLong batches = new AtomicLong();
+        protected final AtomicLong reflections = new AtomicLong();
+
+        public FixedProvider(String... players) {
+            this.players = Arrays.asList(players);
+        }
+
+        @Override
+        public List<String> getEventTargets(String originalTarget, List<String> targets) {
+            return targets;
+        }
+
+        @Override
+        public List<String> getAllEventTargets(String originalTarget) {
+            return players;
+        }
+
+        @Override
+        public List<String> getRandomEventTargets(String originalTarget, int count) {
+            return players.subList(0, Math.min(count, players.size()));
+        }
+
+        @Override
+        public void onEventReflection(String originalTarget, TSLAction action, TSLEventContext ctx) {
+            reflections.incrementAndGet();
+        }
+
+        @Override
+        public void onEventReflectionBatch(String originalTarget, TSLAction action, List<TSLEventContext> contexts) {
+            batches.incrementAndGet();
+            ReflectAction.ReflectProvider.super.onEventReflectionBatch(originalTarget, action, contexts);
+        }
+
+    }
+
+    private static void awaitDelivery() throws InterruptedException {
+        TSLBoundedDispatcher dispatcher = ReflectAction.getDispatcher();
+        if (dispatcher != null) {
+            Assertions.assertTrue(dispatcher.awaitIdle(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private static TSLEventContext donation() {
+        TSLEventContext ctx = new TSLEventContext(platform, "Donation");
+        ctx.setTarget("Player:iGoodie");
+        return ctx;
+    }
+
+    @Test
+    public void shouldDeliverReflectionsInOneBatchPerProvider() throws Exception {
+        TSLAction action = new TSLParser(platform, Arrays.asList("REFLECT", "*", "ONLY", "NOTHING")).parseAction();
+        FixedProvider provider = (FixedProvider) ReflectAction.registerProvider(
+                new FixedProvider("Player:A", "Player:B", "Player:C"));
+
+        try {
+            Assertions.assertNotNull(ReflectAction.getDispatcher(), "Queued delivery by default");
+            action.perform(donation());
+            awaitDelivery();
+            Assertions.assertEquals(1, provider.batches.get());
+            Assertions.assertEquals(3, provider.reflections.get());
+        } finally {
+            provider.unsubscribe();
+        }
+
+        Assertions.assertFalse(ReflectAction.getProviders().contains(provider));
+    }
+
+    @Test
+    public void shouldTolerateSubscriptionChurnWhileReflecting() throws Exception {
+        TSLAction action = new TSLParser(platform, Arrays.asList("REFLECT", "*", "ONLY", "NOTHING")).parseAction();
+        FixedProvider stableProvider = (FixedProvider) ReflectAction.registerProvider(
+                new FixedProvider("Player:A", "Player:B"));
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<CompletableFuture<Void>> churners = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            churners.add(CompletableFuture.runAsync(() -> {
+                while (running.get()) {
+                    ReflectAction.registerProvider(new FixedProvider("Player:C")).unsubscribe();
+                }
+            }, command -> new Thread(command).start()));
+        }
+
+        try {
+            int performs = 20_000;
+            for (int i = 0; i < performs; i++) {
+                action.perform(donation());
+            }
+            awaitDelivery();
+
+            Assertions.assertEquals(performs, stableProvider.batches.get());
+            Assertions.assertTrue(stableProvider.reflections.get() >= 2L * performs);
+
+        } finally {
+            running.set(false);
+            CompletableFuture.allOf(churners.toArray(new CompletableFuture[0])).join();
+            stableProvider.unsubscribe();
+        }
+
+        Assertions.assertEquals(0, ReflectAction.getProviders().size());
+    }
+
+    private static class VersionedProvider extends FixedProvider {
+
+        protected final AtomicLong version = new AtomicLong();
+        protected final AtomicLong lookups = new AtomicLong();
+
+        public VersionedProvider(String... players) {
+            super(players);
+        }
+
+        @Override
+        public long getTargetsVersion(String originalTarget) {
+            return version.get();
+        }
+
+        @Override
+        public List<String> getAllEventTargets(String originalTarget) {
+            lookups.incrementAndGet();
+            return super.getAllEventTargets(originalTarget);
+        }
+
+        @Override
+        public List<String> getRandomEventTargets(String originalTarget, int count) {
+            throw new IllegalStateException("Random targets should be sampled from the cached set");
+        }
+
+    }
+
+    @Test
+    public void shouldReuseVersionedTargetSets() throws Exception {
+        TSLAction greedyAction = new TSLParser(platform, Arrays.asList("REFLECT", "*", "ONLY", "NOTHING")).parseAction();
+        TSLAction randomAction = new TSLParser(platform, Arrays.asList("REFLECT", "2", "ONLY", "NOTHING")).parseAction();
+        VersionedProvider provider = (VersionedProvider) ReflectAction.registerProvider(
+                new VersionedProvider("Player:A", "Player:B", "Player:C", "Player:D"));
+
+        try {
+            greedyAction.perform(donation());
+            greedyAction.perform(donation());
+            awaitDelivery();
+            Assertions.assertEquals(1, provider.lookups.get());
+            Assertions.assertEquals(8, provider.reflections.get());
+
+            provider.version.incrementAndGet();
+            greedyAction.perform(donation());
+            Assertions.assertEquals(2, provider.lookups.get());
+
+            Set<String> seen = new HashSet<>();
+            for (int i = 0; i < 200; i++) {
+                List<TSLEventContext> reflected = Collections.synchronizedList(new ArrayList<>());
+                ReflectAction.ReflectProvider collector = ReflectAction.registerProvider(new FixedProvider() {
+                    @Override
+                    public void onEventReflection(String originalTarget, TSLAction action, TSLEventContext ctx) {
+                        reflected.add(ctx);
+                    }
+                });
+
+                randomAction.perform(donation());
+                awaitDelivery();
+                collector.unsubscribe();
+
+                Assertions.assertEquals(2, reflected.size());
+                Assertions.assertNotEquals(reflected.get(0).getTarget(), reflected.get(1).getTarget());
+                reflected.forEach(ctx -> seen.add(ctx.getTarget()));
+            }
+
+            Assertions.assertEquals(4, seen.size(), "Every player gets picked eventually");
+            Assertions.assertEquals(2, provider.lookups.get());
+
+        } finally {
+            provider.unsubscribe();
+        }
+    }
+
+    @Test
+    public void shouldNotResolveTargetSetsForExplicitTargets() throws Exception {
+        TSLAction action = new TSLParser(platform, Arrays.asList("REFLECT", "Player:A, Player:B", "ONLY", "NOTHING")).parseAction();
+        VersionedProvider provider = (VersionedProvider) ReflectAction.registerProvider(new VersionedProvider("Player:A") {
+            @Override
+            public long getTargetsVersion(String originalTarget) {
+                throw new IllegalStateException("Explicit targets don't need a version");
+            }
+        });
+
+        try {
+            action.perform(donation());
+            awaitDelivery();
+            Assertions.assertEquals(2, provider.reflections.get());
+            Assertions.assertEquals(0, provider.lookups.get());
+            Assertions.assertEquals(0, ReflectAction.getCachedTargetSets(provider));
+        } finally {
+            provider.unsubscribe();
+        }
+    }
+
+    @Test
+    public void shouldBoundAndReleaseTargetSets() throws Exception {
+        TSLAction action = new TSLParser(platform, Arrays.asList("REFLECT", "*", "ONLY", "NOTHING")).parseAction();
+        VersionedProvider provider = (VersionedProvider) ReflectAction.registerProvider(
+                new VersionedProvider("Player:A", "Player:B"));
+
+        try {
+            for (int i = 0; i < ReflectAction.MAX_TARGET_SETS * 2; i++) {
+                TSLEventContext ctx = donation();
+                ctx.setTarget("Player:" + i);
+                action.perform(ctx);
+            }
+            awaitDelivery();
+            Assertions.assertTrue(ReflectAction.getCachedTargetSets(provider) <= ReflectAction.MAX_TARGET_SETS);
+        } finally {
+            provider.unsubscribe();
+        }
+        Assertions.assertEquals(0, ReflectAction.getCachedTargetSets(provider));
+
+        // Unsubscribes after the perform took its provider snapshot, but before the targets are cached
+        VersionedProvider leaving = (VersionedProvider) ReflectAction.registerProvider(new VersionedProvider("Player:A") {
+            @Override
+            public long getTargetsVersion(String originalTarget) {
+                unsubscribe();
+                return super.getTargetsVersion(originalTarget);
+            }
+        });
+        action.perform(donation());
+        awaitDelivery();
+
+        Assertions.assertFalse(ReflectAction.isRegistered(leaving));
+        Assertions.assertEquals(0, ReflectAction.getCachedTargetSets(leaving));
+    }
+
+    @Test
+    public void shouldReturnBeforeSlowDeliveriesFinish() throws Exception {
+        TSLAction action = new TSLParser(platform, Arrays.asList("REFLECT", "*", "ONLY", "NOTHING")).parseAction();
+        TSLBoundedDispatcher previousDispatcher = ReflectAction.getDispatcher();
+        TSLBoundedDispatcher dispatcher = new TSLBoundedDispatcher("Test", 4);
+        ReflectAction.setDispatcher(dispatcher);
+
+        String[] players = new String[32];
+        for (int i = 0; i < players.length; i++) players[i] = "Player:" + i;
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peakInFlight = new AtomicInteger();
+        Map<ReflectAction.ReflectProvider, List<Integer>> deliveredRounds = new ConcurrentHashMap<>();
+        List<FixedProvider> providers = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            providers.add((FixedProvider) ReflectAction.registerProvider(new FixedProvider(players) {
+                @Override
+                public void onEventReflectionBatch(String originalTarget, TSLAction action, List<TSLEventContext> contexts) {
+                    peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException ignored) {}
+                    super.onEventReflectionBatch(originalTarget, action, contexts);
+                    deliveredRounds.computeIfAbsent(this, p -> Collections.synchronizedList(new ArrayList<>()))
+                            .add(contexts.get(0).getEventArgs().getInteger("round").orElse(-1));
+                    inFlight.decrementAndGet();
+                }
+            }));
+        }
+
+        try {
+            long t0 = System.nanoTime();
+            for (int round = 0; round < 3; round++) {
+                TSLEventContext ctx = donation();
+                ctx.getEventArgs().put("round", round);
+                action.perform(ctx);
+            }
+            long t1 = System.nanoTime();
+
+            Assertions.assertTrue(TimeUnit.NANOSECONDS.toMillis(t1 - t0) < 200, "Rule returned once queued");
+            Assertions.assertTrue(dispatcher.awaitIdle(10, TimeUnit.SECONDS));
+
+            // Every batch sleeps 20ms, at most 4 of the 24 at once
+            LatencyHistogram latency = dispatcher.getDeliveryLatency();
+            Assertions.assertEquals(24, latency.getCount());
+            Assertions.assertTrue(latency.getPercentile(50) >= TimeUnit.MILLISECONDS.toNanos(20));
+            Assertions.assertTrue(latency.getPercentile(99) >= TimeUnit.MILLISECONDS.toNanos(120),
+                    "Last batches waited behind 5 rounds of 4 -> " + latency);
+
+            Assertions.assertTrue(peakInFlight.get() <= 4, "In-flight limit was respected");
+            Assertions.assertEquals(providers.size(), deliveredRounds.size());
+            deliveredRounds.values().forEach(rounds -> Assertions.assertIterableEquals(Arrays.asList(0, 1, 2), rounds));
+            for (FixedProvider provider : providers) {
+                Assertions.assertEquals(3, provider.batches.get(), "One batch per provider and REFLECT");
+                Assertions.assertEquals(3L * players.length, provider.reflections.get());
+            }
+
+        } finally {
+            providers.forEach(ReflectAction.ReflectProvider::unsubscribe);
+            ReflectAction.setDispatcher(previousDispatcher);
+        }
+    }
+
+}
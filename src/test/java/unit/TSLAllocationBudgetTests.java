@@ -0,0 +1,237 @@
+package unit;
+
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.parser.CharStream;
+import net.programmer.igoodie.tsl.parser.TSLLexer;
+import net.programmer.igoodie.tsl.parser.TSLParser;
+import net.programmer.igoodie.tsl.replay.RecordingStubs;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import net.programmer.igoodie.tsl.runtime.action.TSLAction;
+import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+// Bytes allocated per operation on the dispatch path, against the budgets in allocation-budgets.properties.
+// Each scenario is warmed up first, so the JIT has had its chance to scalar replace what it can.
+public class TSLAllocationBudgetTests {
+
+    private static final String BUDGETS = "/allocation-budgets.properties";
+    private static final String TARGET = "Player:iGoodie";
+    private static final int WARMUP = 50_000;
+    private static final int STABLE_ROUNDS = 5;
+    private static final int MAX_ROUNDS = 100;
+    private static final int OPERATIONS = 20_000;
+
+    private static final String SCRIPT = String.join("\n",
+            "DROP diamond 1",
+            " DISPLAYING %${actor} donated ${amount}${currency}!%",
+            " ON Donation WITH amount >= 100",
+            "",
+            "EITHER DROP apple OR DROP stick OR DROP %golden_carrot%",
+            " ON Donation",
+            "",
+            "SUMMON creeper DISPLAYING %${actor} wanted a creeper%",
+            " ON Twitch Chat Message WITH message CONTAINS creeper",
+            "",
+            "IF months > 12 AND tier >= 2 THEN DROP cake ELSE DROP cookie",
+            " ON Twitch Subscription",
+            "",
+            "FOR 3 TIMES DROP arrow",
+            " ON Twitch Subscription Gift");
+
+    private static TSLPlatform platform;
+    private static TSLRuleset ruleset;
+    private static Properties budgets;
+    private static volatile Object escaped;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        platform = new TSLPlatform("TestPlatform", 1.0f);
+        platform.initializeStd();
+        platform.registerExpression("actor", (expr, ctx) -> ctx.getEventArgs().getString(expr));
+        platform.registerExpression("amount", (expr, ctx) -> ctx.getEventArgs().getDouble(expr));
+        platform.registerExpression("currency", (expr, ctx) -> ctx.getEventArgs().getString(expr));
+
+        TSLEvent.Property<String> actor = TSLEvent.PropertyBuilder.STRING.create("actor");
+        TSLEvent.Property<String> message = TSLEvent.PropertyBuilder.STRING.create("message");
+        TSLEvent.Property<Integer> tier = TSLEvent.PropertyBuilder.INT.create("tier");
+        platform.registerEvent(new TSLEvent("Donation").addPropertyType(actor).addPropertyType(message)
+                .addPropertyType(TSLEvent.PropertyBuilder.DOUBLE.create("amount"))
+                .addPropertyType(TSLEvent.PropertyBuilder.STRING.create("currency")));
+        platform.registerEvent(new TSLEvent("Twitch Chat Message").addPropertyType(actor).addPropertyType(message));
+        platform.registerEvent(new TSLEvent("Twitch Subscription").addPropertyType(actor).addPropertyType(tier)
+                .addPropertyType(TSLEvent.PropertyBuilder.INT.create("months")));
+        platform.registerEvent(new TSLEvent("Twitch Subscription Gift").addPropertyType(actor).addPropertyType(tier));
+
+        new RecordingStubs().install(platform, "DROP", "SUMMON");
+        platform.freeze();
+
+        ruleset = new TSLParser(platform, TARGET, new TSLLexer(CharStream.fromString(SCRIPT)).tokenize()).parse();
+        budgets = loadBudgets();
+    }
+
+    private static Properties loadBudgets() throws IOException {
+        Properties budgets = new Properties();
+        try (InputStream input = TSLAllocationBudgetTests.class.getResourceAsStream(BUDGETS)) {
+            Assertions.assertNotNull(input, "Missing " + BUDGETS);
+            budgets.load(input);
+        }
+        return budgets;
+    }
+
+    private static TSLEventContext donation(double amount) {
+        TSLEventContext ctx = new TSLEventContext(platform, "Donation");
+        ctx.setTarget(TARGET);
+        ctx.getEventArgs().put("actor", "viewer_42");
+        ctx.getEventArgs().put("message", "gg");
+        ctx.getEventArgs().put("amount", amount);
+        ctx.getEventArgs().put("currency", "USD");
+        return ctx;
+    }
+
+    private static TSLEventContext event(String eventName, Object... keyValues) {
+        TSLEventContext ctx = new TSLEventContext(platform, eventName);
+        ctx.setTarget(TARGET);
+        for (int i = 0; i < keyValues.length; i += 2) {
+            ctx.getEventArgs().put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return ctx;
+    }
+
+    private static TSLAction displaying(String message) throws Exception {
+        return new TSLParser(platform, Arrays.asList("NOTHING", "DISPLAYING", message)).parseAction();
+    }
+
+    @Test
+    public void shouldCreateContextsWithinBudget() throws Exception {
+        checkBudgets(new Scenario("context.donation", () -> donation(500)));
+    }
+
+    // Every event gets a fresh context, like a real dispatch. What creating it takes is measured
+    // on its own and left out, so a budget counts what the ruleset allocates for that event.
+    @Test
+    public void shouldPerformWithinBudget() throws Exception {
+        checkBudgets(
+                performing("perform.first-rule", () -> donation(500)),
+                performing("perform.either", () -> donation(5)),
+                performing("perform.if", () -> event("Twitch Subscription", "actor", "viewer_7", "months", 24, "tier", 2)),
+                performing("perform.for", () -> event("Twitch Subscription Gift", "actor", "viewer_7", "tier", 1)),
+                performing("perform.no-match", () -> event("Twitch Chat Message", "actor", "viewer_7", "message", "hello")));
+    }
+
+    private static Scenario performing(String name, Operation newContext) {
+        return new Scenario(name, newContext, () -> {
+            TSLEventContext ctx = (TSLEventContext) newContext.run();
+            consume(ctx);
+            return ruleset.perform(ctx);
+        });
+    }
+
+    @Test
+    public void shouldRenderMessagesWithinBudget() throws Exception {
+        TSLEventContext ctx = donation(500);
+        TSLAction literal = displaying("Thanks for the support!");
+        TSLAction expressions = displaying("${actor} donated ${amount}${currency}!");
+
+        checkBudgets(
+                new Scenario("message.literal", () -> literal.getCalculatedMessage(ctx)),
+                new Scenario("message.expressions", () -> expressions.getCalculatedMessage(ctx)));
+    }
+
+    private static void checkBudgets(Scenario... scenarios) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threads instanceof com.sun.management.ThreadMXBean, "No per-thread allocation counters");
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        Assumptions.assumeTrue(allocations.isThreadAllocatedMemorySupported(), "No per-thread allocation counters");
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        List<String> exceeded = new ArrayList<>();
+
+        for (Scenario scenario : scenarios) {
+            String budget = budgets.getProperty(scenario.name);
+            long measured = bytesPerOperation(allocations, scenario.operation);
+            if (scenario.baseline != null) {
+                measured -= bytesPerOperation(allocations, scenario.baseline);
+            }
+            Assertions.assertNotNull(budget, "No budget for " + scenario.name + ", measured " + measured + " B");
+
+            long allowed = Long.parseLong(budget.trim());
+            System.out.printf("Allocation %-20s %5d B/op (budget %d B)%n", scenario.name, measured, allowed);
+            if (measured > allowed) {
+                exceeded.add(scenario.name + ": " + measured + " B > " + allowed + " B");
+            }
+        }
+
+        Assertions.assertTrue(exceeded.isEmpty(), "Allocation budgets exceeded -> " + exceeded);
+    }
+
+    // Least of the rounds, measured until it stops improving. Code still running before its
+    // final compilation allocates more, as does a round hit by class loading or a deoptimization.
+    private static long bytesPerOperation(com.sun.management.ThreadMXBean allocations, Operation operation) throws Exception {
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP; i++) {
+            consume(operation.run());
+        }
+
+        long best = Long.MAX_VALUE;
+        int unchangedRounds = 0;
+        for (int round = 0; round < MAX_ROUNDS && unchangedRounds < STABLE_ROUNDS; round++) {
+            long before = allocations.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < OPERATIONS; i++) {
+                consume(operation.run());
+            }
+            long allocated = (allocations.getThreadAllocatedBytes(threadId) - before) / OPERATIONS;
+
+            if (allocated < best) {
+                best = allocated;
+                unchangedRounds = 0;
+            } else {
+                unchangedRounds++;
+            }
+        }
+        return best;
+    }
+
+    // Everything handed out escapes through a static, the same way on every run. Whether escape
+    // analysis could see through a cheaper sink depended on inlining, and so did the numbers.
+    private static void consume(Object result) {
+        escaped = result;
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        Object run() throws Exception;
+    }
+
+    private static class Scenario {
+
+        final String name;
+        final Operation baseline; // Measured on its own and subtracted, may be null
+        final Operation operation;
+
+        Scenario(String name, Operation operation) {
+            this(name, null, operation);
+        }
+
+        Scenario(String name, Operation baseline, Operation operation) {
+            this.name = name;
+            this.baseline = baseline;
+            this.operation = operation;
+        }
+
+    }
+
+}
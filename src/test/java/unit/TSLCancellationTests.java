@@ -0,0 +1,114 @@
+package unit;
+
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.exception.TSLCancellationException;
+import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.parser.CharStream;
+import net.programmer.igoodie.tsl.parser.TSLLexer;
+import net.programmer.igoodie.tsl.parser.TSLParser;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import net.programmer.igoodie.tsl.runtime.action.TSLAction;
+import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import net.programmer.igoodie.tsl.runtime.executor.TSLExecutor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TSLCancellationTests {
+
+    private static final TSLPlatform platform = new TSLPlatform("TestPlatform", 1.0f);
+    private static final AtomicInteger marks = new AtomicInteger();
+
+    @BeforeAll
+    public static void registerEverything() {
+        platform.initializeStd();
+
+        platform.registerAction("MARK", (platform, args) -> new TSLAction(platform, args) {
+            @Override
+            public boolean perform(TSLEventContext ctx) {
+                marks.incrementAndGet();
+                return true;
+            }
+        });
+
+        platform.registerEvent(new TSLEvent("Donation"));
+    }
+
+    private static TSLRuleset parse(String script) throws IOException, TSLSyntaxException {
+        List<TSLLexer.Token> tokens = new TSLLexer(CharStream.fromString(script)).tokenize();
+        return new TSLParser(platform, "Player:iGoodie", tokens).parse();
+    }
+
+    private static TSLEventContext donation() {
+        TSLEventContext ctx = new TSLEventContext(platform, "Donation");
+        ctx.setTarget("Player:iGoodie");
+        return ctx;
+    }
+
+    private static Throwable rootCause(Throwable e) {
+        while (e.getCause() != null) e = e.getCause();
+        return e;
+    }
+
+    @Test
+    public void shouldStopLongLoopAtEventDeadline() throws IOException, TSLSyntaxException {
+        TSLRuleset ruleset = parse("FOR 1000 TIMES WAIT 1 seconds ON Donation");
+        TSLExecutor executor = new TSLExecutor("Player:iGoodie");
+
+        TSLEventContext ctx = donation();
+        ctx.setTimeout(200, TimeUnit.MILLISECONDS);
+
+        long t0 = System.currentTimeMillis();
+        CompletionException e = Assertions.assertThrows(CompletionException.class,
+                () -> executor.resolvePerform(ruleset, ctx).join());
+        long t1 = System.currentTimeMillis();
+
+        Assertions.assertTrue(rootCause(e) instanceof TSLCancellationException);
+        Assertions.assertTrue(t1 - t0 < 1000, "Stopped right at the deadline");
+    }
+
+    @Test
+    public void shouldReleaseWaitingWorkOnCancel() throws IOException, TSLSyntaxException, InterruptedException {
+        TSLRuleset ruleset = parse("SEQUENTIALLY WAIT 10 seconds AND MARK ON Donation");
+        TSLExecutor executor = new TSLExecutor("Player:iGoodie");
+
+        TSLEventContext ctx = donation();
+        int marksBefore = marks.get();
+
+        CompletableFuture<List<String>> performing = executor.resolveCallable(() -> ruleset.perform(ctx));
+        CompletableFuture<List<String>> future = executor.resolvePerform(ruleset, ctx.copy());
+
+        Thread.sleep(100);
+        long t0 = System.currentTimeMillis();
+        future.cancel(true);
+
+        Assertions.assertThrows(CompletionException.class, performing::join);
+        long t1 = System.currentTimeMillis();
+
+        Assertions.assertTrue(ctx.isCancelled(), "Cancellation reached the original context");
+        Assertions.assertTrue(t1 - t0 < 1000, "WAIT was released right away");
+        Assertions.assertEquals(marksBefore, marks.get());
+    }
+
+    @Test
+    public void shouldApplyRuleTimeout() throws IOException, TSLSyntaxException {
+        TSLRuleset ruleset = parse("FOR 100 TIMES SEQUENTIALLY MARK AND WAIT 50 milliseconds ON Donation");
+        ruleset.getRules().get(0).setTimeout(120, TimeUnit.MILLISECONDS);
+
+        TSLEventContext ctx = donation();
+        int marksBefore = marks.get();
+
+        Assertions.assertThrows(TSLCancellationException.class, () -> ruleset.perform(ctx));
+        Assertions.assertTrue(marks.get() - marksBefore <= 4, "Loop stopped at the rule deadline");
+        Assertions.assertEquals(TSLEventContext.NO_DEADLINE, ctx.getDeadline(), "Event deadline was restored");
+    }
+
+}
@@ -0,0 +1,62 @@
+package unit;
+
+import net.programmer.igoodie.tsl.TSLDefinitionProvider;
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.parser.TSLParser;
+import net.programmer.igoodie.tsl.runtime.action.TSLAction;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class TSLDefinitionProviderTests {
+
+    static volatile boolean probeLoaded;
+
+    // Listed in src/test/resources/META-INF/services
+    public static class TestProvider implements TSLDefinitionProvider {
+
+        @Override
+        public void registerDefinitions(TSLPlatform platform) {
+            platform.registerLazyAction("PROBE", () -> ProbeAction::new);
+        }
+
+    }
+
+    public static class ProbeAction extends TSLAction {
+
+        static {
+            probeLoaded = true;
+        }
+
+        public ProbeAction(TSLPlatform platform, List<String> args) throws TSLSyntaxException {
+            super(platform, args);
+        }
+
+        @Override
+        public boolean perform(TSLEventContext ctx) {
+            return true;
+        }
+
+    }
+
+    @Test
+    public void shouldDiscoverProvidersWithoutLoadingDefinitions() throws TSLSyntaxException {
+        TSLPlatform platform = new TSLPlatform("TestPlatform", 1.0f);
+        platform.loadProviders();
+
+        Assertions.assertNotNull(platform.findActionDefinition("WAIT"), "Std provider is discovered");
+        Assertions.assertNotNull(platform.findComparatorDefinition("IN RANGE"));
+        Assertions.assertNotNull(platform.findActionDefinition("PROBE"));
+        Assertions.assertFalse(probeLoaded, "Registering doesn't load the action class");
+
+        TSLAction action = new TSLParser(platform, Arrays.asList("PROBE")).parseAction();
+
+        Assertions.assertTrue(probeLoaded, "First use loads the action class");
+        Assertions.assertTrue(action instanceof ProbeAction);
+    }
+
+}
@@ -4,7 +4,10 @@ import net.programmer.igoodie.tsl.runtime.executor.TSLExecutor;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TSLExecutorTests {
 
@@ -40,4 +43,70 @@ public class TSLExecutorTests {
         Assertions.assertTrue(t1 - t0 >= 2000, "Took at least 2 seconds");
     }
 
+    @Test
+    public void shouldResolveIndependentStepsInParallel() {
+        TSLExecutor executor = new TSLExecutor("iGoodie");
+
+        TSLExecutor.Procedure<String> procedure = new TSLExecutor.Procedure<String>().setMaxConcurrency(4);
+        int playerA = procedure.addStep(() -> {
+            Thread.sleep(1_000);
+            return "Player:A";
+        });
+        int playerB = procedure.addStep(() -> {
+            Thread.sleep(1_000);
+            return "Player:B";
+        });
+        procedure.addStep(() -> "Performed", playerA, playerB);
+
+        long t0 = System.currentTimeMillis();
+        List<String> results = executor.resolveProcedure(procedure).join();
+        long t1 = System.currentTimeMillis();
+
+        Assertions.assertIterableEquals(Arrays.asList("Player:A", "Player:B", "Performed"), results);
+        Assertions.assertTrue(t1 - t0 < 1_900, "Fan-out steps ran in parallel");
+    }
+
+    @Test
+    public void shouldBoundProcedureConcurrency() {
+        TSLExecutor executor = new TSLExecutor("iGoodie");
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        TSLExecutor.Procedure<Integer> procedure = new TSLExecutor.Procedure<Integer>().setMaxConcurrency(2);
+        for (int i = 0; i < 8; i++) {
+            procedure.addStep(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(50);
+                return running.decrementAndGet();
+            });
+        }
+
+        executor.resolveProcedure(procedure).join();
+
+        Assertions.assertTrue(peak.get() <= 2, "At most 2 steps were in flight");
+    }
+
+    @Test
+    public void shouldKeepFinishedBranchesOnFailure() {
+        TSLExecutor executor = new TSLExecutor("iGoodie");
+        AtomicInteger dependentRuns = new AtomicInteger();
+
+        TSLExecutor.Procedure<Integer> procedure = new TSLExecutor.Procedure<>();
+        int healthy = procedure.addStep(() -> 1);
+        int failing = procedure.addStep(() -> {
+            throw new IllegalStateException("Wopsie");
+        });
+        procedure.addStep(() -> dependentRuns.incrementAndGet(), failing);
+        procedure.addStep(() -> 4, healthy);
+
+        CompletionException e = Assertions.assertThrows(CompletionException.class,
+                () -> executor.resolveProcedure(procedure).join());
+
+        TSLExecutor.ProcedureException failure = (TSLExecutor.ProcedureException) e.getCause();
+        Assertions.assertEquals(failing, failure.getFailedStep());
+        Assertions.assertIterableEquals(Arrays.asList(1, null, null, 4), failure.getResults());
+        Assertions.assertIterableEquals(Arrays.asList(2), failure.getSkippedSteps());
+        Assertions.assertEquals(0, dependentRuns.get());
+    }
+
 }
@@ -0,0 +1,174 @@
+package unit;
+
+import net.programmer.igoodie.tsl.runtime.executor.TSLExecutor;
+import net.programmer.igoodie.tsl.runtime.executor.TSLFairScheduler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Asserts on the order tasks ran in rather than on wall-clock latency, so a loaded machine only slows them down
+public class TSLFairSchedulerTests {
+
+    @Test
+    public void shouldKeepSmallTargetLatencyFlatUnderFlood() throws Exception {
+        TSLFairScheduler scheduler = new TSLFairScheduler("Test", 1);
+        TSLExecutor floodExecutor = scheduler.createExecutor("Player:Flooder");
+        TSLExecutor smallExecutor = scheduler.createExecutor("Player:Small");
+        CountDownLatch gate = holdWorkers(scheduler, 1);
+
+        AtomicInteger floodDone = new AtomicInteger();
+        List<CompletableFuture<?>> floodFutures = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            floodFutures.add(floodExecutor.resolveCallable(() -> {
+                Thread.sleep(2);
+                return floodDone.incrementAndGet();
+            }));
+        }
+
+        // Flood tasks that had finished by the time each small task ran
+        List<CompletableFuture<Integer>> smallFutures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            smallFutures.add(smallExecutor.resolveCallable(floodDone::get));
+        }
+
+        gate.countDown();
+        CompletableFuture.allOf(smallFutures.toArray(new CompletableFuture[0])).join();
+        int floodBeforeLastSmall = smallFutures.stream().mapToInt(CompletableFuture::join).max().orElse(0);
+        CompletableFuture.allOf(floodFutures.toArray(new CompletableFuture[0])).join();
+        scheduler.shutdown();
+
+        System.out.println("Flood tasks ahead of the last small task: " + floodBeforeLastSmall + " of 300");
+        Assertions.assertTrue(floodBeforeLastSmall < 60,
+                "Small target waited behind " + floodBeforeLastSmall + " flood tasks");
+    }
+
+    @Test
+    public void shouldShareWorkerTimeByWeight() throws Exception {
+        TSLFairScheduler scheduler = new TSLFairScheduler("Test", 1);
+        scheduler.setWeight("Heavy", 3);
+        scheduler.setWeight("Light", 1);
+
+        List<String> order = runBacklogged(scheduler, 1, () -> busyWait(200_000), "Heavy", "Light");
+
+        // Both targets stay backlogged through the first 160 tasks
+        long heavyTasks = order.subList(0, 160).stream().filter("Heavy"::equals).count();
+        long lightTasks = 160 - heavyTasks;
+        Assertions.assertTrue(heavyTasks > lightTasks * 2,
+                "Heavy target got the bigger share -> " + heavyTasks + " vs " + lightTasks);
+        Assertions.assertTrue(scheduler.getStatistics("Heavy").getCpuTimeNanos() > 0);
+    }
+
+    @Test
+    public void shouldStayFairWithSeveralWorkers() throws Exception {
+        TSLFairScheduler scheduler = new TSLFairScheduler("Test", 4);
+
+        // Blocking tasks, so the workers overlap even on a single core
+        List<String> order = runBacklogged(scheduler, 4, () -> sleep(2), "First", "Second");
+
+        // Submitted all of First before any of Second, workers must still alternate between them
+        // instead of all of them draining First until its first charge comes in
+        List<String> firstStarted = order.subList(0, 4);
+        Assertions.assertTrue(firstStarted.contains("Second"), "Every worker started on First -> " + firstStarted);
+
+        long firstTasks = order.subList(0, 160).stream().filter("First"::equals).count();
+        Assertions.assertTrue(firstTasks > 48 && firstTasks < 112,
+                "Equal targets split the first 160 tasks -> " + firstTasks + " vs " + (160 - firstTasks));
+    }
+
+    @Test
+    public void shouldLeaveNoWorkerIdleWhileWorkIsQueued() throws Exception {
+        int workers = 4;
+        TSLFairScheduler scheduler = new TSLFairScheduler("Test", workers);
+        TSLExecutor executor = scheduler.createExecutor("Player:Single");
+
+        // Teach the target a cost estimate of many quanta, so every take reserves more than its credit
+        for (int i = 0; i < 8; i++) {
+            executor.resolveCallable(() -> {
+                Thread.sleep(20);
+                return null;
+            }).join();
+        }
+
+        // Submitted one after another to idle workers, each task only finishes once all of them run at once
+        for (int round = 0; round < 20; round++) {
+            CountDownLatch running = new CountDownLatch(workers);
+            List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.resolveCallable(() -> {
+                    running.countDown();
+                    return running.await(10, TimeUnit.SECONDS);
+                }));
+            }
+            for (CompletableFuture<Boolean> future : futures) {
+                Assertions.assertTrue(future.join(), "A worker stayed idle while round " + round + " was queued");
+            }
+        }
+
+        scheduler.shutdown();
+    }
+
+    // Queues 200 tasks of the same work per target, one target after another while the workers are held,
+    // then returns the targets in the order their tasks started
+    private static List<String> runBacklogged(TSLFairScheduler scheduler, int workers, Runnable work, String... targets) throws Exception {
+        CountDownLatch gate = holdWorkers(scheduler, workers);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+
+        for (String target : targets) {
+            TSLExecutor executor = scheduler.createExecutor(target);
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.resolveCallable(() -> {
+                    order.add(target);
+                    work.run();
+                    return null;
+                }));
+            }
+        }
+
+        gate.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        scheduler.shutdown();
+        return new ArrayList<>(order);
+    }
+
+    // Occupies every worker until the returned latch opens
+    private static CountDownLatch holdWorkers(TSLFairScheduler scheduler, int workers) throws InterruptedException {
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch held = new CountDownLatch(workers);
+        for (int i = 0; i < workers; i++) {
+            scheduler.submit("Gate", () -> {
+                held.countDown();
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        Assertions.assertTrue(held.await(10, TimeUnit.SECONDS), "Workers never picked up the gate tasks");
+        return gate;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long busyWait(long nanos) {
+        long end = System.nanoTime() + nanos;
+        long spins = 0;
+        while (System.nanoTime() < end) spins++;
+        return spins;
+    }
+
+}
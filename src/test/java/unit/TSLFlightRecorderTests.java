@@ -0,0 +1,188 @@
+package unit;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.jfr.TSLFlightRecorder;
+import net.programmer.igoodie.tsl.parser.CharStream;
+import net.programmer.igoodie.tsl.parser.TSLLexer;
+import net.programmer.igoodie.tsl.parser.TSLParser;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import net.programmer.igoodie.tsl.runtime.action.TSLAction;
+import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import net.programmer.igoodie.tsl.runtime.executor.TSLExecutor;
+import net.programmer.igoodie.tsl.std.action.ReflectAction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class TSLFlightRecorderTests {
+
+    private static final String TARGET = "Player:iGoodie";
+
+    private static final String SCRIPT = String.join("\n",
+            "SEQUENTIALLY MARK a AND FOR 2 TIMES MARK b DISPLAYING %Thanks ${actor}!%",
+            " ON Donation WITH amount > 100",
+            "",
+            "IF amount > 1 THEN MARK c ELSE MARK d ON Donation",
+            "",
+            "REFLECT * MARK r ON Twitch Follow");
+
+    private static TSLPlatform createPlatform() {
+        TSLPlatform platform = new TSLPlatform("TestPlatform", 1.0f);
+        platform.initializeStd();
+        platform.registerExpression("actor", (expr, ctx) -> ctx.getEventArgs().getString(expr));
+        platform.registerEvent(new TSLEvent("Donation")
+                .addPropertyType(TSLEvent.PropertyBuilder.STRING.create("actor"))
+                .addPropertyType(TSLEvent.PropertyBuilder.DOUBLE.create("amount")));
+        platform.registerEvent(new TSLEvent("Twitch Follow"));
+        platform.registerAction("MARK", (p, args) -> new MarkAction(p, args));
+        return platform;
+    }
+
+    private static class MarkAction extends TSLAction {
+
+        public MarkAction(TSLPlatform platform, List<String> args) throws TSLSyntaxException {
+            super(platform, args);
+        }
+
+        @Override
+        public boolean perform(TSLEventContext ctx) {
+            return true;
+        }
+
+    }
+
+    private static class FixedProvider implements ReflectAction.ReflectProvider {
+
+        @Override
+        public List<String> getEventTargets(String originalTarget, List<String> targets) {
+            return targets;
+        }
+
+        @Override
+        public List<String> getAllEventTargets(String originalTarget) {
+            return Arrays.asList("Player:A", "Player:B", "Player:C");
+        }
+
+        @Override
+        public List<String> getRandomEventTargets(String originalTarget, int count) {
+            return getAllEventTargets(originalTarget).subList(0, count);
+        }
+
+        @Override
+        public void onEventReflection(String originalTarget, TSLAction action, TSLEventContext ctx) {}
+
+    }
+
+    private static TSLEventContext event(TSLPlatform platform, String eventName, String actor, double amount) {
+        TSLEventContext ctx = new TSLEventContext(platform, eventName);
+        ctx.setTarget(TARGET);
+        ctx.getEventArgs().put("actor", actor);
+        ctx.getEventArgs().put("amount", amount);
+        return ctx;
+    }
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void shouldRecordRuntimeActivity() throws Exception {
+        Assertions.assertTrue(TSLFlightRecorder.ENABLED);
+
+        TSLPlatform platform = createPlatform();
+        TSLRuleset ruleset = new TSLParser(platform, TARGET, new TSLLexer(CharStream.fromString(SCRIPT)).tokenize()).parse();
+        ReflectAction.ReflectProvider provider = ReflectAction.registerProvider(new FixedProvider());
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        TSLExecutor executor = new TSLExecutor(TARGET, pool);
+        Path file = Files.createTempFile("tsl", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            for (String name : Arrays.asList("Dispatch", "Predicate", "Action", "Render", "QueueWait", "Reflect")) {
+                recording.enable("tsl." + name).withoutStackTrace();
+            }
+            recording.start();
+
+            executor.resolvePerform(ruleset, event(platform, "Donation", "Alice", 500)).get(10, TimeUnit.SECONDS);
+            executor.resolvePerform(ruleset, event(platform, "Donation", "Bob", 5)).get(10, TimeUnit.SECONDS);
+            ruleset.perform(event(platform, "Twitch Follow", "Carol", 0));
+
+            recording.stop();
+            recording.dump(file);
+        } finally {
+            provider.unsubscribe();
+            pool.shutdownNow();
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+
+        List<RecordedEvent> dispatches = ofType(events, "tsl.Dispatch");
+        Assertions.assertEquals(3, dispatches.size());
+        Assertions.assertEquals(Arrays.asList(0, 1, 2), dispatches.stream()
+                .map(event -> event.getInt("ruleIndex")).sorted().collect(Collectors.toList()));
+        Assertions.assertTrue(dispatches.stream().allMatch(event -> TARGET.equals(event.getString("target"))));
+
+        List<RecordedEvent> queueWaits = ofType(events, "tsl.QueueWait");
+        Assertions.assertEquals(2, queueWaits.size());
+        Assertions.assertEquals("Donation", queueWaits.get(0).getString("eventName"));
+
+        // Alice passes rule #0, Bob fails it and passes rule #1, which has no predicates
+        List<RecordedEvent> predicates = ofType(events, "tsl.Predicate");
+        Assertions.assertEquals(2, predicates.size());
+        Assertions.assertTrue(predicates.stream().allMatch(event -> event.getString("field").equals("amount")));
+        Assertions.assertEquals(1, predicates.stream().filter(event -> event.getBoolean("passed")).count());
+
+        List<RecordedEvent> actions = ofType(events, "tsl.Action");
+        RecordedEvent sequentially = actions.stream()
+                .filter(event -> event.getString("action").equals("SequentiallyAction")).findFirst().get();
+        RecordedEvent loop = actions.stream()
+                .filter(event -> event.getString("action").equals("ForAction")).findFirst().get();
+        Assertions.assertNull(sequentially.getString("parentAction"));
+        Assertions.assertEquals("SequentiallyAction", loop.getString("parentAction"));
+        Assertions.assertEquals(0, loop.getInt("ruleIndex"));
+        Assertions.assertFalse(loop.getStartTime().isBefore(sequentially.getStartTime()));
+        Assertions.assertFalse(loop.getEndTime().isAfter(sequentially.getEndTime()));
+        Assertions.assertEquals(2, actions.stream()
+                .filter(event -> "ForAction".equals(event.getString("parentAction")))
+                .mapToInt(event -> event.getInt("iterations")).sum());
+        Assertions.assertEquals(1, actions.stream()
+                .filter(event -> "IfAction".equals(event.getString("parentAction")))
+                .filter(event -> event.getInt("ruleIndex") == 1).count());
+
+        List<RecordedEvent> renders = ofType(events, "tsl.Render");
+        Assertions.assertEquals(1, renders.size());
+        Assertions.assertEquals("Thanks ${actor}!", renders.get(0).getString("template"));
+        Assertions.assertEquals("Donation", renders.get(0).getString("eventName"));
+
+        List<RecordedEvent> reflections = ofType(events, "tsl.Reflect");
+        Assertions.assertEquals(1, reflections.size());
+        Assertions.assertEquals(3, reflections.get(0).getInt("targets"));
+        Assertions.assertEquals(2, reflections.get(0).getInt("ruleIndex"));
+        Assertions.assertEquals("Twitch Follow", reflections.get(0).getString("eventName"));
+    }
+
+    @Test
+    public void shouldRecordNothingWithoutRecording() throws Exception {
+        TSLPlatform platform = createPlatform();
+        TSLRuleset ruleset = new TSLParser(platform, TARGET, new TSLLexer(CharStream.fromString(SCRIPT)).tokenize()).parse();
+
+        Assertions.assertSame(TSLFlightRecorder.Span.NONE, TSLFlightRecorder.dispatch(event(platform, "Donation", "Alice", 500)));
+        Assertions.assertNotNull(ruleset.perform(event(platform, "Donation", "Alice", 500)));
+    }
+
+}
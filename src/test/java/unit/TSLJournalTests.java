@@ -0,0 +1,370 @@
+package unit;
+
+import net.programmer.igoodie.goodies.runtime.GoodieElement;
+import net.programmer.igoodie.goodies.runtime.GoodieObject;
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.journal.TSLJournal;
+import net.programmer.igoodie.tsl.journal.TSLJournalReader;
+import net.programmer.igoodie.tsl.journal.TSLJournalRecord;
+import net.programmer.igoodie.tsl.parser.CharStream;
+import net.programmer.igoodie.tsl.parser.TSLLexer;
+import net.programmer.igoodie.tsl.parser.TSLParser;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import net.programmer.igoodie.tsl.runtime.action.TSLAction;
+import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TSLJournalTests {
+
+    private static GoodieObject args(int i) {
+        GoodieObject args = new GoodieObject();
+        args.put("actor", "viewer_" + i);
+        args.put("amount", i * 1.5);
+        args.put("months", i);
+        args.put("gifted", i % 2 == 0);
+        args.put("message", "G\u00fczel yay\u0131n #" + i);
+        args.put("emotes", GoodieElement.fromArray(new Object[]{"Kappa", i}));
+        return args;
+    }
+
+    private static long append(TSLJournal journal, int i) {
+        return journal.append(1_000L + i, i, "Player:iGoodie", "Donation", i % 3 - 1, args(i));
+    }
+
+    private static void assertRecord(int i, TSLJournalRecord record) {
+        Assertions.assertEquals(i, record.getSequence());
+        Assertions.assertEquals(1_000L + i, record.getTimestamp());
+        Assertions.assertEquals(i, record.getEventId());
+        Assertions.assertEquals("Player:iGoodie", record.getTarget());
+        Assertions.assertEquals("Donation", record.getEventName());
+        Assertions.assertEquals(i % 3 - 1, record.getMatchedRule());
+
+        GoodieObject args = record.getEventArgs();
+        Assertions.assertEquals("viewer_" + i, args.getString("actor").get());
+        Assertions.assertEquals(i * 1.5, args.getDouble("amount").get());
+        Assertions.assertEquals(i, (int) args.getInteger("months").get());
+        Assertions.assertEquals(i % 2 == 0, args.getBoolean("gifted").get());
+        Assertions.assertEquals("G\u00fczel yay\u0131n #" + i, args.getString("message").get());
+        Assertions.assertEquals(2, args.getArray("emotes").get().size());
+    }
+
+    @Test
+    public void shouldReadBackEveryRecordAcrossSegments() throws IOException {
+        Path folder = Files.createTempDirectory("tsl-journal");
+
+        try {
+            try (TSLJournal journal = new TSLJournal(folder, 4096, TimeUnit.MILLISECONDS.toNanos(1))) {
+                for (int i = 0; i < 500; i++) {
+                    Assertions.assertEquals(i, append(journal, i));
+                }
+            }
+
+            Assertions.assertTrue(TSLJournalReader.listSegments(folder).size() > 1);
+
+            try (TSLJournalReader reader = new TSLJournalReader(folder)) {
+                List<TSLJournalRecord> records = reader.readAll();
+                Assertions.assertEquals(500, records.size());
+                for (int i = 0; i < records.size(); i++) {
+                    assertRecord(i, records.get(i));
+                }
+            }
+        } finally {
+            deleteRecursively(folder);
+        }
+    }
+
+    @Test
+    public void shouldTailWhileWriting() throws Exception {
+        Path folder = Files.createTempDirectory("tsl-journal");
+
+        try {
+            int count = 20_000;
+
+            try (TSLJournal journal = new TSLJournal(folder, 64 * 1024, TimeUnit.MILLISECONDS.toNanos(1))) {
+                CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < count; i++) {
+                        append(journal, i);
+                    }
+                });
+
+                try (TSLJournalReader reader = new TSLJournalReader(folder)) {
+                    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+                    int read = 0;
+
+                    while (read < count && System.nanoTime() < deadline) {
+                        TSLJournalRecord record = reader.next();
+                        if (record == null) {
+                            Thread.yield();
+                            continue;
+                        }
+                        assertRecord(read++, record);
+                    }
+
+                    Assertions.assertEquals(count, read);
+                }
+
+                writer.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            deleteRecursively(folder);
+        }
+    }
+
+    @Test
+    public void shouldRecoverFromTornTail() throws IOException {
+        Path folder = Files.createTempDirectory("tsl-journal");
+
+        try {
+            try (TSLJournal journal = new TSLJournal(folder, 64 * 1024, TimeUnit.MILLISECONDS.toNanos(1))) {
+                for (int i = 0; i < 10; i++) {
+                    append(journal, i);
+                }
+            }
+
+            // Flip a byte inside the last record's payload, as if the crash hit mid-write
+            Path segment = TSLJournalReader.listSegments(folder).get(0);
+            int lastRecord;
+            try (TSLJournalReader reader = new TSLJournalReader(folder)) {
+                Assertions.assertEquals(10, reader.readAll().size());
+            }
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                int position = TSLJournal.SEGMENT_HEADER_BYTES;
+                lastRecord = position;
+                while (buffer.getInt(position) > 0) {
+                    lastRecord = position;
+                    position += TSLJournal.RECORD_HEADER_BYTES + buffer.getInt(position);
+                }
+                int corrupted = lastRecord + TSLJournal.RECORD_HEADER_BYTES + 20;
+                buffer.put(corrupted, (byte) ~buffer.get(corrupted));
+            }
+
+            try (TSLJournalReader reader = new TSLJournalReader(folder)) {
+                Assertions.assertEquals(9, reader.readAll().size());
+            }
+
+            try (TSLJournal journal = new TSLJournal(folder, 64 * 1024, TimeUnit.MILLISECONDS.toNanos(1))) {
+                Assertions.assertEquals(9, journal.getNextSequence());
+                Assertions.assertEquals(9, append(journal, 9));
+                Assertions.assertEquals(10, append(journal, 10));
+            }
+
+            try (TSLJournalReader reader = new TSLJournalReader(folder)) {
+                List<TSLJournalRecord> records = reader.readAll();
+                Assertions.assertEquals(11, records.size());
+                for (int i = 0; i < records.size(); i++) {
+                    assertRecord(i, records.get(i));
+                }
+            }
+        } finally {
+            deleteRecursively(folder);
+        }
+    }
+
+    @Test
+    public void shouldGroupCommitDurableRecords() throws Exception {
+        Path folder = Files.createTempDirectory("tsl-journal");
+
+        try {
+            // Long interval, so only awaitDurable() can trigger the force in time
+            try (TSLJournal journal = new TSLJournal(folder, 64 * 1024, TimeUnit.SECONDS.toNanos(30))) {
+                long last = -1;
+                for (int i = 0; i < 100; i++) {
+                    last = append(journal, i);
+                }
+
+                Assertions.assertTrue(journal.awaitDurable(last, 5, TimeUnit.SECONDS));
+                Assertions.assertTrue(journal.getDurableSequence() >= last);
+            }
+        } finally {
+            deleteRecursively(folder);
+        }
+    }
+
+    @Test
+    public void shouldRejectRecordsLargerThanSegment() throws IOException {
+        Path folder = Files.createTempDirectory("tsl-journal");
+
+        try {
+            try (TSLJournal journal = new TSLJournal(folder, 256, TimeUnit.MILLISECONDS.toNanos(1))) {
+                GoodieObject args = new GoodieObject();
+                args.put("message", new String(new char[1024]).replace('\0', 'x'));
+                Assertions.assertThrows(IllegalArgumentException.class,
+                        () -> journal.append(0, 0, null, "Donation", -1, args));
+                Assertions.assertEquals(0, journal.append(0, 0, null, "Donation", -1, new GoodieObject()));
+            }
+        } finally {
+            deleteRecursively(folder);
+        }
+    }
+
+    @Test
+    public void shouldJournalPerformedEvents() throws Exception {
+        TSLPlatform platform = new TSLPlatform("TestPlatform", 1.0f);
+        platform.initializeStd();
+        platform.registerEvent(new TSLEvent("Donation")
+                .addPropertyType(TSLEvent.PropertyBuilder.DOUBLE.create("amount")));
+        platform.registerAction("MARK", (p, args) -> new TSLAction(p, args) {
+            @Override
+            public boolean perform(TSLEventContext ctx) {
+                return true;
+            }
+        });
+
+        String script = "MARK big ON Donation WITH amount > 100\n\nMARK small ON Donation WITH amount > 10";
+        TSLRuleset ruleset = new TSLParser(platform, "Player:iGoodie",
+                new TSLLexer(CharStream.fromString(script)).tokenize()).parse();
+
+        Path folder = Files.createTempDirectory("tsl-journal");
+
+        try {
+            try (TSLJournal journal = new TSLJournal(folder, 64 * 1024, TimeUnit.MILLISECONDS.toNanos(1))) {
+                ruleset.setJournal(journal);
+                for (double amount : new double[]{500, 50, 5}) {
+                    TSLEventContext ctx = new TSLEventContext(platform, "Donation");
+                    ctx.setTarget("Player:iGoodie");
+                    ctx.getEventArgs().put("amount", amount);
+                    ruleset.perform(ctx);
+                }
+            }
+
+            try (TSLJournalReader reader = new TSLJournalReader(folder)) {
+                List<TSLJournalRecord> records = reader.readAll();
+                List<Integer> matched = new ArrayList<>();
+                for (TSLJournalRecord record : records) {
+                    matched.add(record.getMatchedRule());
+                    Assertions.assertEquals("Donation", record.getEventName());
+                }
+                Assertions.assertEquals("[0, 1, -1]", matched.toString());
+                Assertions.assertEquals(50.0, records.get(1).getEventArgs().getDouble("amount").get());
+            }
+        } finally {
+            deleteRecursively(folder);
+        }
+    }
+
+    @Test
+    public void shouldAppendConcurrentlyInSequenceOrder() throws Exception {
+        Path folder = Files.createTempDirectory("tsl-journal");
+
+        try {
+            int threads = 4;
+            int perThread = 5_000;
+            List<CompletableFuture<Void>> writers = new ArrayList<>();
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+            try (TSLJournal journal = new TSLJournal(folder, 16 * 1024, TimeUnit.MILLISECONDS.toNanos(1))) {
+                for (int t = 0; t < threads; t++) {
+                    int writer = t;
+                    writers.add(CompletableFuture.runAsync(() -> {
+                        for (int i = 0; i < perThread; i++) {
+                            journal.append(i, writer, "Player:iGoodie", "Donation", -1, args(i));
+                        }
+                    }, pool));
+                }
+                CompletableFuture.allOf(writers.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+                Assertions.assertEquals(threads * perThread, journal.getNextSequence());
+            } finally {
+                pool.shutdownNow();
+            }
+
+            try (TSLJournalReader reader = new TSLJournalReader(folder)) {
+                List<TSLJournalRecord> records = reader.readAll();
+                Assertions.assertEquals(threads * perThread, records.size());
+
+                // Every writer's records come back in the order it appended them
+                long[] nextTimestamp = new long[threads];
+                for (int i = 0; i < records.size(); i++) {
+                    TSLJournalRecord record = records.get(i);
+                    Assertions.assertEquals(i, record.getSequence());
+                    Assertions.assertEquals(nextTimestamp[(int) record.getEventId()]++, record.getTimestamp());
+                }
+            }
+        } finally {
+            deleteRecursively(folder);
+        }
+    }
+
+    @Test
+    public void shouldRecoverFromSegmentWithoutHeader() throws IOException {
+        Path folder = Files.createTempDirectory("tsl-journal");
+
+        try {
+            try (TSLJournal journal = new TSLJournal(folder, 64 * 1024, TimeUnit.MILLISECONDS.toNanos(1))) {
+                for (int i = 0; i < 3; i++) {
+                    append(journal, i);
+                }
+            }
+
+            // Crashed right after creating the next segment, before its header reached the disk
+            Path segment = TSLJournalReader.listSegments(folder).get(0);
+            Files.write(segment, new byte[64 * 1024]);
+
+            try (TSLJournal journal = new TSLJournal(folder, 64 * 1024, TimeUnit.MILLISECONDS.toNanos(1))) {
+                Assertions.assertEquals(0, journal.getNextSequence());
+                Assertions.assertEquals(0, append(journal, 0));
+            }
+
+            try (TSLJournalReader reader = new TSLJournalReader(folder)) {
+                List<TSLJournalRecord> records = reader.readAll();
+                Assertions.assertEquals(1, records.size());
+                assertRecord(0, records.get(0));
+            }
+        } finally {
+            deleteRecursively(folder);
+        }
+    }
+
+    @Test
+    public void shouldReportCorruptionInSealedSegment() throws IOException {
+        Path folder = Files.createTempDirectory("tsl-journal");
+
+        try {
+            try (TSLJournal journal = new TSLJournal(folder, 4096, TimeUnit.MILLISECONDS.toNanos(1))) {
+                for (int i = 0; i < 100; i++) {
+                    append(journal, i);
+                }
+            }
+
+            Path sealed = TSLJournalReader.listSegments(folder).get(0);
+            try (FileChannel channel = FileChannel.open(sealed, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                int corrupted = TSLJournal.SEGMENT_HEADER_BYTES + TSLJournal.RECORD_HEADER_BYTES + 20;
+                buffer.put(corrupted, (byte) ~buffer.get(corrupted));
+            }
+
+            try (TSLJournalReader reader = new TSLJournalReader(folder)) {
+                Assertions.assertThrows(IOException.class, reader::readAll);
+            }
+        } finally {
+            deleteRecursively(folder);
+        }
+    }
+
+    private static void deleteRecursively(Path folder) throws IOException {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+package unit;
+
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.TSLPlatformGenerations;
+import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.parser.CharStream;
+import net.programmer.igoodie.tsl.parser.TSLLexer;
+import net.programmer.igoodie.tsl.runtime.TSLLiveRuleset;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import net.programmer.igoodie.tsl.runtime.action.TSLAction;
+import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TSLLiveRulesetTests {
+
+    private static final ExecutorService compiler = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Compiler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Generation N registers MARK, which outputs "vN <arg>"
+    private static TSLPlatform createPlatform(int version, List<String> output) {
+        return createPlatform(version, output, null, null);
+    }
+
+    private static TSLPlatform createPlatform(int version, List<String> output, CountDownLatch entered, CountDownLatch gate) {
+        TSLPlatform platform = new TSLPlatform("TestPlatform", 1.0f);
+        platform.initializeStd();
+        platform.registerEvent(new TSLEvent("Donation"));
+        platform.registerAction("MARK", (p, args) -> new TSLAction(p, args) {
+            @Override
+            public boolean perform(TSLEventContext ctx) {
+                if (entered != null) entered.countDown();
+                try {
+                    if (gate != null) gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                ctx.getPerformState().put("version", version);
+                output.add("v" + version + " " + args.get(0));
+                return true;
+            }
+        });
+        return platform;
+    }
+
+    private static List<TSLLexer.Token> tokenize(String script) throws IOException, TSLSyntaxException {
+        return new TSLLexer(CharStream.fromString(script)).tokenize();
+    }
+
+    private static TSLEventContext donation(TSLPlatformGenerations generations) {
+        return new TSLEventContext(generations.getPlatform(), "Donation");
+    }
+
+    @Test
+    public void shouldFinishInFlightPerformsOnOldGeneration() throws Exception {
+        List<String> output = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+
+        TSLPlatformGenerations generations = new TSLPlatformGenerations(createPlatform(1, output, entered, gate));
+        TSLLiveRuleset ruleset = new TSLLiveRuleset(generations, "Player:iGoodie", tokenize("MARK hi ON Donation"), compiler);
+
+        CompletableFuture<List<String>> inFlight = CompletableFuture.supplyAsync(() -> {
+            try {
+                return ruleset.perform(donation(generations));
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+
+        Assertions.assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        generations.publish(createPlatform(2, output));
+        ruleset.getLastCompilation().get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(2, ruleset.getGeneration());
+
+        // Performs on generation 2, hands the context back with the caller's platform
+        TSLPlatform callerPlatform = createPlatform(0, output);
+        TSLEventContext ctx = new TSLEventContext(callerPlatform, "Donation");
+        ruleset.perform(ctx);
+        Assertions.assertSame(callerPlatform, ctx.getPlatform());
+
+        gate.countDown();
+        inFlight.get(5, TimeUnit.SECONDS);
+
+        Assertions.assertIterableEquals(Arrays.asList("v2 hi", "v1 hi"), output);
+        ruleset.close();
+    }
+
+    @Test
+    public void shouldPerformEveryEventExactlyOnceAcrossSwaps() throws Exception {
+        List<String> output = Collections.synchronizedList(new ArrayList<>());
+        TSLPlatformGenerations generations = new TSLPlatformGenerations(createPlatform(1, output));
+        TSLLiveRuleset ruleset = new TSLLiveRuleset(generations, "Player:iGoodie", tokenize("MARK e ON Donation"), compiler);
+
+        int producers = 4, eventsPerProducer = 2_000;
+        AtomicInteger performed = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (int p = 0; p < producers; p++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                int lastVersion = 0;
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    try {
+                        TSLEventContext ctx = donation(generations);
+                        if (ruleset.perform(ctx) != null) performed.incrementAndGet();
+                        int version = ctx.getPerformState().getInteger("version").orElse(-1);
+                        Assertions.assertTrue(version >= lastVersion, "Generations never go backwards");
+                        lastVersion = version;
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }
+            }));
+        }
+
+        for (int v = 2; v <= 5; v++) {
+            generations.publish(createPlatform(v, output));
+            Thread.sleep(5);
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        ruleset.getLastCompilation().get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(producers * eventsPerProducer, performed.get());
+        Assertions.assertEquals(producers * eventsPerProducer, output.size());
+        Assertions.assertEquals(5, ruleset.getGeneration());
+        ruleset.close();
+    }
+
+    @Test
+    public void shouldKeepOldGenerationWhenRecompileFails() throws Exception {
+        List<String> output = new ArrayList<>();
+        TSLPlatformGenerations generations = new TSLPlatformGenerations(createPlatform(1, output));
+        TSLLiveRuleset ruleset = new TSLLiveRuleset(generations, "Player:iGoodie", tokenize("MARK hi ON Donation"), compiler);
+
+        TSLPlatform withoutMark = new TSLPlatform("TestPlatform", 1.0f);
+        withoutMark.registerEvent(new TSLEvent("Donation"));
+        generations.publish(withoutMark);
+
+        CompletableFuture<?> compilation = ruleset.getLastCompilation();
+        Throwable e = Assertions.assertThrows(Exception.class, () -> compilation.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(e.getCause() instanceof TSLSyntaxException);
+
+        ruleset.perform(donation(generations));
+        Assertions.assertEquals(1, ruleset.getGeneration());
+        Assertions.assertIterableEquals(Arrays.asList("v1 hi"), output);
+        ruleset.close();
+    }
+
+    @Test
+    public void shouldKeepSettingsAcrossPublishes() throws Exception {
+        List<String> output = new ArrayList<>();
+        TSLPlatformGenerations generations = new TSLPlatformGenerations(createPlatform(1, output));
+        TSLLiveRuleset ruleset = new TSLLiveRuleset(generations, "Player:iGoodie", tokenize("MARK hi ON Donation"), compiler);
+
+        ruleset.getRuleset().getRules().get(0).setTimeout(250, TimeUnit.MILLISECONDS);
+        ruleset.getRuleset().setStatisticsEnabled(true);
+        ruleset.perform(donation(generations));
+
+        generations.publish(createPlatform(2, output));
+        TSLRuleset recompiled = ruleset.getLastCompilation().get(5, TimeUnit.SECONDS);
+        ruleset.perform(donation(generations));
+
+        Assertions.assertSame(recompiled, ruleset.getRuleset());
+        Assertions.assertEquals(250, recompiled.getRules().get(0).getTimeout(TimeUnit.MILLISECONDS));
+        Assertions.assertTrue(recompiled.isStatisticsEnabled());
+        Assertions.assertEquals(2, recompiled.getStatistics().get(0).getMatches(), "Counting went on");
+        Assertions.assertIterableEquals(Arrays.asList("v1 hi", "v2 hi"), output);
+        ruleset.close();
+    }
+
+}
@@ -0,0 +1,98 @@
+package unit;
+
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import net.programmer.igoodie.tsl.runtime.executor.TSLPartitionedExecutor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TSLPartitionedExecutorTests {
+
+    private static final TSLPlatform platform = new TSLPlatform("TestPlatform", 1.0f);
+
+    private static TSLEventContext eventFrom(String actor) {
+        TSLEventContext ctx = new TSLEventContext(platform, "Twitch Chat Message");
+        ctx.setTarget("Player:iGoodie");
+        ctx.getEventArgs().put("actor", actor);
+        return ctx;
+    }
+
+    @Test
+    public void shouldOrderSameActorAndParallelizeOthers() {
+        TSLPartitionedExecutor executor = new TSLPartitionedExecutor("Player:iGoodie");
+        List<String> completions = Collections.synchronizedList(new ArrayList<>());
+
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+
+        futures.add(executor.resolveOrdered(eventFrom("Subber"), () -> {
+            Thread.sleep(500);
+            return completions.add("Subber:sub");
+        }));
+        futures.add(executor.resolveOrdered(eventFrom("Subber"), () -> completions.add("Subber:chat")));
+        futures.add(executor.resolveOrdered(eventFrom("Chatter"), () -> completions.add("Chatter:chat")));
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        Assertions.assertEquals("Chatter:chat", completions.get(0), "Other actor wasn't blocked");
+        Assertions.assertTrue(completions.indexOf("Subber:sub") < completions.indexOf("Subber:chat"),
+                "Same actor kept its order");
+        Assertions.assertEquals(0, executor.getActivePartitions());
+    }
+
+    @Test
+    public void shouldKeepOrderAfterFailure() {
+        TSLPartitionedExecutor executor = new TSLPartitionedExecutor("Player:iGoodie");
+        List<Integer> completions = Collections.synchronizedList(new ArrayList<>());
+
+        CompletableFuture<Boolean> failing = executor.resolveOrdered(eventFrom("Subber"), () -> {
+            throw new IllegalStateException("Wopsie");
+        });
+
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int index = i;
+            futures.add(executor.resolveOrdered(eventFrom("Subber"), () -> completions.add(index)));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        Assertions.assertTrue(failing.isCompletedExceptionally());
+        for (int i = 0; i < 50; i++) {
+            Assertions.assertEquals(Integer.valueOf(i), completions.get(i));
+        }
+    }
+
+    @Test
+    public void shouldKeepOrderWhenCancelled() throws Exception {
+        TSLPartitionedExecutor executor = new TSLPartitionedExecutor("Player:iGoodie");
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> first = executor.resolveOrdered(eventFrom("Subber"), () -> {
+            started.countDown();
+            gate.await();
+            return events.add("first:end");
+        });
+        CompletableFuture<Boolean> second = executor.resolveOrdered(eventFrom("Subber"), () -> events.add("second"));
+
+        Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+        first.cancel(true);
+        Thread.sleep(100);
+        Assertions.assertFalse(second.isDone(), "Second event started while the cancelled one still ran");
+
+        gate.countDown();
+        second.get(10, TimeUnit.SECONDS);
+        Assertions.assertEquals(Arrays.asList("first:end", "second"), events);
+        Assertions.assertEquals(0, executor.getActivePartitions());
+    }
+
+}
@@ -0,0 +1,125 @@
+package unit;
+
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.exception.TSLPerformingException;
+import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.parser.CharStream;
+import net.programmer.igoodie.tsl.parser.TSLLexer;
+import net.programmer.igoodie.tsl.parser.TSLParser;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import net.programmer.igoodie.tsl.runtime.action.TSLAction;
+import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import net.programmer.igoodie.tsl.std.action.NothingAction;
+import net.programmer.igoodie.tsl.util.CaseFoldedTable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class TSLPlatformTests {
+
+    private static TSLPlatform createPlatform(List<String> output) {
+        TSLPlatform platform = new TSLPlatform("TestPlatform", 1.0f);
+        platform.initializeStd();
+
+        platform.registerAction("Print", (p, args) -> new TSLAction(p, args) {
+            {
+                this.message = args;
+            }
+
+            @Override
+            public boolean perform(TSLEventContext ctx) {
+                output.addAll(getCalculatedMessage(ctx));
+                return true;
+            }
+        });
+
+        platform.registerExpression("actor", (expr, ctx) -> ctx.getEventArgs().getString(expr));
+        platform.registerEvent(new TSLEvent("Twitch Follow")
+                .addPropertyType(TSLEvent.PropertyBuilder.STRING.create("actor")));
+
+        return platform;
+    }
+
+    @Test
+    public void shouldLookupLikeTheLivePlatform() {
+        TSLPlatform platform = createPlatform(new ArrayList<>());
+        TSLPlatform frozen = platform.freeze();
+
+        Assertions.assertTrue(frozen.isFrozen());
+        Assertions.assertFalse(platform.isFrozen());
+        Assertions.assertSame(frozen, frozen.freeze());
+
+        for (String name : Arrays.asList("print", "PRINT", "Print", "if", "Reflect", "unknown")) {
+            Assertions.assertSame(platform.findActionDefinition(name), frozen.findActionDefinition(name), name);
+        }
+
+        for (String symbol : Arrays.asList("in range", "IN RANGE", "contains", ">=", "~")) {
+            Assertions.assertSame(platform.findComparatorDefinition(symbol), frozen.findComparatorDefinition(symbol), symbol);
+        }
+
+        for (String event : Arrays.asList("Twitch Follow", "twitch follow", "twitch Follow", "Twitch follow", "TWITCH FOLLOW")) {
+            Assertions.assertSame(platform.findEvent(event), frozen.findEvent(event), event);
+        }
+
+        Assertions.assertNotNull(frozen.findEvent("twitch follow"));
+        Assertions.assertNotNull(frozen.findExpressionEvaluator("actor"));
+        Assertions.assertNull(frozen.findExpressionEvaluator("ACTOR"));
+        Assertions.assertEquals(Optional.empty(), frozen.getActionDefinition("unknown"));
+    }
+
+    @Test
+    public void shouldRejectRegistrationOnceFrozen() {
+        TSLPlatform frozen = createPlatform(new ArrayList<>()).freeze();
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> frozen.registerAction("NOTHING_ELSE", NothingAction::new));
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> frozen.registerEvent(new TSLEvent("Donation")));
+        Assertions.assertThrows(IllegalStateException.class, frozen::initializeStd);
+    }
+
+    @Test
+    public void shouldNotSeeLaterRegistrations() {
+        TSLPlatform platform = createPlatform(new ArrayList<>());
+        TSLPlatform frozen = platform.freeze();
+
+        platform.registerEvent(new TSLEvent("Donation"));
+
+        Assertions.assertNotNull(platform.findEvent("donation"));
+        Assertions.assertNull(frozen.findEvent("donation"));
+    }
+
+    @Test
+    public void shouldParseAndPerformWithFrozenPlatform() throws IOException, TSLSyntaxException, TSLPerformingException {
+        List<String> output = new ArrayList<>();
+        TSLPlatform frozen = createPlatform(output).freeze();
+
+        List<TSLLexer.Token> tokens = new TSLLexer(CharStream.fromString("print Hello ${actor} ON twitch follow")).tokenize();
+        TSLRuleset ruleset = new TSLParser(frozen, "Player:iGoodie", tokens).parse();
+
+        TSLEventContext ctx = new TSLEventContext(frozen, "Twitch Follow");
+        ctx.getEventArgs().put("actor", "iGoodie");
+        ruleset.perform(ctx);
+
+        Assertions.assertIterableEquals(Arrays.asList("Hello", "iGoodie"), output);
+    }
+
+    @Test
+    public void shouldRejectKeysCollidingAfterFolding() {
+        Map<String, Integer> entries = new HashMap<>();
+        entries.put("A", 1);
+        entries.put("a", 2);
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new CaseFoldedTable<>(CaseFoldedTable.Folding.UPPER_CASE, entries));
+    }
+
+}
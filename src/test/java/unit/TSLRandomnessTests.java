@@ -0,0 +1,104 @@
+package unit;
+
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.parser.CharStream;
+import net.programmer.igoodie.tsl.parser.TSLLexer;
+import net.programmer.igoodie.tsl.parser.TSLParser;
+import net.programmer.igoodie.tsl.runtime.TSLRandomness;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import net.programmer.igoodie.tsl.runtime.action.TSLAction;
+import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TSLRandomnessTests {
+
+    private static final TSLPlatform platform = new TSLPlatform("TestPlatform", 1.0f);
+    private static final List<String> outcomes = new ArrayList<>();
+
+    @BeforeAll
+    public static void registerEverything() {
+        platform.initializeStd();
+
+        platform.registerAction("RECORD", (platform, args) -> new TSLAction(platform, args) {
+            @Override
+            public boolean perform(TSLEventContext ctx) {
+                outcomes.add(ctx.getEventId() + ":" + String.join(" ", args));
+                return true;
+            }
+        });
+
+        platform.registerEvent(new TSLEvent("Donation"));
+    }
+
+    private static List<String> runEvents(long seed) throws IOException, TSLSyntaxException {
+        platform.setRandomness(new TSLRandomness(seed));
+        outcomes.clear();
+
+        String script = "FOR 3 TIMES EITHER RECORD apple OR RECORD diamond OR RECORD stick OR RECORD tnt ON Donation";
+        List<TSLLexer.Token> tokens = new TSLLexer(CharStream.fromString(script)).tokenize();
+        TSLRuleset ruleset = new TSLParser(platform, "Player:iGoodie", tokens).parse();
+
+        for (int i = 0; i < 100; i++) {
+            TSLEventContext ctx = new TSLEventContext(platform, "Donation");
+            ctx.setTarget("Player:iGoodie");
+            Assertions.assertDoesNotThrow(() -> ruleset.perform(ctx));
+        }
+
+        return new ArrayList<>(outcomes);
+    }
+
+    @Test
+    public void shouldReplaySameOutcomesWithSameSeed() throws IOException, TSLSyntaxException {
+        List<String> firstRun = runEvents(1234L);
+        List<String> secondRun = runEvents(1234L);
+        List<String> otherSeedRun = runEvents(4321L);
+
+        Assertions.assertEquals(300, firstRun.size());
+        Assertions.assertIterableEquals(firstRun, secondRun);
+        Assertions.assertNotEquals(firstRun, otherSeedRun);
+    }
+
+    @Test
+    public void shouldDeriveStreamsFromEventIdOnly() {
+        platform.setRandomness(new TSLRandomness(99L));
+
+        TSLEventContext first = new TSLEventContext(platform, "Donation");
+        TSLEventContext second = new TSLEventContext(platform, "Donation");
+        second.setEventId(first.getEventId());
+
+        Assertions.assertEquals(first.getRandom().nextLong(), second.getRandom().nextLong());
+        Assertions.assertEquals(first.copy().getRandom().nextLong(), second.copy().getRandom().nextLong());
+    }
+
+    @Test
+    public void shouldCopyWithoutAdvancingTheOriginal() {
+        platform.setRandomness(new TSLRandomness(99L));
+
+        TSLEventContext copied = new TSLEventContext(platform, "Donation");
+        TSLEventContext untouched = new TSLEventContext(platform, "Donation");
+        untouched.setEventId(copied.getEventId());
+
+        long firstDraw = copied.getRandom().nextLong();
+        TSLEventContext firstCopy = copied.copy();
+        TSLEventContext secondCopy = copied.copy();
+
+        Assertions.assertEquals(untouched.getRandom().nextLong(), firstDraw);
+        Assertions.assertEquals(untouched.getRandom().nextLong(), copied.getRandom().nextLong());
+        long secondCopyDraw = secondCopy.getRandom().nextLong();
+        Assertions.assertNotEquals(firstCopy.getRandom().nextLong(), secondCopyDraw);
+        Assertions.assertNotEquals(firstCopy.copy().getRandom().nextLong(), secondCopy.copy().getRandom().nextLong());
+
+        // Copy streams depend on the copy index only, not on how far the original had drawn
+        untouched.copy();
+        Assertions.assertEquals(secondCopyDraw, untouched.copy().getRandom().nextLong());
+    }
+
+}
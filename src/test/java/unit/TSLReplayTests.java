@@ -0,0 +1,243 @@
+package unit;
+
+import net.programmer.igoodie.goodies.runtime.GoodieObject;
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.journal.TSLJournal;
+import net.programmer.igoodie.tsl.journal.TSLJournalReader;
+import net.programmer.igoodie.tsl.journal.TSLJournalRecord;
+import net.programmer.igoodie.tsl.parser.CharStream;
+import net.programmer.igoodie.tsl.parser.TSLLexer;
+import net.programmer.igoodie.tsl.parser.TSLParser;
+import net.programmer.igoodie.tsl.replay.RecordingStubs;
+import net.programmer.igoodie.tsl.replay.TSLReplay;
+import net.programmer.igoodie.tsl.replay.TSLReplayReport;
+import net.programmer.igoodie.tsl.replay.TSLReplaySource;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import net.programmer.igoodie.tsl.runtime.action.TSLAction;
+import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import net.programmer.igoodie.tsl.runtime.executor.TSLExecutor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class TSLReplayTests {
+
+    private static final ExecutorService pool = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "Replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final String SCRIPT = "DROP diamond ON Donation WITH amount > 100\n\n"
+            + "DROP apple ON Donation WITH amount > 10\n\n"
+            + "SUMMON creeper ON Raid";
+
+    // DROP has a side effect in production, so it must never run here
+    private static TSLPlatform createPlatform() {
+        TSLPlatform platform = new TSLPlatform("TestPlatform", 1.0f);
+        platform.initializeStd();
+        platform.registerEvent(new TSLEvent("Donation")
+                .addPropertyType(TSLEvent.PropertyBuilder.DOUBLE.create("amount")));
+        platform.registerEvent(new TSLEvent("Raid"));
+        platform.registerAction("DROP", (p, args) -> new TSLAction(p, args) {
+            @Override
+            public boolean perform(TSLEventContext ctx) {
+                throw new AssertionError("Side effect during replay");
+            }
+        });
+        platform.registerAction("SUMMON", (p, args) -> new TSLAction(p, args) {
+            @Override
+            public boolean perform(TSLEventContext ctx) {
+                throw new AssertionError("Side effect during replay");
+            }
+        });
+        return platform;
+    }
+
+    private static TSLRuleset parse(TSLPlatform platform, String script) throws IOException, TSLSyntaxException {
+        return new TSLParser(platform, "Player:iGoodie", new TSLLexer(CharStream.fromString(script)).tokenize()).parse();
+    }
+
+    private static Path writeLines(String... lines) throws IOException {
+        Path file = Files.createTempFile("tsl-replay", ".jsonl");
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    public void shouldReplayJsonLinesThroughStubs() throws Exception {
+        TSLPlatform platform = createPlatform();
+        RecordingStubs stubs = new RecordingStubs().install(platform, "DROP", "SUMMON");
+        TSLRuleset ruleset = parse(platform, SCRIPT);
+
+        Path file = writeLines(
+                "{\"timestamp\": 1000, \"target\": \"Player:iGoodie\", \"event\": \"Donation\", \"args\": {\"amount\": 500.0, \"actor\": \"a\\\"b\"}, \"matchedRule\": 0}",
+                "",
+                "{\"timestamp\": 1001, \"event\": \"Donation\", \"args\": {\"amount\": 50}, \"matchedRule\": 1}",
+                "{\"timestamp\": 1002, \"event\": \"Raid\", \"args\": {\"viewers\": [1, 2, null]}, \"matchedRule\": 2}",
+                "{\"timestamp\": 1003, \"event\": \"Donation\", \"args\": {\"amount\": 1e0}}");
+
+        TSLReplay replay = new TSLReplay(platform, ruleset, new TSLExecutor("Player:iGoodie", pool));
+        TSLReplayReport report;
+        try (TSLReplaySource source = TSLReplaySource.fromJsonLines(file)) {
+            report = replay.run(source);
+        }
+
+        Assertions.assertEquals(4, report.getEvents());
+        Assertions.assertEquals(0, report.getFailures());
+        Assertions.assertEquals(4, report.getLatency().getCount());
+        Assertions.assertEquals(2L, stubs.getPerformCount("DROP"));
+        Assertions.assertEquals(1L, stubs.getPerformCount("SUMMON"));
+        Assertions.assertTrue(report.diffAgainstRecorded().isEmpty(), report.diffAgainstRecorded().toString());
+        Assertions.assertEquals(TSLReplayReport.NO_RULE, report.getReplayedRule(3));
+        Assertions.assertEquals("SUMMON creeper ON Raid", report.getReplayedRule(2));
+    }
+
+    @Test
+    public void shouldDiffRuleFiresAgainstBaseline() throws Exception {
+        Path folder = Files.createTempDirectory("tsl-replay");
+
+        // Record with the current ruleset
+        TSLPlatform platform = createPlatform();
+        new RecordingStubs().install(platform, "DROP", "SUMMON");
+        TSLRuleset recorded = parse(platform, SCRIPT);
+        try (TSLJournal journal = new TSLJournal(folder)) {
+            recorded.setJournal(journal);
+            for (double amount : new double[]{500, 50, 5, 150, 20}) {
+                TSLEventContext ctx = new TSLEventContext(platform, "Donation");
+                ctx.getEventArgs().put("amount", amount);
+                recorded.perform(ctx);
+            }
+            recorded.setJournal(null);
+        }
+
+        try (TSLJournalReader reader = new TSLJournalReader(folder)) {
+            Assertions.assertEquals("DROP diamond ON Donation", reader.next().getMatchedRuleSignature());
+        }
+
+        TSLExecutor executor = new TSLExecutor("Player:iGoodie", pool);
+        TSLReplayReport baseline;
+        try (TSLReplaySource source = TSLReplaySource.fromJournal(folder)) {
+            baseline = new TSLReplay(platform, recorded, executor).run(source);
+        }
+        Assertions.assertTrue(baseline.diffAgainstRecorded().isEmpty());
+
+        // Raise the diamond threshold, 150 now falls through to the apple rule
+        TSLRuleset changed = parse(platform, SCRIPT.replace("amount > 100", "amount > 200"));
+        TSLReplayReport candidate;
+        try (TSLReplaySource source = TSLReplaySource.fromJournal(folder)) {
+            candidate = new TSLReplay(platform, changed, executor).run(source);
+        }
+
+        TSLReplayReport.RuleDiff diff = candidate.diff(baseline);
+        Assertions.assertEquals(5, diff.getCompared());
+        Assertions.assertEquals(1, diff.getDivergences().size());
+        Assertions.assertEquals(3, diff.getDivergences().get(0).getEvent());
+        Assertions.assertEquals("DROP diamond ON Donation", diff.getDivergences().get(0).getBaselineRule());
+        Assertions.assertEquals("DROP apple ON Donation", diff.getDivergences().get(0).getReplayedRule());
+        Assertions.assertEquals(-1L, (long) diff.getFireCountDeltas().get("DROP diamond ON Donation"));
+        Assertions.assertEquals(1L, (long) diff.getFireCountDeltas().get("DROP apple ON Donation"));
+
+        // A rule added in front shifts every index, but only the events it takes over diverge
+        TSLRuleset inserted = parse(platform, "DROP emerald ON Donation WITH amount > 400\n\n" + SCRIPT);
+        try (TSLReplaySource source = TSLReplaySource.fromJournal(folder)) {
+            candidate = new TSLReplay(platform, inserted, executor).run(source);
+        }
+
+        diff = candidate.diffAgainstRecorded();
+        Assertions.assertEquals(1, diff.getDivergences().size(), diff.toString());
+        Assertions.assertEquals(0, diff.getDivergences().get(0).getEvent());
+        Assertions.assertEquals("DROP emerald ON Donation", diff.getDivergences().get(0).getReplayedRule());
+    }
+
+    @Test
+    public void shouldTellRepeatedRulesApart() throws Exception {
+        TSLPlatform platform = createPlatform();
+        TSLRuleset ruleset = parse(platform, "DROP apple ON Donation WITH amount > 100\n\n"
+                + "DROP apple ON Donation WITH amount > 10\n\n"
+                + "DROP apple ON Donation");
+
+        Assertions.assertEquals("DROP apple ON Donation", ruleset.getRuleSignature(0));
+        Assertions.assertEquals("DROP apple ON Donation #2", ruleset.getRuleSignature(1));
+        Assertions.assertEquals("DROP apple ON Donation #3", ruleset.getRuleSignature(2));
+        Assertions.assertNull(ruleset.getRuleSignature(TSLEventContext.NO_MATCHED_RULE));
+    }
+
+    @Test
+    public void shouldKeepCompressedTiming() throws Exception {
+        TSLPlatform platform = createPlatform();
+        new RecordingStubs().install(platform, "DROP", "SUMMON");
+        TSLRuleset ruleset = parse(platform, SCRIPT);
+
+        // 2 seconds of traffic at 100x
+        Path file = writeLines(
+                "{\"timestamp\": 0, \"event\": \"Raid\"}",
+                "{\"timestamp\": 1000, \"event\": \"Raid\"}",
+                "{\"timestamp\": 2000, \"event\": \"Raid\"}");
+
+        TSLReplayReport report;
+        try (TSLReplaySource source = TSLReplaySource.fromJsonLines(file)) {
+            report = new TSLReplay(platform, ruleset, new TSLExecutor("Player:iGoodie", pool))
+                    .setSpeed(100)
+                    .run(source);
+        }
+
+        Assertions.assertEquals(3, report.getEvents());
+        Assertions.assertTrue(report.getElapsedNanos() >= TimeUnit.MILLISECONDS.toNanos(20), report.toString());
+        Assertions.assertTrue(report.getElapsedNanos() < TimeUnit.SECONDS.toNanos(1), report.toString());
+    }
+
+    @Test
+    public void shouldReportMalformedLines() throws IOException {
+        Path file = writeLines("{\"event\": \"Raid\"}", "{\"event\": \"Raid\", \"args\": {\"x\": tru}}");
+
+        try (TSLReplaySource source = TSLReplaySource.fromJsonLines(file)) {
+            TSLJournalRecord record = source.next();
+            Assertions.assertEquals("Raid", record.getEventName());
+            Assertions.assertEquals(0, record.getEventArgs().size());
+
+            IOException e = Assertions.assertThrows(IOException.class, source::next);
+            Assertions.assertTrue(e.getMessage().contains(":2 "), e.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldReplayQuickly() throws Exception {
+        TSLPlatform platform = createPlatform();
+        new RecordingStubs().install(platform, "DROP", "SUMMON");
+        TSLRuleset ruleset = parse(platform, SCRIPT);
+
+        Path folder = Files.createTempDirectory("tsl-replay");
+        int count = 100_000;
+        try (TSLJournal journal = new TSLJournal(folder)) {
+            for (int i = 0; i < count; i++) {
+                GoodieObject args = new GoodieObject();
+                args.put("amount", (double) (i % 300));
+                journal.append(i, i, "Player:iGoodie", "Donation", -1, args);
+            }
+        }
+
+        TSLReplayReport report;
+        try (TSLReplaySource source = TSLReplaySource.fromJournal(folder)) {
+            report = new TSLReplay(platform, ruleset, new TSLExecutor("Player:iGoodie", Runnable::run)).run(source);
+        }
+
+        Assertions.assertEquals(count, report.getEvents());
+        Assertions.assertEquals(0, report.getFailures());
+        System.out.println("Replay " + report);
+        System.out.println("Fires " + report.getRuleFireCounts());
+        Assertions.assertNotEquals(Collections.emptyMap(), report.getRuleFireCounts());
+    }
+
+}
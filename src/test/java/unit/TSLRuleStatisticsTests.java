@@ -0,0 +1,206 @@
+package unit;
+
+import net.programmer.igoodie.tsl.TSLPlatform;
+import net.programmer.igoodie.tsl.exception.TSLPerformingException;
+import net.programmer.igoodie.tsl.exception.TSLSyntaxException;
+import net.programmer.igoodie.tsl.parser.CharStream;
+import net.programmer.igoodie.tsl.parser.TSLLexer;
+import net.programmer.igoodie.tsl.parser.TSLParser;
+import net.programmer.igoodie.tsl.runtime.TSLRuleStatistics;
+import net.programmer.igoodie.tsl.runtime.TSLRuleset;
+import net.programmer.igoodie.tsl.runtime.action.TSLAction;
+import net.programmer.igoodie.tsl.runtime.event.TSLEvent;
+import net.programmer.igoodie.tsl.runtime.event.TSLEventContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class TSLRuleStatisticsTests {
+
+    private static final String SCRIPT = "MARK big ON Donation WITH amount > 100 WITH message CONTAINS gg\n\n"
+            + "SKIP ON Donation WITH amount < 10\n\n"
+            + "FAIL ON Donation WITH actor IS Bob\n\n"
+            + "MARK follow ON Twitch Follow";
+
+    private static TSLPlatform createPlatform() {
+        TSLPlatform platform = new TSLPlatform("TestPlatform", 1.0f);
+        platform.initializeStd();
+        platform.registerEvent(new TSLEvent("Donation")
+                .addPropertyType(TSLEvent.PropertyBuilder.STRING.create("actor"))
+                .addPropertyType(TSLEvent.PropertyBuilder.STRING.create("message"))
+                .addPropertyType(TSLEvent.PropertyBuilder.DOUBLE.create("amount")));
+        platform.registerEvent(new TSLEvent("Twitch Follow"));
+        platform.registerAction("MARK", (p, args) -> new TSLAction(p, args) {
+            @Override
+            public boolean perform(TSLEventContext ctx) {
+                return true;
+            }
+        });
+        platform.registerAction("SKIP", (p, args) -> new TSLAction(p, args) {
+            @Override
+            public boolean perform(TSLEventContext ctx) {
+                return false;
+            }
+        });
+        platform.registerAction("FAIL", (p, args) -> new TSLAction(p, args) {
+            @Override
+            public boolean perform(TSLEventContext ctx) throws TSLPerformingException {
+                throw new TSLPerformingException("Nope");
+            }
+        });
+        return platform;
+    }
+
+    private static TSLRuleset parse(TSLPlatform platform) throws IOException, TSLSyntaxException {
+        return new TSLParser(platform, "Player:iGoodie", new TSLLexer(CharStream.fromString(SCRIPT)).tokenize()).parse();
+    }
+
+    private static void donate(TSLPlatform platform, TSLRuleset ruleset, String actor, double amount, String message) {
+        TSLEventContext ctx = new TSLEventContext(platform, "Donation");
+        ctx.getEventArgs().put("actor", actor);
+        ctx.getEventArgs().put("amount", amount);
+        ctx.getEventArgs().put("message", message);
+        try {
+            ruleset.perform(ctx);
+        } catch (TSLPerformingException ignored) {}
+    }
+
+    @Test
+    public void shouldCountEvaluationsRejectionsAndMatches() throws Exception {
+        TSLPlatform platform = createPlatform();
+        TSLRuleset ruleset = parse(platform);
+        ruleset.setStatisticsEnabled(true);
+
+        donate(platform, ruleset, "Alice", 500, "gg wp"); // #0 matches
+        donate(platform, ruleset, "Alice", 500, "hi");    // #0 rejected by message, #1 and #2 rejected
+        donate(platform, ruleset, "Alice", 5, "gg");      // #0 rejected by amount, #1 declines, #2 rejected
+        donate(platform, ruleset, "Bob", 5, "gg");        // #0 rejected by amount, #1 declines, #2 fails
+
+        List<TSLRuleStatistics.Snapshot> statistics = ruleset.getStatistics();
+        Assertions.assertEquals(4, statistics.size());
+
+        TSLRuleStatistics.Snapshot big = statistics.get(0);
+        Assertions.assertEquals(4, big.getEvaluations());
+        Assertions.assertEquals(1, big.getMatches());
+        Assertions.assertEquals(Arrays.asList("amount", "message"), big.getPredicateFields());
+        Assertions.assertEquals(2, big.getPredicateRejections(0));
+        Assertions.assertEquals(1, big.getPredicateRejections(1));
+
+        TSLRuleStatistics.Snapshot skip = statistics.get(1);
+        Assertions.assertEquals(3, skip.getEvaluations());
+        Assertions.assertEquals(1, skip.getPredicateRejections(0));
+        Assertions.assertEquals(0, skip.getMatches());
+        Assertions.assertEquals(2, skip.getDeclines());
+
+        TSLRuleStatistics.Snapshot fail = statistics.get(2);
+        Assertions.assertEquals(3, fail.getEvaluations());
+        Assertions.assertEquals(2, fail.getPredicateRejections(0));
+        Assertions.assertEquals(1, fail.getFailures());
+        Assertions.assertEquals(0, fail.getMatches());
+
+        Assertions.assertEquals(0, statistics.get(3).getEvaluations());
+    }
+
+    @Test
+    public void shouldSwitchAtRuntime() throws Exception {
+        TSLPlatform platform = createPlatform();
+        TSLRuleset ruleset = parse(platform);
+
+        donate(platform, ruleset, "Alice", 500, "gg");
+        Assertions.assertTrue(ruleset.getStatistics().isEmpty());
+
+        ruleset.setStatisticsEnabled(true);
+        donate(platform, ruleset, "Alice", 500, "gg");
+        ruleset.setStatisticsEnabled(false);
+        donate(platform, ruleset, "Alice", 500, "gg");
+        Assertions.assertEquals(1, ruleset.getStatistics().get(0).getMatches());
+
+        ruleset.setStatisticsEnabled(true);
+        donate(platform, ruleset, "Alice", 500, "gg");
+        Assertions.assertEquals(2, ruleset.getStatistics().get(0).getMatches());
+
+        ruleset.resetStatistics();
+        Assertions.assertEquals(0, ruleset.getStatistics().get(0).getMatches());
+        Assertions.assertEquals(0, ruleset.getStatistics().get(0).getTimedActions());
+    }
+
+    // Like the default TSLExecutor, every event on a thread of its own
+    @Test
+    public void shouldCountEventsOfShortLivedThreads() throws Exception {
+        TSLPlatform platform = createPlatform();
+        TSLRuleset ruleset = parse(platform);
+        ruleset.setStatisticsEnabled(true);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Thread thread = new Thread(() -> donate(platform, ruleset, "Alice", 5, "gg"));
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        List<TSLRuleStatistics.Snapshot> statistics = ruleset.getStatistics();
+        Assertions.assertEquals(200, statistics.get(0).getEvaluations());
+        Assertions.assertEquals(200, statistics.get(0).getPredicateRejections(0));
+        Assertions.assertEquals(200, statistics.get(1).getDeclines());
+        Assertions.assertEquals(200, statistics.get(2).getEvaluations());
+        Assertions.assertEquals(200, statistics.get(2).getPredicateRejections(0));
+    }
+
+    @Test
+    public void shouldTimeASampleOfEvents() throws Exception {
+        TSLPlatform platform = createPlatform();
+        TSLRuleset ruleset = parse(platform);
+        ruleset.setStatisticsEnabled(true);
+
+        int events = 16_000;
+        for (int i = 0; i < events; i++) {
+            donate(platform, ruleset, "Alice", 500, "gg");
+        }
+
+        TSLRuleStatistics.Snapshot big = ruleset.getStatistics().get(0);
+        long expected = events / TSLRuleStatistics.TIMING_SAMPLE_RATE;
+        Assertions.assertEquals(events, big.getMatches());
+        Assertions.assertTrue(Math.abs(big.getTimedActions() - expected) < expected / 4, big.toString());
+    }
+
+    @Test
+    public void shouldStayCheapWhenEnabled() throws Exception {
+        TSLPlatform platform = createPlatform().freeze();
+        TSLRuleset ruleset = parse(platform);
+        TSLEventContext[] events = new TSLEventContext[1024];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new TSLEventContext(platform, "Donation");
+            events[i].getEventArgs().put("actor", "Alice");
+            events[i].getEventArgs().put("amount", (double) (i % 200));
+            events[i].getEventArgs().put("message", i % 3 == 0 ? "gg" : "hi");
+        }
+
+        long disabled = Long.MAX_VALUE, enabled = Long.MAX_VALUE;
+        for (int round = 0; round < 10; round++) {
+            ruleset.setStatisticsEnabled(false);
+            disabled = Math.min(disabled, time(ruleset, events));
+            ruleset.setStatisticsEnabled(true);
+            enabled = Math.min(enabled, time(ruleset, events));
+        }
+
+        System.out.printf("Statistics overhead: off=%dms on=%dms (%+.1f%%)%n",
+                TimeUnit.NANOSECONDS.toMillis(disabled), TimeUnit.NANOSECONDS.toMillis(enabled),
+                (enabled - disabled) * 100.0 / disabled);
+        System.out.println(ruleset.getStatistics().get(0));
+    }
+
+    private static long time(TSLRuleset ruleset, TSLEventContext[] events) throws TSLPerformingException {
+        long startTime = System.nanoTime();
+        for (int i = 0; i < 200_000; i++) {
+            ruleset.perform(events[i & (events.length - 1)]);
+        }
+        return System.nanoTime() - startTime;
+    }
+
+}
@@ -0,0 +1,123 @@
+package unit;
+
+import net.programmer.igoodie.tsl.runtime.executor.TSLExecutor;
+import net.programmer.igoodie.tsl.runtime.executor.TSLShardedScheduler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class TSLShardedSchedulerTests {
+
+    @Test
+    public void shouldRunTargetsOnTheirOwnerThreadInOrder() {
+        TSLShardedScheduler scheduler = new TSLShardedScheduler("Test", 4);
+        TSLExecutor executor = scheduler.createExecutor("Player:iGoodie");
+
+        List<Integer> executionOrder = new ArrayList<>(); // Unsynchronized on purpose, owner thread only
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            int taskIndex = i;
+
+            if (i == 500) {
+                int currentShard = scheduler.getShardIndex("Player:iGoodie");
+                Assertions.assertTrue(scheduler.migrate("Player:iGoodie", (currentShard + 1) % 4));
+            }
+
+            futures.add(executor.resolveCallable(() -> {
+                executionOrder.add(taskIndex);
+                return scheduler.isOwnerThread("Player:iGoodie");
+            }));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        scheduler.shutdown();
+
+        Assertions.assertTrue(futures.stream().allMatch(CompletableFuture::join));
+        Assertions.assertIterableEquals(
+                IntStream.range(0, 1000).boxed().collect(Collectors.toList()),
+                executionOrder);
+    }
+
+    @Test
+    public void shouldRebalanceHotTargets() {
+        TSLShardedScheduler scheduler = new TSLShardedScheduler("Test", 2);
+
+        // Find two targets sharing a shard
+        String hotTarget = "Player:Hot";
+        String otherTarget = null;
+        for (int i = 0; otherTarget == null; i++) {
+            String candidate = "Player:Other" + i;
+            if (scheduler.getShardIndex(candidate) == scheduler.getShardIndex(hotTarget)) {
+                otherTarget = candidate;
+            }
+        }
+
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(scheduler.createExecutor(hotTarget).resolveCallable(() -> 0));
+        }
+        for (int i = 0; i < 10; i++) {
+            futures.add(scheduler.createExecutor(otherTarget).resolveCallable(() -> 0));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        Assertions.assertEquals(1, scheduler.rebalance());
+
+        // Wait for the migration handoff to go through
+        scheduler.createExecutor(otherTarget).resolveCallable(() -> 0).join();
+        scheduler.createExecutor(hotTarget).resolveCallable(() -> 0).join();
+
+        Assertions.assertNotEquals(scheduler.getShardIndex(hotTarget), scheduler.getShardIndex(otherTarget));
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void shouldDrainPendingTasksOnShutdown() throws Exception {
+        TSLShardedScheduler scheduler = new TSLShardedScheduler("Test", 2);
+        TSLExecutor executor = scheduler.createExecutor("Player:iGoodie");
+        CountDownLatch gate = new CountDownLatch(1);
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        futures.add(executor.resolveCallable(() -> {
+            gate.await();
+            return -1;
+        }));
+        for (int i = 0; i < 100; i++) {
+            int taskIndex = i;
+            futures.add(executor.resolveCallable(() -> taskIndex));
+        }
+
+        // Migration still waiting on the held shard when shutdown comes in
+        int currentShard = scheduler.getShardIndex("Player:iGoodie");
+        Assertions.assertTrue(scheduler.migrate("Player:iGoodie", (currentShard + 1) % 2));
+        futures.add(executor.resolveCallable(() -> 100));
+
+        scheduler.shutdown();
+        Assertions.assertThrows(IllegalStateException.class, () -> scheduler.submit("Player:iGoodie", () -> {}));
+        Assertions.assertThrows(IllegalStateException.class, () -> scheduler.submit("Player:Other", () -> {}));
+
+        gate.countDown();
+        Assertions.assertTrue(scheduler.awaitTermination(10, TimeUnit.SECONDS));
+        Assertions.assertTrue(futures.stream().allMatch(CompletableFuture::isDone));
+        Assertions.assertEquals(Integer.valueOf(100), futures.get(futures.size() - 1).join());
+    }
+
+    @Test
+    public void shouldStopWhenInterrupted() throws Exception {
+        TSLShardedScheduler scheduler = new TSLShardedScheduler("Test", 1);
+        CompletableFuture<Thread> owner = scheduler.createExecutor("Player:iGoodie").resolveCallable(Thread::currentThread);
+
+        owner.join().interrupt();
+        owner.join().join(10_000);
+        Assertions.assertFalse(owner.join().isAlive());
+    }
+
+}